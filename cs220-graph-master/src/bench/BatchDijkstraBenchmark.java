@@ -0,0 +1,86 @@
+package bench;
+
+import java.util.Map;
+import java.util.Random;
+
+import graph.INode;
+import graph.impl.BatchDijkstra;
+import graph.impl.Graph;
+
+/**
+ * Benchmark comparing {@link Graph#dijkstra(String)} called once per source
+ * with one {@link BatchDijkstra} batch over the same sources, on a random
+ * undirected weighted graph.
+ *
+ * Run with: java -cp build bench.BatchDijkstraBenchmark [nodes] [edgesPerNode] [sources]
+ */
+public class BatchDijkstraBenchmark
+{
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        Random random = new Random(220);
+        Graph g = new Graph(Graph.NodeStorage.ARRAY);
+        for (int i = 0; i < n; i++) {
+            g.getOrCreateNode("n" + i);
+        }
+        int m = n * degree / 2;
+        int[] src = new int[m];
+        int[] dst = new int[m];
+        int[] wt = new int[m];
+        for (int e = 0; e < m; e++) {
+            src[e] = random.nextInt(n);
+            dst[e] = random.nextInt(n);
+            wt[e] = 1 + random.nextInt(100);
+        }
+        g.addEdges(src, dst, wt, false);
+        int[] sources = new int[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = random.nextInt(n);
+        }
+
+        System.out.printf("random undirected graph: %d nodes, %d edges per node, %d sources%n", n, degree, count);
+        BatchDijkstra batch = new BatchDijkstra(g);
+        for (int round = 0; round < 5; round++) {
+            boolean warmup = round < 2;
+
+            long begin = System.nanoTime();
+            long sum = 0;
+            for (int s : sources) {
+                Map<INode, Integer> dist = g.dijkstra(g.nodeById(s).getName());
+                sum += dist.get(g.nodeById(sources[0]));
+            }
+            report(warmup, "dijkstra per source", begin, sum);
+
+            begin = System.nanoTime();
+            int[][] rows = batch.distances(sources);
+            long batchSum = 0;
+            for (int[] row : rows) {
+                batchSum += row[sources[0]];
+            }
+            report(warmup, "batch, dense rows", begin, batchSum);
+
+            begin = System.nanoTime();
+            long[] streamSum = new long[1];
+            batch.distances(sources, (source, dist) -> {
+                synchronized (streamSum) {
+                    streamSum[0] += dist[sources[0]];
+                }
+            });
+            report(warmup, "batch, streamed rows", begin, streamSum[0]);
+
+            if (sum != batchSum || sum != streamSum[0]) {
+                throw new IllegalStateException("distances differ");
+            }
+        }
+    }
+
+    private static void report(boolean warmup, String label, long start, long checksum) {
+        if (warmup) {
+            return;
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-22s %8.1f ms   checksum %d%n", label, ms, checksum);
+    }
+}
@@ -0,0 +1,83 @@
+package bench;
+
+import java.util.Random;
+
+import graph.BreadthFirstLevels;
+import graph.INode;
+import graph.NodeVisitor;
+import graph.impl.DirectionOptimizingBFS;
+import graph.impl.Graph;
+import graph.impl.ParallelBFS;
+
+/**
+ * Benchmark comparing {@link Graph#breadthFirstSearch(String, NodeVisitor)}
+ * with {@link DirectionOptimizingBFS} and {@link ParallelBFS} on a random
+ * undirected graph, which has a small diameter and a few huge middle levels,
+ * like the graphs loaded with
+ * {@link graph.GraphFactories#createUndirectedGraphFromAdjacencyList(java.io.InputStream)}.
+ *
+ * Run with: java -cp build bench.BfsBenchmark [nodes] [edgesPerNode]
+ */
+public class BfsBenchmark
+{
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        Graph g = makeRandomGraph(n, degree, new Random(220));
+        String start = "n0";
+
+        System.out.printf("random undirected graph: %d nodes, %d edges per node%n", n, degree);
+        DirectionOptimizingBFS optimizing = new DirectionOptimizingBFS(g);
+        ParallelBFS parallel = new ParallelBFS(g);
+        for (int round = 0; round < 5; round++) {
+            boolean warmup = round < 2;
+
+            long begin = System.nanoTime();
+            int[] count = new int[1];
+            g.breadthFirstSearch(start, new NodeVisitor() {
+                @Override
+                public void visit(INode node) {
+                    count[0]++;
+                }
+            });
+            report(warmup, "breadthFirstSearch", begin, count[0]);
+
+            begin = System.nanoTime();
+            BreadthFirstLevels levels = optimizing.search(start);
+            report(warmup, "direction-optimizing", begin, levels.getReachedCount());
+            if (!warmup) {
+                System.out.printf("%22s %d of %d levels bottom-up%n", "",
+                        optimizing.getBottomUpLevelCount(), levels.getLevelCount());
+            }
+
+            begin = System.nanoTime();
+            BreadthFirstLevels parallelLevels = parallel.search(start);
+            report(warmup, "parallel", begin, parallelLevels.getReachedCount());
+
+            if (levels.getReachedCount() != count[0] || parallelLevels.getReachedCount() != count[0]) {
+                throw new IllegalStateException("searches reached different numbers of nodes");
+            }
+        }
+    }
+
+    private static void report(boolean warmup, String label, long start, int reached) {
+        if (warmup) {
+            return;
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-22s %8.1f ms   reached %9d%n", label, ms, reached);
+    }
+
+    private static Graph makeRandomGraph(int n, int degree, Random random) {
+        Graph g = new Graph(Graph.NodeStorage.ARRAY);
+        for (int i = 0; i < n; i++) {
+            g.getOrCreateNode("n" + i);
+        }
+        for (int i = 0; i < n * degree / 2; i++) {
+            INode a = g.nodeById(random.nextInt(n));
+            INode b = g.nodeById(random.nextInt(n));
+            a.addUndirectedEdgeToNode(b, 1);
+        }
+        return g;
+    }
+}
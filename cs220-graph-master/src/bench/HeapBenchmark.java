@@ -0,0 +1,132 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import graph.impl.IndexedHeap;
+import graph.impl.jay;
+
+/**
+ * Microbenchmark comparing Dijkstra with a lazy {@link PriorityQueue}
+ * (one {@link jay} per relaxation, stale entries skipped when polled)
+ * against Dijkstra with an {@link IndexedHeap} of several arities.
+ *
+ * The graph is a random sparse graph held in plain CSR arrays, so the
+ * only thing that differs between the runs is the priority queue.
+ *
+ * Run with: java -cp build bench.HeapBenchmark [nodes] [edgesPerNode]
+ */
+public class HeapBenchmark
+{
+    private static int[] offsets;
+    private static int[] targets;
+    private static int[] weights;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        makeRandomGraph(n, degree, new Random(220));
+
+        System.out.printf("random graph: %d nodes, %d edges%n", n, targets.length);
+        for (int round = 0; round < 5; round++) {
+            boolean warmup = round < 2;
+            long start = System.nanoTime();
+            long[] lazy = lazyDijkstra(0);
+            report(warmup, "PriorityQueue (lazy)", start, lazy);
+            for (int arity : new int[] {2, 4, 8}) {
+                start = System.nanoTime();
+                long[] indexed = indexedDijkstra(0, arity);
+                report(warmup, "IndexedHeap d=" + arity, start, indexed);
+                if (indexed[0] != lazy[0]) {
+                    throw new IllegalStateException("distance checksums differ");
+                }
+            }
+        }
+    }
+
+    private static void report(boolean warmup, String label, long start, long[] result) {
+        if (warmup) {
+            return;
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-22s %8.1f ms   max queue size %9d%n", label, ms, result[1]);
+    }
+
+    private static void makeRandomGraph(int n, int degree, Random random) {
+        offsets = new int[n + 1];
+        targets = new int[n * degree];
+        weights = new int[n * degree];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + degree;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                targets[e] = random.nextInt(n);
+                weights[e] = 1 + random.nextInt(1000);
+            }
+        }
+    }
+
+    /**
+     * Return {checksum of distances, maximum queue size}.
+     */
+    private static long[] lazyDijkstra(int source) {
+        int n = offsets.length - 1;
+        int[] dist = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        boolean[] done = new boolean[n];
+        PriorityQueue<jay> queue = new PriorityQueue<jay>();
+        dist[source] = 0;
+        queue.add(new jay(source, 0));
+        long maxSize = 1;
+        while (!queue.isEmpty()) {
+            int u = queue.poll().getDest();
+            if (done[u]) {
+                continue;
+            }
+            done[u] = true;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int w = targets[e];
+                int cost = dist[u] + weights[e];
+                if (!done[w] && cost < dist[w]) {
+                    dist[w] = cost;
+                    queue.add(new jay(w, cost));
+                }
+            }
+            maxSize = Math.max(maxSize, queue.size());
+        }
+        return new long[] {checksum(dist), maxSize};
+    }
+
+    private static long[] indexedDijkstra(int source, int arity) {
+        int n = offsets.length - 1;
+        int[] dist = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        boolean[] done = new boolean[n];
+        IndexedHeap heap = new IndexedHeap(n, arity);
+        heap.insert(source, 0);
+        long maxSize = 1;
+        while (!heap.isEmpty()) {
+            int d = heap.peekPriority();
+            int u = heap.poll();
+            dist[u] = d;
+            done[u] = true;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (!done[targets[e]]) {
+                    heap.insertOrDecrease(targets[e], d + weights[e]);
+                }
+            }
+            maxSize = Math.max(maxSize, heap.size());
+        }
+        return new long[] {checksum(dist), maxSize};
+    }
+
+    private static long checksum(int[] dist) {
+        long sum = 0;
+        for (int d : dist) {
+            if (d != Integer.MAX_VALUE) {
+                sum += d;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,104 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.Scanner;
+
+import graph.GraphFactories;
+import graph.impl.ByteTokenizer;
+import graph.impl.CompactGraph;
+
+/**
+ * Benchmark for loading a weighted edge list: tokenizing with
+ * {@link Scanner} against {@link ByteTokenizer}, and the full load into a
+ * {@link CompactGraph}, from a stream, with the memory-mapped parallel loader
+ * and from a binary snapshot.
+ *
+ * Run with: java -cp build bench.LoadBenchmark [nodes] [edges]
+ */
+public class LoadBenchmark
+{
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        File file = File.createTempFile("edges", ".txt");
+        file.deleteOnExit();
+        writeRandomEdgeList(file, n, m, new Random(220));
+        File snapshot = File.createTempFile("graph", ".snapshot");
+        snapshot.deleteOnExit();
+        System.out.printf("edge list: %d nodes, %d edges, %.1f MB%n", n, m, file.length() / 1e6);
+
+        for (int round = 0; round < 4; round++) {
+            boolean warmup = round < 1;
+            long start = System.nanoTime();
+            long sum = scannerTokens(file);
+            report(warmup, "Scanner tokens", start, sum);
+
+            start = System.nanoTime();
+            long sum2 = byteTokens(file);
+            report(warmup, "ByteTokenizer tokens", start, sum2);
+            if (sum != sum2) {
+                throw new IllegalStateException("checksums differ");
+            }
+
+            start = System.nanoTime();
+            CompactGraph g;
+            try (InputStream in = new FileInputStream(file)) {
+                g = GraphFactories.createCompactUndirectedWeightedGraphFromEdgeList(in);
+            }
+            report(warmup, "CompactGraph load", start, g.getEdgeCount());
+
+            start = System.nanoTime();
+            g = GraphFactories.createCompactUndirectedWeightedGraphFromEdgeList(file.toPath());
+            report(warmup, "mapped parallel load", start, g.getEdgeCount());
+
+            GraphFactories.writeSnapshot(g, snapshot.toPath());
+            start = System.nanoTime();
+            g = GraphFactories.readSnapshot(snapshot.toPath());
+            report(warmup, "snapshot load", start, g.getEdgeCount());
+        }
+    }
+
+    private static void report(boolean warmup, String label, long start, long checksum) {
+        if (warmup) {
+            return;
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-22s %8.1f ms   (%d)%n", label, ms, checksum);
+    }
+
+    private static void writeRandomEdgeList(File file, int n, int m, Random random) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < m; i++) {
+                out.write("v" + random.nextInt(n) + " v" + random.nextInt(n) + " " + (1 + random.nextInt(100)) + "\n");
+            }
+        }
+    }
+
+    private static long scannerTokens(File file) throws IOException {
+        long sum = 0;
+        try (Scanner scan = new Scanner(new FileInputStream(file))) {
+            while (scan.hasNext()) {
+                sum += scan.next().length() + scan.next().length();
+                sum += scan.nextInt();
+            }
+        }
+        return sum;
+    }
+
+    private static long byteTokens(File file) throws IOException {
+        long sum = 0;
+        try (ByteTokenizer tok = new ByteTokenizer(new FileInputStream(file))) {
+            while (tok.hasNext()) {
+                sum += tok.next().length() + tok.next().length();
+                sum += tok.nextInt();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,76 @@
+package bench;
+
+import java.util.Random;
+
+import graph.SpanningForest;
+import graph.impl.CompactGraph;
+import graph.impl.Graph;
+import graph.impl.MinimumSpanningTree;
+
+/**
+ * Benchmark comparing the old {@link Graph#primJarnik()}, which builds a new
+ * graph, with {@link MinimumSpanningTree#prim()},
+ * {@link MinimumSpanningTree#kruskal()} and the parallel
+ * {@link MinimumSpanningTree#boruvka()}, which only return the edges, on a
+ * random undirected graph with random weights.
+ *
+ * Run with: java -cp build bench.MstBenchmark [nodes] [edgesPerNode]
+ */
+public class MstBenchmark
+{
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        Random random = new Random(220);
+        Graph g = new Graph(Graph.NodeStorage.ARRAY);
+        for (int i = 0; i < n; i++) {
+            g.getOrCreateNode("n" + i);
+        }
+        int m = n * degree / 2;
+        int[] src = new int[m];
+        int[] dst = new int[m];
+        int[] wt = new int[m];
+        for (int e = 0; e < m; e++) {
+            src[e] = random.nextInt(n);
+            dst[e] = random.nextInt(n);
+            wt[e] = random.nextInt(1000);
+        }
+        g.addEdges(src, dst, wt, false);
+        CompactGraph compact = CompactGraph.freeze(g);
+
+        System.out.printf("random undirected graph: %d nodes, %d edges per node%n", n, degree);
+        MinimumSpanningTree mst = new MinimumSpanningTree(compact);
+        for (int round = 0; round < 5; round++) {
+            boolean warmup = round < 2;
+
+            long begin = System.nanoTime();
+            g.primJarnik();
+            report(warmup, "primJarnik (graph)", begin, -1);
+
+            begin = System.nanoTime();
+            SpanningForest prim = mst.prim();
+            report(warmup, "prim (edges)", begin, prim.getTotalWeight());
+
+            begin = System.nanoTime();
+            SpanningForest kruskal = mst.kruskal();
+            report(warmup, "kruskal (edges)", begin, kruskal.getTotalWeight());
+
+            begin = System.nanoTime();
+            SpanningForest boruvka = mst.boruvka();
+            report(warmup, "boruvka (parallel)", begin, boruvka.getTotalWeight());
+
+            if (prim.getTotalWeight() != boruvka.getTotalWeight()
+                    || prim.getTotalWeight() != kruskal.getTotalWeight()) {
+                throw new IllegalStateException("forests have different weights");
+            }
+        }
+    }
+
+    private static void report(boolean warmup, String label, long start, long weight) {
+        if (warmup) {
+            return;
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-22s %8.1f ms   weight %12d%n", label, ms, weight);
+    }
+}
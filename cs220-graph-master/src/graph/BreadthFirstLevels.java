@@ -0,0 +1,132 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * The result of a level-by-level breadth-first search: for every node, the
+ * number of hops (edges) from the start node and its parent in the BFS tree,
+ * and for every hop count, the set of nodes at exactly that distance.
+ *
+ * Level 0 holds only the start node. The nodes within a level are in no
+ * particular order. Nodes that cannot be reached have a hop count of -1.
+ *
+ * @author jspacco
+ *
+ */
+public class BreadthFirstLevels
+{
+    private final IGraph graph;
+    private final int[] hops;
+    private final int[] parents;
+    private final int[][] levels;
+    private final int reached;
+
+    /**
+     * @param graph the graph that was searched
+     * @param hops hop count of every node, by id, or -1 if it was not reached
+     * @param parents id of the BFS tree parent of every node, or -1 for the
+     *        start node and nodes that were not reached
+     * @param levels ids of the nodes at each hop count
+     */
+    public BreadthFirstLevels(IGraph graph, int[] hops, int[] parents, int[][] levels) {
+        this.graph = graph;
+        this.hops = hops;
+        this.parents = parents;
+        this.levels = levels;
+        int count = 0;
+        for (int[] level : levels) {
+            count += level.length;
+        }
+        this.reached = count;
+    }
+
+    /**
+     * Return the number of levels, which is one more than the largest hop count.
+     *
+     * @return
+     */
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Return the nodes that are exactly the given number of hops from the start.
+     *
+     * @param depth
+     * @return
+     */
+    public List<INode> getLevel(int depth) {
+        final int[] level = levels[depth];
+        return new AbstractList<INode>() {
+            @Override
+            public INode get(int index) {
+                return graph.nodeById(level[index]);
+            }
+
+            @Override
+            public int size() {
+                return level.length;
+            }
+        };
+    }
+
+    /**
+     * Return the number of hops from the start to the given node,
+     * or -1 if the node was not reached.
+     *
+     * @param node
+     * @return
+     */
+    public int getHops(INode node) {
+        return hops[graph.getId(node)];
+    }
+
+    /**
+     * Return the number of hops from the start to the node with the given id,
+     * or -1 if the node was not reached.
+     *
+     * @param id
+     * @return
+     */
+    public int getHops(int id) {
+        return hops[id];
+    }
+
+    /**
+     * Return the node the given node was reached from, which is one hop
+     * closer to the start, or null for the start node and nodes that were
+     * not reached. Following parents from any node leads back to the start
+     * along a path with the fewest edges.
+     *
+     * @param node
+     * @return
+     */
+    public INode getParent(INode node) {
+        int parent = parents[graph.getId(node)];
+        return parent < 0 ? null : graph.nodeById(parent);
+    }
+
+    /**
+     * Return the id of the parent of the node with the given id, or -1.
+     *
+     * @param id
+     * @return
+     */
+    public int getParent(int id) {
+        return parents[id];
+    }
+
+    public boolean isReached(INode node) {
+        return getHops(node) >= 0;
+    }
+
+    /**
+     * Return the number of nodes reached, including the start node.
+     *
+     * @return
+     */
+    public int getReachedCount() {
+        return reached;
+    }
+}
@@ -0,0 +1,53 @@
+package graph;
+
+/**
+ * The connected components of a graph, as returned by
+ * {@link IGraph#connectedComponents()}: which nodes can reach each other,
+ * ignoring the direction of edges.
+ *
+ * Every node is labeled once, and after that each query takes nearly
+ * constant time instead of a search. The components of a mutable graph are
+ * a live view: adding a node or an edge updates them in place, while
+ * removing an edge has them labeled again at the next query.
+ *
+ * @author jspacco
+ *
+ */
+public interface ConnectedComponents
+{
+    /**
+     * Return the number of components. A node without edges is a component
+     * of its own.
+     *
+     * @return
+     */
+    int getComponentCount();
+
+    /**
+     * Return true if there is a path between the two given nodes, in
+     * either direction.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    boolean sameComponent(INode a, INode b);
+
+    /**
+     * Return the number of nodes in the component of the given node.
+     *
+     * @param node
+     * @return
+     */
+    int getComponentSize(INode node);
+
+    /**
+     * Return the id of a node that represents the component of the given
+     * node, the same for every node of the component. The representative
+     * may change when the graph changes.
+     *
+     * @param node
+     * @return
+     */
+    int getComponent(INode node);
+}
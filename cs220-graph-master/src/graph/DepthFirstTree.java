@@ -0,0 +1,146 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * The result of a depth-first search: for every node reached, its parent in
+ * the DFS tree and the times at which the search discovered it and finished
+ * it (after every node below it in the tree was finished).
+ *
+ * Times come from a single clock that ticks once per discovery and once per
+ * finish, so they run from 0 to twice the number of reached nodes minus one.
+ * A node <i>a</i> is an ancestor of <i>b</i> exactly when <i>b</i> was
+ * discovered after <i>a</i> and finished before it. Nodes that were not
+ * reached have times of -1.
+ *
+ * @author jspacco
+ *
+ */
+public class DepthFirstTree
+{
+    private final IGraph graph;
+    private final int[] discovery;
+    private final int[] finish;
+    private final int[] parents;
+    private final int[] preorder;
+    private final int[] postorder;
+
+    /**
+     * @param graph the graph that was searched
+     * @param discovery discovery time of every node, by id, or -1
+     * @param finish finish time of every node, by id, or -1
+     * @param parents id of the DFS tree parent of every node, or -1 for the
+     *        roots and nodes that were not reached
+     * @param preorder ids of the reached nodes in the order they were discovered
+     * @param postorder ids of the reached nodes in the order they were finished
+     */
+    public DepthFirstTree(IGraph graph, int[] discovery, int[] finish, int[] parents,
+            int[] preorder, int[] postorder)
+    {
+        this.graph = graph;
+        this.discovery = discovery;
+        this.finish = finish;
+        this.parents = parents;
+        this.preorder = preorder;
+        this.postorder = postorder;
+    }
+
+    public int getDiscoveryTime(INode node) {
+        return discovery[graph.getId(node)];
+    }
+
+    public int getDiscoveryTime(int id) {
+        return discovery[id];
+    }
+
+    public int getFinishTime(INode node) {
+        return finish[graph.getId(node)];
+    }
+
+    public int getFinishTime(int id) {
+        return finish[id];
+    }
+
+    /**
+     * Return the node the given node was discovered from, or null for a root
+     * of the search and for nodes that were not reached.
+     *
+     * @param node
+     * @return
+     */
+    public INode getParent(INode node) {
+        int parent = parents[graph.getId(node)];
+        return parent < 0 ? null : graph.nodeById(parent);
+    }
+
+    /**
+     * Return the id of the parent of the node with the given id, or -1.
+     *
+     * @param id
+     * @return
+     */
+    public int getParent(int id) {
+        return parents[id];
+    }
+
+    public boolean isReached(INode node) {
+        return getDiscoveryTime(node) >= 0;
+    }
+
+    /**
+     * Return true if the first node is an ancestor of the second in the DFS
+     * tree, or is the same node. Both nodes must have been reached.
+     *
+     * @param ancestor
+     * @param node
+     * @return
+     */
+    public boolean isAncestor(INode ancestor, INode node) {
+        int a = graph.getId(ancestor);
+        int b = graph.getId(node);
+        return discovery[a] >= 0 && discovery[a] <= discovery[b] && finish[b] <= finish[a];
+    }
+
+    /**
+     * Return the number of nodes reached, including the start node.
+     *
+     * @return
+     */
+    public int getReachedCount() {
+        return preorder.length;
+    }
+
+    /**
+     * Return the reached nodes in the order they were discovered.
+     *
+     * @return
+     */
+    public List<INode> getPreorder() {
+        return nodes(preorder);
+    }
+
+    /**
+     * Return the reached nodes in the order they were finished. For a directed
+     * graph without cycles, the reverse of this order is a topological order.
+     *
+     * @return
+     */
+    public List<INode> getPostorder() {
+        return nodes(postorder);
+    }
+
+    private List<INode> nodes(final int[] ids) {
+        return new AbstractList<INode>() {
+            @Override
+            public INode get(int index) {
+                return graph.nodeById(ids[index]);
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package graph;
+
+/**
+ * The shortest distance between every pair of nodes of a graph, as returned
+ * by {@link IGraph#allPairsShortestPaths()}, so that every query is a single
+ * array lookup instead of a search.
+ *
+ * The distances are kept in one flat array of n*n ints, row by row: the
+ * distance from the node with id u to the node with id v is at u*n+v. A
+ * distance of -1 means there is no path.
+ *
+ * The matrix is a copy: it does not change when the graph does.
+ *
+ * @author jspacco
+ *
+ */
+public class DistanceMatrix
+{
+    private final IGraph graph;
+    private final int n;
+    private final int[] dist;
+
+    /**
+     * @param graph the graph the distances were computed on
+     * @param n the number of nodes
+     * @param dist n*n distances, row by row, with -1 for no path
+     */
+    public DistanceMatrix(IGraph graph, int n, int[] dist) {
+        if ((long) n * n != dist.length) {
+            throw new IllegalArgumentException("a matrix for " + n + " nodes needs " + (long) n * n
+                    + " entries, not " + dist.length);
+        }
+        this.graph = graph;
+        this.n = n;
+        this.dist = dist;
+    }
+
+    public IGraph getGraph() {
+        return graph;
+    }
+
+    public int getNodeCount() {
+        return n;
+    }
+
+    /**
+     * Return the distance from the node with id u to the node with id v,
+     * or -1 if there is no path.
+     *
+     * @param u
+     * @param v
+     * @return
+     */
+    public int getDistance(int u, int v) {
+        if (u < 0 || u >= n || v < 0 || v >= n) {
+            throw new IllegalArgumentException("No node with id " + (u < 0 || u >= n ? u : v));
+        }
+        return dist[u * n + v];
+    }
+
+    /**
+     * Return the distance between the given nodes, or -1 if there is no path.
+     *
+     * @param src
+     * @param dst
+     * @return
+     */
+    public int getDistance(INode src, INode dst) {
+        return dist[graph.getId(src) * n + graph.getId(dst)];
+    }
+
+    /**
+     * Return the distance between the named nodes, or -1 if there is no path.
+     *
+     * @param src
+     * @param dst
+     * @return
+     */
+    public int getDistance(String src, String dst) {
+        return getDistance(node(src), node(dst));
+    }
+
+    public boolean isReachable(int u, int v) {
+        return getDistance(u, v) >= 0;
+    }
+
+    /**
+     * Return the largest finite distance in the matrix, or 0 if there is
+     * none.
+     *
+     * @return
+     */
+    public int getDiameter() {
+        int max = 0;
+        for (int d : dist) {
+            max = Math.max(max, d);
+        }
+        return max;
+    }
+
+    /**
+     * Copy the distances from the node with id u into the given array, which
+     * must have one entry per node, and return it.
+     *
+     * @param u
+     * @param row
+     * @return
+     */
+    public int[] copyRow(int u, int[] row) {
+        if (u < 0 || u >= n) {
+            throw new IllegalArgumentException("No node with id " + u);
+        }
+        System.arraycopy(dist, u * n, row, 0, n);
+        return row;
+    }
+
+    /**
+     * Return the flat array behind the matrix, without copying it, for code
+     * that reads every entry, such as a writer.
+     *
+     * @return
+     */
+    public int[] getEntries() {
+        return dist;
+    }
+
+    private INode node(String name) {
+        if (!graph.containsNode(name)) {
+            throw new IllegalArgumentException("No node named " + name);
+        }
+        return graph.getOrCreateNode(name);
+    }
+}
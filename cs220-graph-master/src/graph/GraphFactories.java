@@ -2,20 +2,39 @@ package graph;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashSet;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Scanner;
-import java.util.Set;
 
+import graph.impl.ByteTokenizer;
+import graph.impl.CompactGraph;
+import graph.impl.DistanceMatrixFile;
+import graph.impl.DotParser;
+import graph.impl.DotWriter;
+import graph.impl.ExternalKruskal;
 import graph.impl.Graph;
+import graph.impl.GraphSnapshot;
+import graph.impl.MappedEdgeListLoader;
 
 /**
  * Static factory methods for creating graphs from different input file formats.
  * 
+ * The edge list readers tokenize with {@link ByteTokenizer} rather than
+ * {@link Scanner}, so loading a large file is limited by the disk, not by parsing,
+ * and add the edges in batches with {@link IGraph#addEdges(String[], String[], int[], boolean)}.
+ * 
  * @author jspacco
  *
  */
 public class GraphFactories
 {
+    // the edge list readers hand edges to IGraph.addEdges this many at a time
+    private static final int EDGE_BATCH = 1 << 20;
+    // their buffers start this small, and double until they hold EDGE_BATCH edges
+    private static final int FIRST_BATCH = 1024;
+
     /**
      * Static factory method for creating a graph from a list of connections
      * between nodes. The given InputStream will contain lines in the following format:
@@ -37,13 +56,26 @@ public class GraphFactories
     throws IOException
     {
         IGraph g = new Graph();
-        Scanner scan = new Scanner(in);
+        ByteTokenizer scan = new ByteTokenizer(in);
+        String[] src = new String[FIRST_BATCH];
+        String[] dst = new String[FIRST_BATCH];
+        int count = 0;
         while (scan.hasNext()){
-            INode src = g.getOrCreateNode(scan.next());
-            INode dst = g.getOrCreateNode(scan.next());
-            src.addUndirectedEdgeToNode(dst, 1);
+            if (count == src.length) {
+                if (count == EDGE_BATCH) {
+                    g.addEdges(src, dst, null, false);
+                    count = 0;
+                } else {
+                    src = Arrays.copyOf(src, 2 * count);
+                    dst = Arrays.copyOf(dst, 2 * count);
+                }
+            }
+            src[count] = scan.next();
+            dst[count] = scan.next();
+            count++;
         }
         scan.close();
+        g.addEdges(Arrays.copyOf(src, count), Arrays.copyOf(dst, count), null, false);
         return g;
     }
     
@@ -68,19 +100,186 @@ public class GraphFactories
     throws IOException
     {
         IGraph g = new Graph();
-        Scanner scanner = new Scanner(in);
+        ByteTokenizer scanner = new ByteTokenizer(in);
+        String[] src = new String[FIRST_BATCH];
+        String[] dst = new String[FIRST_BATCH];
+        int[] cost = new int[FIRST_BATCH];
+        int count = 0;
+        while (scanner.hasNext()){
+            if (count == src.length) {
+                if (count == EDGE_BATCH) {
+                    g.addEdges(src, dst, cost, false);
+                    count = 0;
+                } else {
+                    src = Arrays.copyOf(src, 2 * count);
+                    dst = Arrays.copyOf(dst, 2 * count);
+                    cost = Arrays.copyOf(cost, 2 * count);
+                }
+            }
+            src[count]=scanner.next();
+            dst[count]=scanner.next();
+            cost[count]=scanner.nextInt();
+            count++;
+        }
+        scanner.close();
+        g.addEdges(Arrays.copyOf(src, count), Arrays.copyOf(dst, count), Arrays.copyOf(cost, count), false);
+        return g;
+    }
+
+    /**
+     * Same as {@link #createUndirectedGraphFromAdjacencyList(InputStream)}, but
+     * builds an immutable {@link CompactGraph} directly, without creating
+     * a mutable {@link Graph} first.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static CompactGraph createCompactUndirectedGraphFromAdjacencyList(InputStream in)
+    throws IOException
+    {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        ByteTokenizer scan = new ByteTokenizer(in);
+        while (scan.hasNext()){
+            String src=scan.next();
+            String dst=scan.next();
+            builder.addUndirectedEdge(src, dst, 1);
+        }
+        scan.close();
+        return builder.build();
+    }
+
+    /**
+     * Same as {@link #createUndirectedWeightedGraphFromEdgeList(InputStream)}, but
+     * builds an immutable {@link CompactGraph} directly, without creating
+     * a mutable {@link Graph} first.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static CompactGraph createCompactUndirectedWeightedGraphFromEdgeList(InputStream in)
+    throws IOException
+    {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        ByteTokenizer scanner = new ByteTokenizer(in);
         while (scanner.hasNext()){
             String src=scanner.next();
             String dst=scanner.next();
             int cost=scanner.nextInt();
-            INode srcNode=g.getOrCreateNode(src);
-            INode dstNode=g.getOrCreateNode(dst);
-            srcNode.addUndirectedEdgeToNode(dstNode, cost);
+            builder.addUndirectedEdge(src, dst, cost);
         }
         scanner.close();
-        return g;
+        return builder.build();
     }
-    
+
+    /**
+     * Same as {@link #createCompactUndirectedGraphFromAdjacencyList(InputStream)},
+     * but memory-maps the given file and parses it on all cores. See
+     * {@link MappedEdgeListLoader}. Nodes get their ids in alphabetical order.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static CompactGraph createCompactUndirectedGraphFromAdjacencyList(Path file)
+    throws IOException
+    {
+        return MappedEdgeListLoader.load(file, false);
+    }
+
+    /**
+     * Same as {@link #createCompactUndirectedWeightedGraphFromEdgeList(InputStream)},
+     * but memory-maps the given file and parses it on all cores. See
+     * {@link MappedEdgeListLoader}. Nodes get their ids in alphabetical order.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static CompactGraph createCompactUndirectedWeightedGraphFromEdgeList(Path file)
+    throws IOException
+    {
+        return MappedEdgeListLoader.load(file, true);
+    }
+
+    /**
+     * Compute a minimum spanning forest of an undirected weighted edge list
+     * file, in the format of {@link #createUndirectedWeightedGraphFromEdgeList(InputStream)},
+     * without ever loading the graph. The edges are sorted on disk when there
+     * are too many for memory, so the file can be larger than RAM. See
+     * {@link ExternalKruskal}.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static SpanningForest minimumSpanningForestFromEdgeList(Path file)
+    throws IOException
+    {
+        return ExternalKruskal.fromEdgeList(file);
+    }
+
+    /**
+     * Save the given graph to a binary snapshot file, which
+     * {@link #readSnapshot(Path)} loads back far faster than any of the text
+     * formats can be parsed. See {@link GraphSnapshot}.
+     *
+     * @param g
+     * @param file
+     * @throws IOException
+     */
+    public static void writeSnapshot(IGraph g, Path file)
+    throws IOException
+    {
+        GraphSnapshot.write(g, file);
+    }
+
+    /**
+     * Load a graph saved with {@link #writeSnapshot(IGraph, Path)}. The node
+     * ids of the loaded graph are the same as in the saved {@link CompactGraph}.
+     *
+     * @param file
+     * @return
+     * @throws IOException if the file is not a snapshot this version can read
+     */
+    public static CompactGraph readSnapshot(Path file)
+    throws IOException
+    {
+        return GraphSnapshot.load(file);
+    }
+
+    /**
+     * Save the given distance matrix to a binary file, which
+     * {@link #readDistanceMatrix(IGraph, Path)} loads back without computing
+     * anything. See {@link DistanceMatrixFile}.
+     *
+     * @param matrix
+     * @param file
+     * @throws IOException
+     */
+    public static void writeDistanceMatrix(DistanceMatrix matrix, Path file)
+    throws IOException
+    {
+        DistanceMatrixFile.write(matrix, file);
+    }
+
+    /**
+     * Load a distance matrix saved with
+     * {@link #writeDistanceMatrix(DistanceMatrix, Path)} for the given graph,
+     * which must have the same nodes, with the same ids, and the same edges.
+     *
+     * @param g
+     * @param file
+     * @return
+     * @throws IOException if the file is not a distance matrix for this graph
+     */
+    public static DistanceMatrix readDistanceMatrix(IGraph g, Path file)
+    throws IOException
+    {
+        return DistanceMatrixFile.load(g, file);
+    }
+
     /**
      * Create a String representing the given graph in DOT format, suitable
      * for display with GraphViz. The graph is assumed to be
@@ -110,26 +309,7 @@ public class GraphFactories
      */
     public static String toUndirectedUnweightedDotFile(Graph g, String graphname)
     {
-        StringBuilder buf = new StringBuilder();
-        Set<String> set=new HashSet<String>();
-        buf.append("graph "+graphname+" {\n");
-        for (INode src : g.getAllNodes()) {
-            for (INode dst : src.getNeighbors()) {
-                String srcStr=src.getName();
-                String dstStr=dst.getName();
-                String key=srcStr+" "+dstStr;
-                if (srcStr.compareTo(dstStr)>0) {
-                    key=dstStr+" "+srcStr;
-                }
-                if (set.contains(key)){
-                    continue;
-                }
-                set.add(key);
-                buf.append(srcStr+" -- "+dstStr+"\n");
-            }
-        }
-        buf.append("}\n");
-        return buf.toString();
+        return toDotString(g, graphname, false, false);
     }
     
     /**
@@ -158,27 +338,7 @@ public class GraphFactories
      */
     public static String toUndirectedWeightedDotFile(IGraph g, String graphname)
     {
-        StringBuilder buf = new StringBuilder();
-        Set<String> set=new HashSet<String>();
-        buf.append("graph "+graphname+" {\n");
-        for (INode src : g.getAllNodes()) {
-            for (INode dst : src.getNeighbors()) {
-                String srcStr=src.getName();
-                String dstStr=dst.getName();
-                String key=srcStr+" "+dstStr;
-                if (srcStr.compareTo(dstStr)>0){
-                    key=dstStr+" "+srcStr;
-                }
-                if (set.contains(key)) {
-                    continue;
-                }
-                set.add(key);
-                int cost=src.getWeight(dst);
-                buf.append(src.getName()+" -- "+dst.getName()+" [label="+cost+"];\n");
-            }
-        }
-        buf.append("}\n");
-        return buf.toString();
+        return toDotString(g, graphname, false, true);
     }
     
     /**
@@ -207,27 +367,7 @@ public class GraphFactories
      */
     public static String toDirectedWeightedDotFile(IGraph g, String graphname)
     {
-        StringBuilder buf = new StringBuilder();
-        Set<String> set=new HashSet<String>();
-        buf.append("digraph "+graphname+" {\n");
-        for (INode src : g.getAllNodes()) {
-            for (INode dst : src.getNeighbors()) {
-                String srcStr=src.getName();
-                String dstStr=dst.getName();
-                String key=srcStr+" "+dstStr;
-                if (srcStr.compareTo(dstStr)>0){
-                    key=dstStr+" "+srcStr;
-                }
-                if (set.contains(key)) {
-                    continue;
-                }
-                set.add(key);
-                int cost=src.getWeight(dst);
-                buf.append(src.getName()+" -> "+dst.getName()+" [label="+cost+"];\n");
-            }
-        }
-        buf.append("}\n");
-        return buf.toString();
+        return toDotString(g, graphname, true, true);
     }
     
     /**
@@ -254,67 +394,93 @@ public class GraphFactories
      * @param graphname the name of the graph
      */
     public static String toDirectedUnWeightedDotFile(IGraph g, String graphname)
+    {
+        return toDotString(g, graphname, true, false);
+    }
+
+
+    /**
+     * Write the given graph in DOT format to the given Writer, one edge at a
+     * time, without building the document in memory. This is the streaming
+     * form of the toXxxDotFile methods above: <code>directed</code> and
+     * <code>weighted</code> pick the format. Each undirected edge is written once.
+     * See {@link DotWriter}.
+     *
+     * @param g the graph
+     * @param graphname the name of the graph
+     * @param directed
+     * @param weighted
+     * @param out
+     * @throws IOException
+     */
+    public static void writeDotFile(IGraph g, String graphname, boolean directed, boolean weighted, Writer out)
+    throws IOException
+    {
+        DotWriter.write(g, graphname, directed, weighted, out);
+    }
+
+    /**
+     * Same as {@link #writeDotFile(IGraph, String, boolean, boolean, Writer)},
+     * but writes UTF-8 to the given stream, which is flushed but not closed.
+     *
+     * @param g the graph
+     * @param graphname the name of the graph
+     * @param directed
+     * @param weighted
+     * @param out
+     * @throws IOException
+     */
+    public static void writeDotFile(IGraph g, String graphname, boolean directed, boolean weighted, OutputStream out)
+    throws IOException
+    {
+        DotWriter.write(g, graphname, directed, weighted, out);
+    }
+
+    /**
+     * Same as {@link #writeDotFile(IGraph, String, boolean, boolean, Writer)},
+     * but writes UTF-8 to the given file, gzipped if its name ends with <code>.gz</code>.
+     *
+     * @param g the graph
+     * @param graphname the name of the graph
+     * @param directed
+     * @param weighted
+     * @param file
+     * @throws IOException
+     */
+    public static void writeDotFile(IGraph g, String graphname, boolean directed, boolean weighted, Path file)
+    throws IOException
+    {
+        DotWriter.write(g, graphname, directed, weighted, file);
+    }
+
+    private static String toDotString(IGraph g, String graphname, boolean directed, boolean weighted)
     {
         StringBuilder buf = new StringBuilder();
-        Set<String> set=new HashSet<String>();
-        buf.append("digraph "+graphname+" {\n");
-        for (INode src : g.getAllNodes()) {
-            for (INode dst : src.getNeighbors()) {
-                String srcStr=src.getName();
-                String dstStr=dst.getName();
-                String key=srcStr+" "+dstStr;
-                if (srcStr.compareTo(dstStr)>0){
-                    key=dstStr+" "+srcStr;
-                }
-                if (set.contains(key)) {
-                    continue;
-                }
-                set.add(key);
-                buf.append(src.getName()+" -> "+dst.getName()+";\n");
-            }
+        try {
+            DotWriter.write(g, graphname, directed, weighted, buf);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new IllegalStateException(e);
         }
-        buf.append("}\n");
         return buf.toString();
     }
 
-
     /**
      * Read a graph from a dotfile.
      * 
-     * The graph is assumed to be weighted.
+     * Edges written with -- are undirected and edges written with -&gt; are
+     * directed. Each edge gets the weight in its label (or weight) attribute,
+     * or 1 if it has none. See {@link DotParser} for the parts of the
+     * DOT language that are understood.
      * 
      * @param in
      * @return
-     * @throws IOException
+     * @throws IOException if the input is not valid DOT
      */
     public static IGraph readFromDotFile(InputStream in)
     throws IOException
     {
-        IGraph g = new Graph();
-        Scanner scan=new Scanner(in);
-        while (scan.hasNextLine()) {
-            String line=scan.nextLine();
-            line=line.replaceAll("--", "");
-            line=line.replaceAll("\\];", "");
-            line=line.replaceAll("\\[label=", "");
-            if (line.equals("") || 
-                    line.contains("{") ||
-                    line.contains("}"))
-            {
-                continue;
-            }
-            System.out.println(line);
-            Scanner lscan=new Scanner(line);
-            String srcname=lscan.next();
-            String dstname=lscan.next();
-            int weight=lscan.nextInt();
-            lscan.close();
-            INode src=g.getOrCreateNode(srcname);
-            INode dst=g.getOrCreateNode(dstname);
-            src.addUndirectedEdgeToNode(dst, weight);
-        }
-        scan.close();
-        return g;
+        return DotParser.read(in);
     }
     
 }
@@ -1,93 +1,117 @@
 package graph;
 
-import java.util.Stack;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
 
 import graph.impl.Graph;
+import graph.impl.ImplicitGridGraph;
+import graph.impl.Maze;
+import graph.impl.MazeGenerator;
 
 /**
  * Pretty cool class for creating "grid graphs", which are graphs with the nodes
  * arranged on a grid of rows and columns. Perfomring a DFS on this graph creates
- * a maze.
+ * a maze; see {@link MazeGenerator}.
  * 
  * @author jspacco
  *
  */
 public class GridGraph
 {
+    /**
+     * Create a mutable grid graph with the given number of rows and columns.
+     * Each node is named something like r2c1, which means "row 2, column 1",
+     * and has undirected edges of weight 1 to the nodes to its left and right,
+     * and above and below it. The node in row r and column c has id r*cols+c.
+     * 
+     * For grids too big to store, or that don't need to change, use
+     * {@link #makeImplicitGridGraph(int, int, ImplicitGridGraph.Connectivity)}.
+     * 
+     * @param rows
+     * @param cols
+     * @return
+     */
     public static IGraph makeGridGraph(int rows, int cols) {
         IGraph graph = new Graph();
-        // Each node is named something like r2c1, which means "row 2, column 1".
-        // Nodes have edges to other nodes that are to their left or right, and
-        // above or below.
-        for (int r = 0; r < rows; r++){
-            for (int c=0; c < cols; c++){
-                if (r > 0) {
-                    INode current = graph.getOrCreateNode(String.format("r%dc%d", r, c));
-                    INode other = graph.getOrCreateNode(String.format("r%dc%d", r-1, c));
-                    current.addUndirectedEdgeToNode(other, 1);
-                }
-                if (r < rows-1) {
-                    INode current = graph.getOrCreateNode(String.format("r%dc%d", r, c));
-                    INode other = graph.getOrCreateNode(String.format("r%dc%d", r+1, c));
-                    current.addUndirectedEdgeToNode(other, 1);
-                }
-                if (c > 0) {
-                    INode current = graph.getOrCreateNode(String.format("r%dc%d", r, c));
-                    INode other = graph.getOrCreateNode(String.format("r%dc%d", r, c-1));
-                    current.addUndirectedEdgeToNode(other, 1);
+        for (int r = 0; r < rows; r++) {
+            String row = "r" + r + "c";
+            for (int c = 0; c < cols; c++) {
+                graph.getOrCreateNode(row + c);
+            }
+        }
+        // each cell has an edge to the cell on its right and the one below it
+        int edges = Math.max(0, rows * (cols - 1)) + Math.max(0, (rows - 1) * cols);
+        int[] src = new int[edges];
+        int[] dst = new int[edges];
+        int e = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int id = r * cols + c;
+                if (c < cols - 1) {
+                    src[e] = id;
+                    dst[e++] = id + 1;
                 }
-                if (c < cols-1) {
-                    INode current = graph.getOrCreateNode(String.format("r%dc%d", r, c));
-                    INode other = graph.getOrCreateNode(String.format("r%dc%d", r, c+1));
-                    current.addUndirectedEdgeToNode(other, 1);
+                if (r < rows - 1) {
+                    src[e] = id;
+                    dst[e++] = id + cols;
                 }
             }
         }
+        graph.addEdges(src, dst, null, false);
         return graph;
     }
     
-    public static void main(String[] args){
-        int rows = 5;
-        int cols = 5;
-        
-        IGraph g = makeGridGraph(rows, cols);
-
-        // This code generates a maze with the given number of rows and cols
-        // using DFS, and prints it out in Graphviz format. 
-        System.out.printf("graph gr {\n");
-        
-        
-        g.depthFirstSearch("r0c0", new NodeVisitor() {
-            Stack<INode> nodes = new Stack<INode>();
-            @Override
-            public void visit(INode node) {
-                // Go through the stack of nodes we've already seen,
-                // and connect to it.
-                for (INode n : nodes){
-                    if (node.hasEdge(n)){
-                        System.out.printf("%s -- %s;\n", n.getName(), node.getName());
-                        break;
-                    }
-                }
-                nodes.push(node);
-            }
-        });
-        
-        // This creates a bunch of "rank=same" directives that tell graphviz to lay out
-        // the graph a certain way.
-        for (int r=0; r<rows; r++){
-            String rank = "";
-            for (int c=0; c<cols; c++){
-                String label = String.format("r%dc%d", r, c);
-                //System.out.printf("%s [\n\tlabel = %s\npos = \"%d,%d\" ];\n", label, label, r, c);
-                rank += label + ", ";
-            }
-            // remove last comma
-            rank = rank.substring(0, rank.length()-2);
-            System.out.printf("{ rank=same; %s }\n", rank);
-        }
+    /**
+     * Create an immutable grid graph that computes its edges from row and
+     * column arithmetic instead of storing them, with edges of weight 1.
+     * The nodes have the same names and ids as in {@link #makeGridGraph(int, int)}.
+     * 
+     * @param rows
+     * @param cols
+     * @param connectivity whether cells also have edges to their diagonal neighbors
+     * @return
+     */
+    public static ImplicitGridGraph makeImplicitGridGraph(int rows, int cols, ImplicitGridGraph.Connectivity connectivity) {
+        return new ImplicitGridGraph(rows, cols, connectivity);
+    }
+    
+    /**
+     * Same as {@link #makeImplicitGridGraph(int, int, ImplicitGridGraph.Connectivity)},
+     * but with the given weights for straight and diagonal edges.
+     * 
+     * @param rows
+     * @param cols
+     * @param connectivity
+     * @param straightWeight
+     * @param diagonalWeight
+     * @return
+     */
+    public static ImplicitGridGraph makeImplicitGridGraph(int rows, int cols,
+            ImplicitGridGraph.Connectivity connectivity, int straightWeight, int diagonalWeight)
+    {
+        return new ImplicitGridGraph(rows, cols, connectivity, straightWeight, diagonalWeight);
+    }
+    
+    /**
+     * Print a random maze with the given number of rows and columns (5 by 5
+     * if not given) in Graphviz format. The maze is a spanning tree of the grid
+     * made by a randomized depth-first search; see {@link MazeGenerator}.
+     * 
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
         
-        System.out.printf("}\n");
+        ImplicitGridGraph grid = makeImplicitGridGraph(rows, cols, ImplicitGridGraph.Connectivity.FOUR);
+        Maze maze = MazeGenerator.depthFirst(grid, new Random());
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        maze.writeDot(out, "gr");
+        out.flush();
     }
     
 }
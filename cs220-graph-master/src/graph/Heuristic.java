@@ -0,0 +1,25 @@
+package graph;
+
+/**
+ * Estimate of the remaining cost from a node to a target, used to guide an A*
+ * search (see {@link IGraph#shortestPath(String, String, Heuristic)}).
+ * 
+ * Nodes are given by their ids (see {@link IGraph#getId(INode)}). The estimate must
+ * never be more than the true remaining cost, and must be consistent: for every
+ * edge from u to v, estimate(u) is at most the weight of the edge plus estimate(v).
+ * Otherwise A* can return a path that is not the cheapest.
+ * 
+ * @author jspacco
+ *
+ */
+public interface Heuristic
+{
+    /**
+     * Return a lower bound on the cost of getting from node to target.
+     * 
+     * @param node
+     * @param target
+     * @return
+     */
+    int estimate(int node, int target);
+}
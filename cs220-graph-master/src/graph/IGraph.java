@@ -1,7 +1,12 @@
 package graph;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface IGraph
 {
@@ -36,6 +41,62 @@ public interface IGraph
      */
     Collection<INode> getAllNodes();
     
+    /**
+     * Return the id of the given node. Every node in a graph has a stable
+     * id between 0 and the number of nodes minus 1, assigned when the node
+     * is created, so ids can be used to index into plain arrays.
+     * 
+     * Throw {@link IllegalArgumentException} if the given node does not
+     * belong to this graph.
+     * 
+     * @param node
+     * @return
+     */
+    int getId(INode node);
+    
+    /**
+     * Return the node with the given id. This is the reverse of {@link #getId(INode)}.
+     * 
+     * Throw {@link IndexOutOfBoundsException} if there is no node with the given id.
+     * 
+     * @param id
+     * @return
+     */
+    INode nodeById(int id);
+    
+    /**
+     * Add many edges at once: edge e goes from src[e] to dst[e] and has
+     * weight weights[e], or 1 if weights is null. Nodes that do not exist yet
+     * are created. If directed is false every edge is added in both directions.
+     * 
+     * This is the same as calling {@link #getOrCreateNode(String)} on both
+     * names and adding each edge one at a time, but looks each distinct name
+     * up in the graph only once, and sizes the storage of each node for all
+     * of its new edges up front.
+     * 
+     * Throw {@link IllegalArgumentException} if the arrays have different lengths.
+     * 
+     * @param src
+     * @param dst
+     * @param weights
+     * @param directed
+     */
+    void addEdges(String[] src, String[] dst, int[] weights, boolean directed);
+    
+    /**
+     * Same as {@link #addEdges(String[], String[], int[], boolean)}, but the
+     * endpoints are given by the ids of nodes that already exist.
+     * 
+     * Throw {@link IllegalArgumentException} if the arrays have different lengths
+     * or an id does not belong to a node.
+     * 
+     * @param src
+     * @param dst
+     * @param weights
+     * @param directed
+     */
+    void addEdges(int[] src, int[] dst, int[] weights, boolean directed);
+    
     /**
      * Perform a breadth-first search on the graph, starting at the node
      * with the given name. The visit method of the {@link NodeVisitor} should
@@ -49,6 +110,17 @@ public interface IGraph
      */
     void breadthFirstSearch(String startNode, NodeVisitor v);
     
+    /**
+     * Perform a breadth-first search starting at the node with the given name,
+     * expanding each level of the search in parallel. Instead of visiting
+     * nodes in order, return the nodes at each hop count from the start,
+     * and the hop count of every node.
+     * 
+     * @param startNodeName
+     * @return
+     */
+    BreadthFirstLevels parallelBreadthFirstSearch(String startNodeName);
+    
     /**
      * Perform a depth-first search on the graph, starting at the node
      * with the given name. The visit method of the {@link NodeVisitor} should
@@ -62,6 +134,97 @@ public interface IGraph
      */
     void depthFirstSearch(String startNode, NodeVisitor v);
     
+    /**
+     * Return the connected components of the graph, so that questions such
+     * as whether two nodes can reach each other are answered without a
+     * search. Edges count in both directions. For a graph that can change,
+     * the components stay up to date as nodes and edges are added.
+     * 
+     * @return
+     */
+    ConnectedComponents connectedComponents();
+    
+    /**
+     * Perform a depth-first search starting at the node with the given name,
+     * trying neighbors in the same order as
+     * {@link #depthFirstSearch(String, NodeVisitor)}. Instead of visiting
+     * nodes, return the DFS tree with the discovery and finish time of
+     * every node.
+     * 
+     * @param startNodeName
+     * @return
+     */
+    DepthFirstTree depthFirstTree(String startNodeName);
+    
+    /**
+     * Same as {@link #breadthFirstSearch(String, NodeVisitor)}, except that the
+     * visitor decides after each node whether to explore the node's neighbors,
+     * and can stop the search early.
+     * 
+     * @param startNodeName
+     * @param v
+     */
+    void breadthFirstTraversal(String startNodeName, TraversalVisitor v);
+    
+    /**
+     * Same as {@link #depthFirstSearch(String, NodeVisitor)}, except that the
+     * visitor decides after each node whether to explore the node's neighbors,
+     * and can stop the search early.
+     * 
+     * @param startNodeName
+     * @param v
+     */
+    void depthFirstTraversal(String startNodeName, TraversalVisitor v);
+    
+    /**
+     * Return an iterator over the nodes in the order that
+     * {@link #breadthFirstSearch(String, NodeVisitor)} visits them. The search
+     * only advances when {@link Iterator#next()} is called, so taking the
+     * first few nodes only explores that part of the graph.
+     * 
+     * The graph should not change while the iterator is in use.
+     * 
+     * @param startNodeName
+     * @return
+     */
+    Iterator<INode> breadthFirstIterator(String startNodeName);
+    
+    /**
+     * Return an iterator over the nodes in the order that
+     * {@link #depthFirstSearch(String, NodeVisitor)} visits them. The search
+     * only advances when {@link Iterator#next()} is called.
+     * 
+     * The graph should not change while the iterator is in use.
+     * 
+     * @param startNodeName
+     * @return
+     */
+    Iterator<INode> depthFirstIterator(String startNodeName);
+    
+    /**
+     * Return a lazy, sequential stream of the nodes in breadth-first order,
+     * so that for example <code>breadthFirstStream("A").limit(100)</code>
+     * only explores the graph until it has found 100 nodes.
+     * 
+     * @param startNodeName
+     * @return
+     */
+    default Stream<INode> breadthFirstStream(String startNodeName) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(breadthFirstIterator(startNodeName),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+    
+    /**
+     * Return a lazy, sequential stream of the nodes in depth-first order.
+     * 
+     * @param startNodeName
+     * @return
+     */
+    default Stream<INode> depthFirstStream(String startNodeName) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(depthFirstIterator(startNodeName),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+    
     /**
      * Perform Dijkstra's algorithm for computing the cost of the shortest path
      * to every node in the graph starting at the node with the given name.
@@ -77,6 +240,43 @@ public interface IGraph
      */
     Map<INode,Integer> dijkstra(String sourceNode);
     
+    /**
+     * Return the cheapest path from the node named src to the node named dst,
+     * as a {@link ShortestPath} containing the total cost and the nodes along
+     * the way.
+     * 
+     * Unlike {@link #dijkstra(String)}, the search stops as soon as the
+     * destination is reached, so nearby destinations are cheap to find.
+     * 
+     * @param src
+     * @param dst
+     * @return
+     */
+    ShortestPath shortestPath(String src, String dst);
+    
+    /**
+     * Same as {@link #shortestPath(String, String)}, but using the given
+     * search algorithm. Every {@link SearchMode} returns a path with the same cost.
+     * 
+     * @param src
+     * @param dst
+     * @param mode
+     * @return
+     */
+    ShortestPath shortestPath(String src, String dst, SearchMode mode);
+    
+    /**
+     * Same as {@link #shortestPath(String, String)}, but using A* search guided
+     * by the given {@link Heuristic}. A good heuristic lets the search settle far
+     * fewer nodes; check {@link ShortestPath#getSettledCount()}.
+     * 
+     * @param src
+     * @param dst
+     * @param h
+     * @return
+     */
+    ShortestPath shortestPath(String src, String dst, Heuristic h);
+    
     /**
      * Perform Prim-Jarnik's algorithm to compute a Minimum Spanning Tree (MST).
      * 
@@ -86,4 +286,23 @@ public interface IGraph
      * @return
      */
     IGraph primJarnik();
+    
+    /**
+     * Compute the same minimum spanning tree (or forest, if the graph is not
+     * connected) as {@link #primJarnik()}, but return only its edges, as
+     * node ids and weights, instead of building a new graph.
+     * 
+     * @return
+     */
+    SpanningForest minimumSpanningForest();
+    
+    /**
+     * Compute the shortest distance between every pair of nodes, so that
+     * each later query is an array lookup instead of a call to
+     * {@link #dijkstra(String)}. The matrix takes 4*n*n bytes, so this is
+     * only for small graphs, such as the Scotland Yard map.
+     * 
+     * @return
+     */
+    DistanceMatrix allPairsShortestPaths();
 }
@@ -0,0 +1,24 @@
+package graph;
+
+/**
+ * The algorithm used by {@link IGraph#shortestPath(String, String, SearchMode)}.
+ * Every mode finds a path of the same (minimum) cost; they differ only in how
+ * much of the graph they explore to find it.
+ * 
+ * @author jspacco
+ *
+ */
+public enum SearchMode
+{
+    /**
+     * Dijkstra's algorithm from the source, stopping when the destination is settled.
+     */
+    DIJKSTRA,
+    
+    /**
+     * Dijkstra's algorithm from both the source and the destination at once,
+     * stopping when the two searches meet. Usually settles about half as many
+     * nodes on large road-like graphs.
+     */
+    BIDIRECTIONAL
+}
@@ -0,0 +1,68 @@
+package graph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a point-to-point shortest path query: the total cost,
+ * the nodes along the path (including both endpoints), and how many
+ * nodes the search had to settle to find it.
+ *
+ * If the destination cannot be reached, {@link #isReachable()} is false,
+ * the cost is -1 and the path is empty.
+ *
+ * @author jspacco
+ *
+ */
+public class ShortestPath
+{
+    private final int cost;
+    private final List<INode> nodes;
+    private final int settled;
+
+    public ShortestPath(int cost, List<INode> nodes, int settled) {
+        this.cost = cost;
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.settled = settled;
+    }
+
+    /**
+     * Create the result for a destination that cannot be reached.
+     * 
+     * @param settled
+     * @return
+     */
+    public static ShortestPath unreachable(int settled) {
+        return new ShortestPath(-1, Collections.<INode>emptyList(), settled);
+    }
+
+    public boolean isReachable() {
+        return !nodes.isEmpty();
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public List<INode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Return the number of nodes whose distance was finalized during the search.
+     * This is a good measure of how much work the query took.
+     * 
+     * @return
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
+    @Override
+    public String toString() {
+        if (!isReachable()) {
+            return "unreachable";
+        }
+        return nodes + " with cost " + cost;
+    }
+}
@@ -0,0 +1,114 @@
+package graph;
+
+import graph.impl.Graph;
+
+/**
+ * The edges of a minimum spanning forest, as parallel arrays of node ids and
+ * weights rather than as a graph: 12 bytes per edge, and nothing at all for
+ * the nodes. Use {@link #toGraph()} for a graph of the tree.
+ *
+ * A spanning forest of a graph with n nodes and k connected components has
+ * n-k edges, one tree per component.
+ *
+ * @author jspacco
+ *
+ */
+public class SpanningForest
+{
+    private final IGraph graph;
+    private final int[] src;
+    private final int[] dst;
+    private final int[] weights;
+
+    /**
+     * @param graph the graph the forest spans
+     * @param src id of one end of every edge
+     * @param dst id of the other end of every edge
+     * @param weights weight of every edge
+     */
+    public SpanningForest(IGraph graph, int[] src, int[] dst, int[] weights) {
+        if (src.length != dst.length || src.length != weights.length) {
+            throw new IllegalArgumentException("edge arrays have different lengths");
+        }
+        this.graph = graph;
+        this.src = src;
+        this.dst = dst;
+        this.weights = weights;
+    }
+
+    public int getEdgeCount() {
+        return src.length;
+    }
+
+    /**
+     * Return the number of trees, which is the number of connected components
+     * of the graph.
+     *
+     * @return
+     */
+    public int getTreeCount() {
+        return graph.getAllNodes().size() - src.length;
+    }
+
+    /**
+     * Return the id of one end of the given edge.
+     *
+     * @param edge
+     * @return
+     */
+    public int getSource(int edge) {
+        return src[edge];
+    }
+
+    /**
+     * Return the id of the other end of the given edge.
+     *
+     * @param edge
+     * @return
+     */
+    public int getTarget(int edge) {
+        return dst[edge];
+    }
+
+    public int getWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Return the sum of the weights of all the edges.
+     *
+     * @return
+     */
+    public long getTotalWeight() {
+        long total = 0;
+        for (int w : weights) {
+            total += w;
+        }
+        return total;
+    }
+
+    /**
+     * Add every edge of the forest to the given graph as an undirected edge.
+     * The graph must have the same node ids as the graph the forest spans.
+     *
+     * @param target
+     */
+    public void addEdgesTo(IGraph target) {
+        target.addEdges(src, dst, weights, false);
+    }
+
+    /**
+     * Return the forest as a new graph with the same nodes, in the same
+     * order, as the graph it spans.
+     *
+     * @return
+     */
+    public IGraph toGraph() {
+        IGraph g = new Graph();
+        for (INode node : graph.getAllNodes()) {
+            g.getOrCreateNode(node.getName());
+        }
+        addEdgesTo(g);
+        return g;
+    }
+}
@@ -0,0 +1,27 @@
+package graph;
+
+/**
+ * What a {@link TraversalVisitor} tells a breadth-first or depth-first
+ * traversal to do after visiting a node.
+ * 
+ * @author jspacco
+ *
+ */
+public enum TraversalControl
+{
+    /**
+     * Keep going, and explore the neighbors of the node just visited.
+     */
+    CONTINUE,
+    
+    /**
+     * Keep going, but do not explore the neighbors of the node just visited.
+     * They may still be visited later if they can be reached some other way.
+     */
+    SKIP_NEIGHBORS,
+    
+    /**
+     * Stop the traversal right away.
+     */
+    STOP
+}
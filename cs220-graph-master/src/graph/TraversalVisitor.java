@@ -0,0 +1,20 @@
+package graph;
+
+/**
+ * Like {@link NodeVisitor}, but the visit method returns a
+ * {@link TraversalControl} that can prune the traversal or stop it early, so
+ * a search for one node does not have to walk the whole graph.
+ * 
+ * @author jspacco
+ *
+ */
+public interface TraversalVisitor
+{
+    /**
+     * Visit the given node, and return what the traversal should do next.
+     * 
+     * @param node
+     * @return
+     */
+    TraversalControl visit(INode node);
+}
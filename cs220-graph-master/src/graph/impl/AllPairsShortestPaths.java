@@ -0,0 +1,244 @@
+package graph.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import graph.DistanceMatrix;
+import graph.IGraph;
+
+/**
+ * Computes the shortest distance between every pair of nodes, for small
+ * graphs that are queried over and over, such as the Scotland Yard map.
+ *
+ * There are two ways to fill the matrix:
+ * <ul>
+ * <li>{@link #floydWarshall()} does n<sup>3</sup> additions no matter how
+ * many edges there are, but they are simple and run over a flat int array.
+ * The matrix is cut into square blocks that fit in the cache, and for every
+ * block of k the blocks that do not depend on each other are updated in
+ * parallel.</li>
+ * <li>{@link #repeatedDijkstra()} runs {@link BatchDijkstra} from every
+ * node, which costs about n*m*log(n) and so wins when there are few edges.</li>
+ * </ul>
+ * {@link #compute()} picks Floyd-Warshall when the graph has at least n/8
+ * edges per node, and repeated Dijkstra otherwise.
+ *
+ * Edge weights must not be negative, and distances must stay below
+ * 2<sup>30</sup>. The matrix takes 4*n*n bytes, so this is meant for
+ * graphs of up to a few thousand nodes.
+ */
+public class AllPairsShortestPaths
+{
+    // floydWarshall() is used when there are at least n/DENSE_RATIO edges per node
+    static final int DENSE_RATIO = 8;
+    // side of a square block of the matrix: three 64x64 int blocks take 48KB
+    static final int BLOCK = 64;
+    // larger than any distance, and still not overflowing when added to itself
+    private static final int INF = Integer.MAX_VALUE / 2;
+
+    private final IGraph graph;
+    private final IntAdjacency adj;
+    private final ForkJoinPool pool;
+    private final int n;
+
+    /**
+     * Create an engine for the given graph that runs on the common pool.
+     *
+     * @param graph
+     */
+    public AllPairsShortestPaths(IGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an engine for the given graph that runs on the given pool.
+     *
+     * @param graph
+     * @param pool
+     */
+    public AllPairsShortestPaths(IGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.adj = IntAdjacency.of(graph);
+        this.pool = pool;
+        this.n = adj.getNodeCount();
+        if ((long) n * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("too many nodes for a distance matrix: " + n);
+        }
+    }
+
+    /**
+     * Return the distance matrix, computed by whichever of
+     * {@link #floydWarshall()} and {@link #repeatedDijkstra()} suits the
+     * density of the graph.
+     *
+     * @return
+     */
+    public DistanceMatrix compute() {
+        return isDense() ? floydWarshall() : repeatedDijkstra();
+    }
+
+    /**
+     * Return true if {@link #compute()} would use Floyd-Warshall.
+     *
+     * @return
+     */
+    public boolean isDense() {
+        return arcCount(adj) * DENSE_RATIO >= (long) n * n;
+    }
+
+    /**
+     * Return the distance matrix computed by blocked Floyd-Warshall.
+     *
+     * @return
+     */
+    public DistanceMatrix floydWarshall() {
+        int[] d = new int[n * n];
+        Arrays.fill(d, INF);
+        for (int u = 0; u < n; u++) {
+            d[u * n + u] = 0;
+            int degree = adj.degree(u);
+            for (int i = 0; i < degree; i++) {
+                int v = adj.neighbor(u, i);
+                int w = adj.weight(u, i);
+                if (w < 0) {
+                    throw new IllegalArgumentException("negative edge weight " + w);
+                }
+                if (w < d[u * n + v]) {
+                    d[u * n + v] = w;
+                }
+            }
+        }
+
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        for (int k = 0; k < blocks; k++) {
+            // the diagonal block depends only on itself
+            relax(d, k, k, k);
+            // then the rest of row k and column k, which depend only on it
+            run(new Phase(d, k, 0, blocks, false), blocks);
+            // and every other block, which depends only on row k and column k
+            run(new Phase(d, k, 0, blocks, true), blocks);
+        }
+
+        for (int i = 0; i < d.length; i++) {
+            if (d[i] >= INF) {
+                d[i] = -1;
+            }
+        }
+        return new DistanceMatrix(graph, n, d);
+    }
+
+    /**
+     * Return the distance matrix computed by running Dijkstra from every
+     * node, in parallel.
+     *
+     * @return
+     */
+    public DistanceMatrix repeatedDijkstra() {
+        int[] d = new int[n * n];
+        int[] sources = new int[n];
+        for (int u = 0; u < n; u++) {
+            sources[u] = u;
+        }
+        new BatchDijkstra(graph, pool).distances(sources,
+                (source, row) -> System.arraycopy(row, 0, d, source * n, n));
+        return new DistanceMatrix(graph, n, d);
+    }
+
+    private void run(Phase phase, int blocks) {
+        if (blocks <= 2) {
+            relaxPhase(phase.d, phase.k, phase.lo, phase.hi, phase.last);
+        } else {
+            pool.invoke(phase);
+        }
+    }
+
+    /**
+     * Relax, through block k, the blocks of row k and column k with an
+     * index in [lo, hi), or, for the last phase, those rows of blocks.
+     */
+    private void relaxPhase(int[] d, int k, int lo, int hi, boolean last) {
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        for (int b = lo; b < hi; b++) {
+            if (b == k) {
+                continue;
+            }
+            if (!last) {
+                relax(d, k, b, k);
+                relax(d, b, k, k);
+            } else {
+                for (int j = 0; j < blocks; j++) {
+                    if (j != k) {
+                        relax(d, b, j, k);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Relax block (bi, bj) of the matrix through the nodes of block bk.
+     */
+    private void relax(int[] d, int bi, int bj, int bk) {
+        int iEnd = Math.min(n, (bi + 1) * BLOCK);
+        int jStart = bj * BLOCK;
+        int jEnd = Math.min(n, jStart + BLOCK);
+        int kEnd = Math.min(n, (bk + 1) * BLOCK);
+        for (int k = bk * BLOCK; k < kEnd; k++) {
+            int rowK = k * n;
+            for (int i = bi * BLOCK; i < iEnd; i++) {
+                int rowI = i * n;
+                int dik = d[rowI + k];
+                if (dik >= INF) {
+                    continue;
+                }
+                for (int j = jStart; j < jEnd; j++) {
+                    int through = dik + d[rowK + j];
+                    if (through < d[rowI + j]) {
+                        d[rowI + j] = through;
+                    }
+                }
+            }
+        }
+    }
+
+    static long arcCount(IntAdjacency adj) {
+        long m = 0;
+        for (int u = 0; u < adj.getNodeCount(); u++) {
+            m += adj.degree(u);
+        }
+        return m;
+    }
+
+    /**
+     * One phase of round k, split until each task has one block index.
+     */
+    private class Phase extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] d;
+        private final int k;
+        private final int lo;
+        private final int hi;
+        private final boolean last;
+
+        Phase(int[] d, int k, int lo, int hi, boolean last) {
+            this.d = d;
+            this.k = k;
+            this.lo = lo;
+            this.hi = hi;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Phase(d, k, lo, mid, last), new Phase(d, k, mid, hi, last));
+            } else {
+                relaxPhase(d, k, lo, hi, last);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package graph.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import graph.INode;
+
+/**
+ * A node that stores its edges in growable parallel arrays instead of a
+ * {@link java.util.HashMap}: one array of neighbor references, and one
+ * <code>int[]</code> of weights, so weights are never boxed.
+ *
+ * Small nodes find a neighbor with a linear scan. Once a node has more than
+ * {@link #LINEAR_SCAN_LIMIT} neighbors, an open-addressing (linear probing)
+ * index is built that maps each neighbor to its position in the arrays, so
+ * {@link #hasEdge(INode)} and {@link #getWeight(INode)} stay O(1).
+ *
+ * Behaves exactly like {@link Node}; use
+ * {@link Graph#Graph(Graph.NodeStorage)} with {@link Graph.NodeStorage#ARRAY}
+ * to create a graph made of these.
+ */
+public class ArrayNode implements IndexedNode
+{
+    private static final INode[] NO_NEIGHBORS = new INode[0];
+    private static final int[] NO_WEIGHTS = new int[0];
+    static final int LINEAR_SCAN_LIMIT = 8;
+
+    private final String name;
+    private final int id;
+    private final Graph owner;
+    private INode[] neighbours = NO_NEIGHBORS;
+    private int[] weights = NO_WEIGHTS;
+    private int size;
+    // slot holds (position in neighbours + 1), or 0 for an empty slot
+    private int[] index;
+    private Collection<INode> view;
+
+    /**
+     * Create a new node with the given name. The newly created node
+     * has no edges.
+     *
+     * @param name
+     */
+    public ArrayNode(String name) {
+        this(name, -1, null);
+    }
+
+    ArrayNode(String name, int id, Graph owner) {
+        this.name = name;
+        this.id = id;
+        this.owner = owner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Return the number of edges leaving this node.
+     *
+     * @return
+     */
+    public int degree() {
+        return size;
+    }
+
+    /**
+     * Return the i-th neighbor of this node, for allocation-free iteration
+     * together with {@link #weightAt(int)}.
+     *
+     * @param i
+     * @return
+     */
+    public INode neighborAt(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("index " + i);
+        }
+        return neighbours[i];
+    }
+
+    /**
+     * Return the weight of the edge to the i-th neighbor of this node.
+     *
+     * @param i
+     * @return
+     */
+    public int weightAt(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("index " + i);
+        }
+        return weights[i];
+    }
+
+    /**
+     * Return a read-only view of the neighbors of this node.
+     *
+     * @return
+     */
+    public Collection<INode> getNeighbors() {
+        if (view == null) {
+            view = new AbstractList<INode>() {
+                @Override
+                public INode get(int i) {
+                    return neighborAt(i);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return view;
+    }
+
+    /**
+     * Make sure this node can hold the given number of edges without
+     * growing its arrays again. Growing arrays at least doubles them.
+     *
+     * @param capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > neighbours.length) {
+            capacity = Math.max(capacity, neighbours.length * 2);
+            neighbours = Arrays.copyOf(neighbours, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        if (capacity > LINEAR_SCAN_LIMIT && (index == null || capacity * 2 > index.length)) {
+            // size the index now too, rather than rebuilding it as the node fills up
+            rebuildIndex(capacity);
+        }
+    }
+
+    public void addDirectedEdgeToNode(INode n, int weight) {
+        int pos = positionOf(n);
+        if (pos >= 0) {
+            weights[pos] = weight;
+            edgeAdded(n);
+            return;
+        }
+        if (size == neighbours.length) {
+            ensureCapacity(Math.max(4, size * 2));
+        }
+        neighbours[size] = n;
+        weights[size] = weight;
+        size++;
+        if (index != null) {
+            if (size * 2 > index.length) {
+                rebuildIndex();
+            } else {
+                index[emptySlotFor(n)] = size;
+            }
+        } else if (size > LINEAR_SCAN_LIMIT) {
+            rebuildIndex();
+        }
+        edgeAdded(n);
+    }
+
+    public void addUndirectedEdgeToNode(INode n, int weight) {
+        addDirectedEdgeToNode(n, weight);
+        n.addDirectedEdgeToNode(this, weight);
+    }
+
+    public void removeDirectedEdgeToNode(INode n) {
+        int pos = positionOf(n);
+        if (pos < 0) {
+            return;
+        }
+        if (index != null) {
+            deleteSlot(slotOf(n));
+        }
+        int last = size - 1;
+        if (pos != last) {
+            // move the last edge into the hole
+            neighbours[pos] = neighbours[last];
+            weights[pos] = weights[last];
+            if (index != null) {
+                index[slotOf(neighbours[pos])] = pos + 1;
+            }
+        }
+        neighbours[last] = null;
+        size--;
+        edgesChanged();
+    }
+
+    public void removeUndirectedEdgeToNode(INode n) {
+        if (positionOf(n) < 0) {
+            throw new IllegalArgumentException("No edge from " + name + " to " + n.getName());
+        }
+        removeDirectedEdgeToNode(n);
+        n.removeDirectedEdgeToNode(this);
+    }
+
+    public boolean hasEdge(INode other) {
+        return positionOf(other) >= 0;
+    }
+
+    public int getWeight(INode n) {
+        int pos = positionOf(n);
+        if (pos < 0) {
+            throw new IllegalArgumentException("No edge from " + name + " to " + n.getName());
+        }
+        return weights[pos];
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private void edgesChanged() {
+        if (owner != null) {
+            owner.edgesChanged();
+        }
+    }
+
+    private void edgeAdded(INode n) {
+        if (owner != null) {
+            owner.edgeAdded(this, n);
+        }
+    }
+
+    private int positionOf(INode n) {
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (neighbours[i].equals(n)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int slot = slotOf(n);
+        return slot < 0 ? -1 : index[slot] - 1;
+    }
+
+    private static int hash(INode n) {
+        int h = n.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Return the slot holding the given neighbor, or -1. */
+    private int slotOf(INode n) {
+        int mask = index.length - 1;
+        for (int i = hash(n) & mask; index[i] != 0; i = (i + 1) & mask) {
+            if (neighbours[index[i] - 1].equals(n)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int emptySlotFor(INode n) {
+        int mask = index.length - 1;
+        int i = hash(n) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rebuildIndex() {
+        rebuildIndex(size);
+    }
+
+    private void rebuildIndex(int capacity) {
+        index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        for (int pos = 0; pos < size; pos++) {
+            index[emptySlotFor(neighbours[pos])] = pos + 1;
+        }
+    }
+
+    /**
+     * Empty the given slot, shifting later entries of the same probe
+     * run back so that lookups never stop early at a hole.
+     */
+    private void deleteSlot(int hole) {
+        int mask = index.length - 1;
+        index[hole] = 0;
+        for (int j = (hole + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int home = hash(neighbours[index[j] - 1]) & mask;
+            // the entry at j can move to the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!stays) {
+                index[hole] = index[j];
+                index[j] = 0;
+                hole = j;
+            }
+        }
+    }
+}
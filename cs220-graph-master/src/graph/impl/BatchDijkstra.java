@@ -0,0 +1,241 @@
+package graph.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import graph.IGraph;
+
+/**
+ * Dijkstra's algorithm from many sources at once, for workloads that would
+ * otherwise call {@link IGraph#dijkstra(String)} over and over.
+ *
+ * Results are rows of distances indexed by node id, with -1 for nodes that
+ * cannot be reached, instead of a map per source. Each thread of the pool
+ * keeps its own {@link IndexedHeap} and row buffer in a {@link ThreadLocal},
+ * reused for every source it runs, so a batch allocates nothing per source
+ * beyond the rows it returns, and nothing at all when rows are streamed to a
+ * {@link RowConsumer}. The sources of a batch are split across the pool.
+ *
+ * The tentative distances live in the heap as priorities, and a node's
+ * entry in the row is written only when it is settled, so the row doubles as
+ * the set of settled nodes and nothing else needs to be cleared between
+ * sources.
+ *
+ * {@link #multiSource(int[], int[])} is a single run that starts from all
+ * the sources together, giving every node its distance to the nearest one.
+ *
+ * Edge weights must not be negative. The graph should not change while the
+ * engine is in use.
+ */
+public class BatchDijkstra
+{
+    // sources per leaf task
+    static final int CHUNK = 4;
+
+    /**
+     * Receives the distances from one source. The row is only valid during
+     * the call, since its array is reused for the next source, and calls
+     * come from several threads at once.
+     */
+    public interface RowConsumer
+    {
+        void accept(int source, int[] dist);
+    }
+
+    private final IGraph graph;
+    private final IntAdjacency adj;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Create an engine for the given graph that runs on the common pool.
+     *
+     * @param graph
+     */
+    public BatchDijkstra(IGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an engine for the given graph that runs on the given pool.
+     *
+     * @param graph
+     * @param pool
+     */
+    public BatchDijkstra(IGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.adj = IntAdjacency.of(graph);
+        this.pool = pool;
+        this.workers = ThreadLocal.withInitial(() -> new Worker(adj.getNodeCount()));
+    }
+
+    /**
+     * Return the ids of the nodes with the given names.
+     *
+     * @param names
+     * @return
+     */
+    public int[] idsOf(List<String> names) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = PathSearch.idOf(graph, names.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Return the distances from every given source to every node: row i is
+     * indexed by node id and holds the distances from sources[i].
+     *
+     * @param sources
+     * @return
+     */
+    public int[][] distances(int[] sources) {
+        checkIds(sources);
+        int[][] rows = new int[sources.length][];
+        run(new Batch(sources, 0, sources.length, rows, null));
+        return rows;
+    }
+
+    /**
+     * Compute the distances from every given source, handing each row to the
+     * consumer as soon as it is done, in no particular order of sources.
+     *
+     * @param sources
+     * @param consumer
+     */
+    public void distances(int[] sources, RowConsumer consumer) {
+        checkIds(sources);
+        run(new Batch(sources, 0, sources.length, null, consumer));
+    }
+
+    /**
+     * Run one search from all the given sources at once, and return the
+     * distance from every node to the nearest source, or -1 if no source can
+     * reach it.
+     *
+     * @param sources
+     * @param nearest if not null, an array of one entry per node that gets
+     *        the id of the nearest source of every node, or -1
+     * @return
+     */
+    public int[] multiSource(int[] sources, int[] nearest) {
+        checkIds(sources);
+        int n = adj.getNodeCount();
+        if (nearest != null && nearest.length != n) {
+            throw new IllegalArgumentException("nearest has " + nearest.length + " entries, not " + n);
+        }
+        if (nearest != null) {
+            Arrays.fill(nearest, -1);
+        }
+        int[] dist = new int[n];
+        workers.get().search(sources, dist, nearest);
+        return dist;
+    }
+
+    private void checkIds(int[] sources) {
+        for (int s : sources) {
+            if (s < 0 || s >= adj.getNodeCount()) {
+                throw new IllegalArgumentException("No node with id " + s);
+            }
+        }
+    }
+
+    private void run(Batch batch) {
+        if (batch.hi - batch.lo <= CHUNK) {
+            batch.compute();
+        } else {
+            pool.invoke(batch);
+        }
+    }
+
+    /**
+     * The buffers of one thread.
+     */
+    private class Worker
+    {
+        final IndexedHeap heap;
+        final int[] row;
+        final int[] one = new int[1];
+
+        Worker(int n) {
+            heap = new IndexedHeap(n);
+            row = new int[n];
+        }
+
+        /**
+         * Fill dist with the distance from the nearest of the sources to
+         * every node, and nearest (if not null) with that source.
+         */
+        void search(int[] sources, int[] dist, int[] nearest) {
+            Arrays.fill(dist, -1);
+            heap.clear();
+            for (int s : sources) {
+                heap.insertOrDecrease(s, 0);
+                if (nearest != null && nearest[s] < 0) {
+                    nearest[s] = s;
+                }
+            }
+            while (!heap.isEmpty()) {
+                int d = heap.peekPriority();
+                int u = heap.poll();
+                dist[u] = d;
+                int degree = adj.degree(u);
+                for (int i = 0; i < degree; i++) {
+                    int v = adj.neighbor(u, i);
+                    if (dist[v] < 0 && heap.insertOrDecrease(v, d + adj.weight(u, i)) && nearest != null) {
+                        nearest[v] = nearest[u];
+                    }
+                }
+            }
+        }
+
+        void search(int source, int[] dist) {
+            one[0] = source;
+            search(one, dist, null);
+        }
+    }
+
+    /**
+     * Run sources[lo..hi), either into rows or through the consumer.
+     */
+    private class Batch extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] sources;
+        private final int lo;
+        private final int hi;
+        private final int[][] rows;
+        private final RowConsumer consumer;
+
+        Batch(int[] sources, int lo, int hi, int[][] rows, RowConsumer consumer) {
+            this.sources = sources;
+            this.lo = lo;
+            this.hi = hi;
+            this.rows = rows;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Batch(sources, lo, mid, rows, consumer), new Batch(sources, mid, hi, rows, consumer));
+                return;
+            }
+            Worker worker = workers.get();
+            for (int i = lo; i < hi; i++) {
+                if (rows != null) {
+                    rows[i] = new int[adj.getNodeCount()];
+                    worker.search(sources[i], rows[i]);
+                } else {
+                    worker.search(sources[i], worker.row);
+                    consumer.accept(sources[i], worker.row);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package graph.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * A fast replacement for {@link java.util.Scanner} for reading the
+ * whitespace-separated files that graphs are loaded from.
+ *
+ * The tokenizer works directly on a byte buffer: whitespace is skipped one
+ * byte at a time, {@link #nextInt()} builds the number from the digits without
+ * creating a String, and {@link #nextEquals(String)} compares a token in place.
+ * Only {@link #next()} creates a String, straight from the bytes. Scanner, by
+ * contrast, decodes everything to chars, runs regular expressions over them
+ * and creates a String for every token, including numbers.
+ *
+ * Tokens are decoded as UTF-8. A tokenizer can also read the remaining bytes
+ * of a {@link ByteBuffer}, such as one region of a memory-mapped file.
+ */
+public class ByteTokenizer implements Closeable
+{
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final ByteBuffer source;
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    public ByteTokenizer(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ByteTokenizer(InputStream in, int bufferSize) {
+        this.in = in;
+        this.source = null;
+        this.buf = new byte[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * Read the tokens between the position and the limit of the given buffer.
+     *
+     * @param source
+     */
+    public ByteTokenizer(ByteBuffer source) {
+        this.in = null;
+        this.source = source;
+        this.buf = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Return true if there is another token, skipping any whitespace before it.
+     *
+     * @return
+     * @throws IOException
+     */
+    public boolean hasNext() throws IOException {
+        while (true) {
+            while (pos < limit) {
+                if (!isWhitespace(buf[pos])) {
+                    return true;
+                }
+                pos++;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Return the next token as a new String.
+     *
+     * @return
+     * @throws IOException
+     */
+    public String next() throws IOException {
+        int len = token();
+        return decode(buf, pos - len, len);
+    }
+
+    /**
+     * Parse the next token as a (possibly negative) int.
+     *
+     * @return
+     * @throws IOException
+     * @throws InputMismatchException if the token is not an int
+     */
+    public int nextInt() throws IOException {
+        int len = token();
+        int i = pos - len;
+        boolean negative = buf[i] == '-';
+        if (negative || buf[i] == '+') {
+            i++;
+        }
+        if (i == pos) {
+            throw mismatch(len);
+        }
+        long value = 0;
+        for (; i < pos; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw mismatch(len);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw mismatch(len);
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw mismatch(len);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Return true if the next token is exactly the given ASCII string,
+     * and skip it if so. Otherwise the token is not consumed.
+     *
+     * @param ascii
+     * @return
+     * @throws IOException
+     */
+    public boolean nextEquals(String ascii) throws IOException {
+        int len = token();
+        int start = pos - len;
+        boolean equal = len == ascii.length();
+        for (int i = 0; equal && i < len; i++) {
+            equal = buf[start + i] == ascii.charAt(i);
+        }
+        if (!equal) {
+            pos = start;
+        }
+        return equal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    /**
+     * Find the next token and move pos just past it, returning its length.
+     * The token is then buf[pos-length .. pos).
+     */
+    private int token() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int start = pos;
+        while (true) {
+            while (pos < limit) {
+                if (isWhitespace(buf[pos])) {
+                    return pos - start;
+                }
+                pos++;
+            }
+            // the token runs off the end of the buffer: keep it and read more
+            int len = pos - start;
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, len);
+                limit = len;
+                pos = len;
+                start = 0;
+            } else if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            if (!read()) {
+                return len;
+            }
+        }
+    }
+
+    /**
+     * Refill the empty buffer. Return false at end of input.
+     */
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        return read();
+    }
+
+    /**
+     * Read more bytes after limit. Return false at end of input.
+     */
+    private boolean read() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (source != null) {
+            int n = Math.min(source.remaining(), buf.length - limit);
+            if (n == 0) {
+                eof = true;
+                return false;
+            }
+            source.get(buf, limit, n);
+            limit += n;
+            return true;
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        while (n == 0) {
+            n = in.read(buf, limit, buf.length - limit);
+        }
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private InputMismatchException mismatch(int len) {
+        return new InputMismatchException("expected an int, not " + decode(buf, pos - len, len));
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private static String decode(byte[] bytes, int start, int len) {
+        for (int i = start; i < start + len; i++) {
+            if (bytes[i] < 0) {
+                return new String(bytes, start, len, StandardCharsets.UTF_8);
+            }
+        }
+        return new String(bytes, start, len, StandardCharsets.ISO_8859_1);
+    }
+}
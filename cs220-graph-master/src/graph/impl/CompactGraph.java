@@ -0,0 +1,748 @@
+package graph.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import graph.BreadthFirstLevels;
+import graph.ConnectedComponents;
+import graph.DepthFirstTree;
+import graph.DistanceMatrix;
+import graph.Heuristic;
+import graph.IGraph;
+import graph.INode;
+import graph.NodeVisitor;
+import graph.SearchMode;
+import graph.ShortestPath;
+import graph.SpanningForest;
+import graph.TraversalVisitor;
+
+/**
+ * An immutable graph stored in compressed sparse row (CSR) form.
+ *
+ * Every node is identified by a dense int id. The edges leaving node <i>u</i>
+ * are stored in <code>targets[offsets[u]]</code> up to (but not including)
+ * <code>targets[offsets[u+1]]</code>, with the matching weights in the parallel
+ * <code>weights</code> array. There are no per-edge objects at all, which makes
+ * this representation several times smaller than {@link Graph}.
+ *
+ * The edges of each node are sorted by the name of the neighbor, so BFS and DFS
+ * can visit neighbors in alphabetical order without sorting anything.
+ *
+ * The intended usage is to build a mutable {@link Graph}, and then
+ * {@link #freeze(IGraph)} it for query serving, or to use a {@link Builder}
+ * directly when loading large files.
+ *
+ * Nodes returned by this graph are lightweight views that are created on demand,
+ * so compare them with equals() rather than ==.
+ *
+ */
+public class CompactGraph implements IGraph, IntAdjacency
+{
+    private final NameTable names;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private IntAdjacency reverse;
+    private UnionFindComponents components;
+    private final PathSearch.Cache searches = new PathSearch.Cache(this);
+
+    CompactGraph(NameTable names, int[] offsets, int[] targets, int[] weights) {
+        this.names = names;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Create an immutable copy of the given graph. Every edge of the given graph
+     * is copied as a directed edge, so undirected edges stay undirected.
+     *
+     * @param g
+     * @return
+     */
+    public static CompactGraph freeze(IGraph g) {
+        Builder builder = new Builder();
+        for (INode node : g.getAllNodes()) {
+            builder.addNode(node.getName());
+        }
+        for (INode src : g.getAllNodes()) {
+            for (INode dst : src.getNeighbors()) {
+                builder.addDirectedEdge(src.getName(), dst.getName(), src.getWeight(dst));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Return the number of nodes in the graph.
+     *
+     * @return
+     */
+    public int getNodeCount() {
+        return names.size();
+    }
+
+    /**
+     * Return the number of directed edges in the graph. An undirected edge
+     * counts as two directed edges.
+     *
+     * @return
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    NameTable names() {
+        return names;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] targets() {
+        return targets;
+    }
+
+    int[] weights() {
+        return weights;
+    }
+
+    public int degree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    public int neighbor(int u, int i) {
+        return targets[offsets[u] + i];
+    }
+
+    public int weight(int u, int i) {
+        return weights[offsets[u] + i];
+    }
+
+    /**
+     * Return the node with the given name.
+     *
+     * Since this graph is immutable, asking for a node that does not exist
+     * throws {@link UnsupportedOperationException}.
+     *
+     * @param name
+     * @return
+     */
+    public INode getOrCreateNode(String name) {
+        int id = names.idOf(name);
+        if (id < 0) {
+            throw new UnsupportedOperationException("CompactGraph is immutable; cannot create node " + name);
+        }
+        return new CompactNode(id);
+    }
+
+    public boolean containsNode(String name) {
+        return names.idOf(name) >= 0;
+    }
+
+    public void addEdges(String[] src, String[] dst, int[] weights, boolean directed) {
+        throw new UnsupportedOperationException("CompactGraph is immutable; use a CompactGraph.Builder");
+    }
+
+    public void addEdges(int[] src, int[] dst, int[] weights, boolean directed) {
+        throw new UnsupportedOperationException("CompactGraph is immutable; use a CompactGraph.Builder");
+    }
+
+    public Collection<INode> getAllNodes() {
+        return new AbstractList<INode>() {
+            @Override
+            public INode get(int index) {
+                if (index < 0 || index >= names.size()) {
+                    throw new IndexOutOfBoundsException("index " + index);
+                }
+                return new CompactNode(index);
+            }
+
+            @Override
+            public int size() {
+                return names.size();
+            }
+        };
+    }
+
+    public int getId(INode node) {
+        if (node instanceof CompactNode && ((CompactNode) node).graph() == this) {
+            return ((CompactNode) node).id;
+        }
+        throw new IllegalArgumentException(node.getName() + " is not a node of this graph");
+    }
+
+    public INode nodeById(int id) {
+        if (id < 0 || id >= names.size()) {
+            throw new IndexOutOfBoundsException("No node with id " + id);
+        }
+        return new CompactNode(id);
+    }
+
+    /**
+     * Perform a breadth-first search starting at the node with the given name,
+     * visiting neighbors in alphabetical order.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void breadthFirstSearch(String startNodeName, NodeVisitor v) {
+        int start = requireId(startNodeName);
+        boolean[] seen = new boolean[names.size()];
+        int[] queue = new int[names.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        seen[start] = true;
+        while (head < tail) {
+            int u = queue[head++];
+            v.visit(new CompactNode(u));
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int w = targets[e];
+                if (!seen[w]) {
+                    seen[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+    }
+
+    /**
+     * Perform a breadth-first search from the node with the given name on the
+     * common {@link java.util.concurrent.ForkJoinPool}, returning the nodes at
+     * each hop count. See {@link ParallelBFS}.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public BreadthFirstLevels parallelBreadthFirstSearch(String startNodeName) {
+        return new ParallelBFS(this).search(startNodeName);
+    }
+
+    /**
+     * Return the connected components of this graph, which are labeled once,
+     * the first time they are queried.
+     *
+     * @return
+     */
+    public ConnectedComponents connectedComponents() {
+        if (components == null) {
+            components = new UnionFindComponents(this);
+        }
+        return components;
+    }
+
+    /**
+     * Perform a depth-first search starting at the node with the given name,
+     * visiting neighbors in alphabetical order.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void depthFirstSearch(String startNodeName, NodeVisitor v) {
+        new DepthFirstSearch(this).search(requireId(startNodeName), v);
+    }
+
+    public DepthFirstTree depthFirstTree(String startNodeName) {
+        return new DepthFirstSearch(this).search(requireId(startNodeName));
+    }
+
+    /**
+     * Breadth-first search that the visitor can prune or stop; see
+     * {@link Traversal}.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void breadthFirstTraversal(String startNodeName, TraversalVisitor v) {
+        Traversal.walk(this, this, requireId(startNodeName), false, v);
+    }
+
+    /**
+     * Depth-first search that the visitor can prune or stop; see
+     * {@link Traversal}.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void depthFirstTraversal(String startNodeName, TraversalVisitor v) {
+        Traversal.walk(this, this, requireId(startNodeName), true, v);
+    }
+
+    /**
+     * Return a lazy iterator over the nodes in breadth-first order.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public Iterator<INode> breadthFirstIterator(String startNodeName) {
+        return new Traversal(this, this, requireId(startNodeName), false);
+    }
+
+    /**
+     * Return a lazy iterator over the nodes in depth-first order.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public Iterator<INode> depthFirstIterator(String startNodeName) {
+        return new Traversal(this, this, requireId(startNodeName), true);
+    }
+
+    /**
+     * Perform Dijkstra's algorithm starting at the node with the given name.
+     * Return a mapping from every reachable node to the minimum cost of reaching it.
+     *
+     * @param startName
+     * @return
+     */
+    public Map<INode, Integer> dijkstra(String startName) {
+        int[] dist = new int[names.size()];
+        boolean[] done = new boolean[names.size()];
+        IndexedHeap heap = new IndexedHeap(names.size());
+        heap.insert(requireId(startName), 0);
+        while (!heap.isEmpty()) {
+            int d = heap.peekPriority();
+            int u = heap.poll();
+            dist[u] = d;
+            done[u] = true;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (!done[targets[e]]) {
+                    heap.insertOrDecrease(targets[e], d + weights[e]);
+                }
+            }
+        }
+        Map<INode, Integer> result = new HashMap<INode, Integer>();
+        for (int u = 0; u < dist.length; u++) {
+            if (done[u]) {
+                result.put(new CompactNode(u), dist[u]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Perform Prim-Jarnik's algorithm to compute a Minimum Spanning Tree (MST).
+     *
+     * If the graph is not connected, the result is a minimum spanning forest.
+     * The result is another immutable {@link CompactGraph} containing every node
+     * of this graph.
+     *
+     * @return
+     */
+    public IGraph primJarnik() {
+        Builder mst = new Builder();
+        for (int u = 0; u < names.size(); u++) {
+            mst.addNode(names.name(u));
+        }
+        SpanningForest forest = minimumSpanningForest();
+        for (int e = 0; e < forest.getEdgeCount(); e++) {
+            mst.addUndirectedEdge(names.name(forest.getSource(e)), names.name(forest.getTarget(e)), forest.getWeight(e));
+        }
+        return mst.build();
+    }
+
+    public SpanningForest minimumSpanningForest() {
+        return new MinimumSpanningTree(this).prim();
+    }
+
+    public DistanceMatrix allPairsShortestPaths() {
+        return new AllPairsShortestPaths(this).compute();
+    }
+
+    /**
+     * Return the cheapest path between the two named nodes, stopping as soon
+     * as the destination is reached.
+     *
+     * @param src
+     * @param dst
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst) {
+        return searches.shortestPath(src, dst);
+    }
+
+    /**
+     * Return the cheapest path between the two named nodes, using the
+     * given search algorithm.
+     *
+     * @param src
+     * @param dst
+     * @param mode
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst, SearchMode mode) {
+        return searches.shortestPath(src, dst, mode);
+    }
+
+    /**
+     * Return the cheapest path between the two named nodes, using A* search
+     * guided by the given heuristic.
+     *
+     * @param src
+     * @param dst
+     * @param h
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst, Heuristic h) {
+        return searches.shortestPath(src, dst, h);
+    }
+
+    /**
+     * Return this graph with every edge turned around, for searches that run
+     * backward from a destination.
+     *
+     * If every edge has a twin with the same weight going the other way, as in
+     * an undirected graph, the graph is its own reverse and nothing is copied.
+     * Otherwise the reversed edges are built once, in CSR form, and cached.
+     *
+     * @return
+     */
+    public synchronized IntAdjacency reverse() {
+        if (reverse == null) {
+            reverse = isSymmetric() ? this : new Transposed(this);
+        }
+        return reverse;
+    }
+
+    private boolean isSymmetric() {
+        for (int u = 0; u < names.size(); u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int twin = edgeIndex(targets[e], u);
+                if (twin < 0 || weights[twin] != weights[e]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binary search the (name-sorted) edges of node u for the edge to
+     * node target, comparing alphabetical ranks, and return the edge index or -1.
+     */
+    private int edgeIndex(int u, int target) {
+        int key = names.rank(target);
+        int lo = offsets[u];
+        int hi = offsets[u + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Integer.compare(names.rank(targets[mid]), key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The edges of a {@link CompactGraph}, reversed, in CSR form.
+     */
+    private static class Transposed implements IntAdjacency
+    {
+        private final CompactGraph forward;
+        private final int[] offsets;
+        private final int[] sources;
+        private final int[] weights;
+
+        Transposed(CompactGraph g) {
+            forward = g;
+            int n = g.names.size();
+            offsets = new int[n + 1];
+            sources = new int[g.targets.length];
+            weights = new int[g.targets.length];
+            for (int e = 0; e < g.targets.length; e++) {
+                offsets[g.targets[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int u = 0; u < n; u++) {
+                for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                    int slot = fill[g.targets[e]]++;
+                    sources[slot] = u;
+                    weights[slot] = g.weights[e];
+                }
+            }
+        }
+
+        public int getNodeCount() {
+            return offsets.length - 1;
+        }
+
+        public int degree(int u) {
+            return offsets[u + 1] - offsets[u];
+        }
+
+        public int neighbor(int u, int i) {
+            return sources[offsets[u] + i];
+        }
+
+        public int weight(int u, int i) {
+            return weights[offsets[u] + i];
+        }
+
+        public IntAdjacency reverse() {
+            return forward;
+        }
+    }
+
+    private int requireId(String name) {
+        int id = names.idOf(name);
+        if (id < 0) {
+            throw new IllegalArgumentException("No node named " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Lightweight view of a single node of a {@link CompactGraph}. Holds
+     * nothing but the id of the node, so two views of the same node are equal.
+     */
+    private class CompactNode implements INode
+    {
+        private final int id;
+
+        CompactNode(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return names.name(id);
+        }
+
+        public Collection<INode> getNeighbors() {
+            final int start = offsets[id];
+            final int end = offsets[id + 1];
+            return new AbstractList<INode>() {
+                @Override
+                public INode get(int index) {
+                    if (index < 0 || start + index >= end) {
+                        throw new IndexOutOfBoundsException("index " + index);
+                    }
+                    return new CompactNode(targets[start + index]);
+                }
+
+                @Override
+                public int size() {
+                    return end - start;
+                }
+            };
+        }
+
+        public void addDirectedEdgeToNode(INode neighbor, int weight) {
+            throw new UnsupportedOperationException("CompactGraph is immutable");
+        }
+
+        public void addUndirectedEdgeToNode(INode neighbor, int weight) {
+            throw new UnsupportedOperationException("CompactGraph is immutable");
+        }
+
+        public void removeDirectedEdgeToNode(INode neighbor) {
+            throw new UnsupportedOperationException("CompactGraph is immutable");
+        }
+
+        public void removeUndirectedEdgeToNode(INode neighbor) {
+            throw new UnsupportedOperationException("CompactGraph is immutable");
+        }
+
+        public boolean hasEdge(INode node) {
+            return indexOf(node) >= 0;
+        }
+
+        public int getWeight(INode node) {
+            int e = indexOf(node);
+            if (e < 0) {
+                throw new IllegalStateException("No edge from " + getName() + " to " + node.getName());
+            }
+            return weights[e];
+        }
+
+        /**
+         * Binary search the (name-sorted) edges of this node for the given neighbor.
+         */
+        private int indexOf(INode node) {
+            int target;
+            if (node instanceof CompactNode && ((CompactNode) node).graph() == graph()) {
+                target = ((CompactNode) node).id;
+            } else {
+                target = names.idOf(node.getName());
+                if (target < 0) {
+                    return -1;
+                }
+            }
+            return edgeIndex(id, target);
+        }
+
+        private CompactGraph graph() {
+            return CompactGraph.this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CompactNode)) {
+                return false;
+            }
+            CompactNode other = (CompactNode) o;
+            return other.id == id && other.graph() == graph();
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return names.name(id);
+        }
+    }
+
+    /**
+     * Build a graph from parallel arrays of edges, where src[e], dst[e] and
+     * wt[e] for e below edgeCount describe edge e, and ids maps each name in
+     * names to its index. If an edge appears more than once, the last one wins.
+     */
+    static CompactGraph fromEdges(String[] names, Map<String, Integer> ids,
+            int[] src, int[] dst, int[] wt, int edgeCount) {
+        int n = names.length;
+
+        // rank[id] is the alphabetical position of the node's name
+        int[] rank = new int[n];
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++) {
+            sorted = names[i - 1].compareTo(names[i]) < 0;
+        }
+        if (sorted) {
+            for (int i = 0; i < n; i++) {
+                rank[i] = i;
+            }
+        } else {
+            Integer[] byName = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                byName[i] = i;
+            }
+            Arrays.sort(byName, (a, b) -> names[a].compareTo(names[b]));
+            for (int i = 0; i < n; i++) {
+                rank[byName[i]] = i;
+            }
+        }
+
+        // counting sort of the edges by source, keeping insertion order
+        int[] start = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            start[src[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            start[u + 1] += start[u];
+        }
+        int[] fill = Arrays.copyOf(start, n);
+        int[] order = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            order[fill[src[e]]++] = e;
+        }
+
+        // sort each row by neighbor name, then drop duplicates keeping the last one added
+        long[] keys = new long[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            keys[i] = ((long) rank[dst[order[i]]] << 32) | order[i];
+        }
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        int m = 0;
+        for (int u = 0; u < n; u++) {
+            offsets[u] = m;
+            Arrays.sort(keys, start[u], start[u + 1]);
+            for (int i = start[u]; i < start[u + 1]; i++) {
+                if (i + 1 < start[u + 1] && (keys[i + 1] >>> 32) == (keys[i] >>> 32)) {
+                    continue;
+                }
+                int e = (int) keys[i];
+                targets[m] = dst[e];
+                weights[m] = wt[e];
+                m++;
+            }
+        }
+        offsets[n] = m;
+        return new CompactGraph(NameTable.of(names, ids, rank), offsets,
+                Arrays.copyOf(targets, m), Arrays.copyOf(weights, m));
+    }
+
+    /**
+     * Accumulates nodes and edges, and then builds a {@link CompactGraph}.
+     *
+     * Edges are stored in three growable int arrays until {@link #build()}
+     * is called. If the same directed edge is added more than once, the last
+     * weight wins, just like {@link Node#addDirectedEdgeToNode(INode, int)}.
+     */
+    public static class Builder
+    {
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+        private final List<String> names = new ArrayList<String>();
+        private int[] src = new int[16];
+        private int[] dst = new int[16];
+        private int[] wt = new int[16];
+        private int edgeCount;
+
+        /**
+         * Add a node with the given name, if it isn't already present,
+         * and return its id.
+         *
+         * @param name
+         * @return
+         */
+        public int addNode(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        public Builder addDirectedEdge(String srcName, String dstName, int weight) {
+            addEdge(addNode(srcName), addNode(dstName), weight);
+            return this;
+        }
+
+        public Builder addUndirectedEdge(String srcName, String dstName, int weight) {
+            int s = addNode(srcName);
+            int d = addNode(dstName);
+            addEdge(s, d, weight);
+            addEdge(d, s, weight);
+            return this;
+        }
+
+        private void addEdge(int s, int d, int weight) {
+            if (edgeCount == src.length) {
+                int capacity = edgeCount * 2;
+                src = Arrays.copyOf(src, capacity);
+                dst = Arrays.copyOf(dst, capacity);
+                wt = Arrays.copyOf(wt, capacity);
+            }
+            src[edgeCount] = s;
+            dst[edgeCount] = d;
+            wt[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        public CompactGraph build() {
+            return fromEdges(names.toArray(new String[names.size()]), new HashMap<String, Integer>(ids),
+                    src, dst, wt, edgeCount);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package graph.impl;
+
+import java.util.Arrays;
+
+import graph.DepthFirstTree;
+import graph.IGraph;
+import graph.NodeVisitor;
+
+/**
+ * Iterative depth-first search over the int ids of a graph.
+ *
+ * The stack holds the path from the root to the current node, so it never
+ * has more entries than there are nodes, however many edges there are. Each
+ * node on the stack keeps a cursor to the next of its edges to look at: the
+ * search moves down to the first unreached neighbor after the cursor, and
+ * when there is none, the node is finished and popped. Nodes are discovered
+ * in the same order as a recursive search that tries the edges of each node
+ * in order, which for {@link Graph} and {@link CompactGraph} is alphabetical.
+ *
+ * Nothing is allocated while the search runs, and there is no recursion, so
+ * a path of millions of nodes is searched as easily as a bushy graph. The
+ * stack and cursors are kept between searches; the result arrays are new for
+ * every search, since they belong to the returned {@link DepthFirstTree}.
+ * A search is not safe to share between threads.
+ */
+public class DepthFirstSearch
+{
+    private final IGraph graph;
+    private final IntAdjacency adj;
+    private final int[] stack;
+    private final int[] cursor;
+
+    // the search in progress
+    private int[] discovery;
+    private int[] finish;
+    private int[] parents;
+    private int[] preorder;
+    private int[] postorder;
+    private int discovered;
+    private int finished;
+
+    /**
+     * Create a search for the given graph, which should not change while the
+     * search is in use.
+     *
+     * @param graph
+     */
+    public DepthFirstSearch(IGraph graph) {
+        this(graph, IntAdjacency.of(graph));
+    }
+
+    DepthFirstSearch(IGraph graph, IntAdjacency adj) {
+        this.graph = graph;
+        this.adj = adj;
+        this.stack = new int[adj.getNodeCount()];
+        this.cursor = new int[adj.getNodeCount()];
+    }
+
+    /**
+     * Search from the node with the given name.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public DepthFirstTree search(String startNodeName) {
+        return search(PathSearch.idOf(graph, startNodeName));
+    }
+
+    /**
+     * Search from the node with the given id.
+     *
+     * @param start
+     * @return
+     */
+    public DepthFirstTree search(int start) {
+        checkId(start);
+        reset(true);
+        explore(start, null);
+        return result();
+    }
+
+    /**
+     * Search the whole graph: start at node 0, then start again at the
+     * unreached node with the smallest id, until every node is reached.
+     * Every start is a root of the resulting forest, with a parent of -1.
+     *
+     * @return
+     */
+    public DepthFirstTree searchAll() {
+        reset(true);
+        for (int u = 0; u < discovery.length; u++) {
+            if (discovery[u] < 0) {
+                explore(u, null);
+            }
+        }
+        return result();
+    }
+
+    /**
+     * Visit the nodes reachable from the node with the given id, in the order
+     * they are discovered, without keeping any times or parents.
+     *
+     * @param start
+     * @param v
+     */
+    public void search(int start, NodeVisitor v) {
+        checkId(start);
+        reset(false);
+        explore(start, v);
+        discovery = null;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= adj.getNodeCount()) {
+            throw new IllegalArgumentException("no node with id " + id);
+        }
+    }
+
+    private void reset(boolean keepTree) {
+        int n = adj.getNodeCount();
+        discovery = new int[n];
+        Arrays.fill(discovery, -1);
+        if (keepTree) {
+            finish = new int[n];
+            Arrays.fill(finish, -1);
+            parents = new int[n];
+            Arrays.fill(parents, -1);
+            preorder = new int[n];
+            postorder = new int[n];
+        }
+        discovered = 0;
+        finished = 0;
+    }
+
+    private DepthFirstTree result() {
+        DepthFirstTree tree = new DepthFirstTree(graph, discovery, finish, parents,
+                Arrays.copyOf(preorder, discovered), Arrays.copyOf(postorder, finished));
+        discovery = finish = parents = preorder = postorder = null;
+        return tree;
+    }
+
+    /**
+     * Search from the given root, which has not been reached yet. With a
+     * visitor, only discovery times are recorded.
+     */
+    private void explore(int root, NodeVisitor v) {
+        int top = 0;
+        stack[top++] = root;
+        discover(root, -1, v);
+        while (top > 0) {
+            int u = stack[top - 1];
+            int degree = adj.degree(u);
+            int i = cursor[u];
+            int next = -1;
+            while (i < degree) {
+                int w = adj.neighbor(u, i++);
+                if (discovery[w] < 0) {
+                    next = w;
+                    break;
+                }
+            }
+            cursor[u] = i;
+            if (next >= 0) {
+                stack[top++] = next;
+                discover(next, u, v);
+            } else {
+                top--;
+                if (v == null) {
+                    finish[u] = discovered + finished;
+                    postorder[finished] = u;
+                }
+                finished++;
+            }
+        }
+    }
+
+    private void discover(int u, int parent, NodeVisitor v) {
+        discovery[u] = discovered + finished;
+        cursor[u] = 0;
+        if (v == null) {
+            parents[u] = parent;
+            preorder[discovered] = u;
+        } else {
+            v.visit(graph.nodeById(u));
+        }
+        discovered++;
+    }
+}
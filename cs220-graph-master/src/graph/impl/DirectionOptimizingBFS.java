@@ -0,0 +1,159 @@
+package graph.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import graph.BreadthFirstLevels;
+import graph.IGraph;
+
+/**
+ * Breadth-first search that switches between two ways of finding the next
+ * level (Beamer, Asanovic and Patterson's direction-optimizing BFS).
+ *
+ * Top-down, every edge leaving the frontier is checked, exactly like an
+ * ordinary BFS. Bottom-up, every node not yet reached scans its incoming edges
+ * until it finds one from the frontier, and then stops. In the middle levels
+ * of a low-diameter graph the frontier holds a large part of the graph, so
+ * most of its edges lead to nodes that were already reached. A bottom-up step
+ * skips most of those edges, because each unreached node stops at its
+ * first parent.
+ *
+ * The search starts top-down, goes bottom-up once the edges leaving the
+ * frontier outnumber 1/{@link #ALPHA} of the edges leaving unreached nodes,
+ * and goes back to top-down once the frontier shrinks below
+ * 1/{@link #BETA} of the nodes. The frontier for bottom-up steps is a
+ * {@link BitSet}, so testing whether a node is in it is a single bit test.
+ *
+ * A DirectionOptimizingBFS is not thread-safe; use one per thread.
+ */
+public class DirectionOptimizingBFS
+{
+    static final int ALPHA = 14;
+    static final int BETA = 24;
+
+    private final IGraph graph;
+    private final IntAdjacency adj;
+    private final IntAdjacency reverse;
+    private final long edgeCount;
+    private int bottomUpLevels;
+
+    /**
+     * Create a search for the given graph. The graph should not change
+     * while the search is in use.
+     *
+     * @param graph
+     */
+    public DirectionOptimizingBFS(IGraph graph) {
+        this.graph = graph;
+        this.adj = IntAdjacency.of(graph);
+        this.reverse = adj.reverse();
+        long edges = 0;
+        for (int u = 0; u < adj.getNodeCount(); u++) {
+            edges += adj.degree(u);
+        }
+        this.edgeCount = edges;
+    }
+
+    /**
+     * Search from the node with the given name.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public BreadthFirstLevels search(String startNodeName) {
+        return search(PathSearch.idOf(graph, startNodeName));
+    }
+
+    /**
+     * Search from the node with the given id.
+     *
+     * @param start
+     * @return
+     */
+    public BreadthFirstLevels search(int start) {
+        int n = adj.getNodeCount();
+        int[] hops = new int[n];
+        Arrays.fill(hops, -1);
+        int[] parents = new int[n];
+        Arrays.fill(parents, -1);
+        BitSet visited = new BitSet(n);
+        BitSet frontier = new BitSet(n);
+        // every reached node in BFS order; each level is a contiguous run
+        int[] queue = new int[n];
+        List<int[]> levels = new ArrayList<int[]>();
+
+        visited.set(start);
+        hops[start] = 0;
+        queue[0] = start;
+        int levelStart = 0;
+        int tail = 1;
+        long frontierEdges = adj.degree(start);
+        long unexploredEdges = edgeCount - frontierEdges;
+        int previousSize = 0;
+        boolean bottomUp = false;
+        bottomUpLevels = 0;
+
+        for (int depth = 1; levelStart < tail; depth++) {
+            int levelEnd = tail;
+            int size = levelEnd - levelStart;
+            levels.add(Arrays.copyOfRange(queue, levelStart, levelEnd));
+            if (!bottomUp) {
+                bottomUp = frontierEdges > unexploredEdges / ALPHA && size > previousSize;
+            } else {
+                bottomUp = size >= n / BETA || size > previousSize;
+            }
+            frontierEdges = 0;
+            if (bottomUp) {
+                bottomUpLevels++;
+                frontier.clear();
+                for (int i = levelStart; i < levelEnd; i++) {
+                    frontier.set(queue[i]);
+                }
+                for (int v = visited.nextClearBit(0); v < n; v = visited.nextClearBit(v + 1)) {
+                    int degree = reverse.degree(v);
+                    for (int i = 0; i < degree; i++) {
+                        int u = reverse.neighbor(v, i);
+                        if (frontier.get(u)) {
+                            visited.set(v);
+                            hops[v] = depth;
+                            parents[v] = u;
+                            queue[tail++] = v;
+                            frontierEdges += adj.degree(v);
+                            break;
+                        }
+                    }
+                }
+            } else {
+                for (int i = levelStart; i < levelEnd; i++) {
+                    int u = queue[i];
+                    int degree = adj.degree(u);
+                    for (int e = 0; e < degree; e++) {
+                        int v = adj.neighbor(u, e);
+                        if (!visited.get(v)) {
+                            visited.set(v);
+                            hops[v] = depth;
+                            parents[v] = u;
+                            queue[tail++] = v;
+                            frontierEdges += adj.degree(v);
+                        }
+                    }
+                }
+            }
+            unexploredEdges -= frontierEdges;
+            previousSize = size;
+            levelStart = levelEnd;
+        }
+        return new BreadthFirstLevels(graph, hops, parents, levels.toArray(new int[levels.size()][]));
+    }
+
+    /**
+     * Return how many levels of the last search were found bottom-up.
+     *
+     * @return
+     */
+    public int getBottomUpLevelCount() {
+        return bottomUpLevels;
+    }
+}
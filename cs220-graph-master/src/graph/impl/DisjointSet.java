@@ -0,0 +1,140 @@
+package graph.impl;
+
+import java.util.Arrays;
+
+/**
+ * A disjoint-set (union-find) structure over the ints 0 to n-1.
+ *
+ * Sets are trees stored in a parent array. {@link #union(int, int)} hangs the
+ * smaller tree under the larger one, and {@link #find(int)} points every
+ * node on the path it walks straight at the root, so any sequence of operations
+ * runs in nearly constant amortized time per operation. The size of every set
+ * is kept at its root, and {@link #add()} adds a new singleton set, so the
+ * structure can grow along with a graph.
+ */
+public class DisjointSet
+{
+    private int[] parent;
+    // the number of elements in the set of each root
+    private int[] setSize;
+    private int count;
+    private int setCount;
+
+    /**
+     * Create n singleton sets {0}, {1}, ..., {n-1}.
+     *
+     * @param n
+     */
+    public DisjointSet(int n) {
+        parent = new int[n];
+        setSize = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            setSize[i] = 1;
+        }
+        count = n;
+        setCount = n;
+    }
+
+    /**
+     * Return the number of elements.
+     *
+     * @return
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Add a new element in a set of its own, and return it. The new element
+     * is the old {@link #size()}.
+     *
+     * @return
+     */
+    public int add() {
+        if (count == parent.length) {
+            int capacity = Math.max(16, count * 2);
+            parent = Arrays.copyOf(parent, capacity);
+            setSize = Arrays.copyOf(setSize, capacity);
+        }
+        parent[count] = count;
+        setSize[count] = 1;
+        setCount++;
+        return count++;
+    }
+
+    /**
+     * Return the number of disjoint sets.
+     *
+     * @return
+     */
+    public int getSetCount() {
+        return setCount;
+    }
+
+    /**
+     * Return the representative of the set containing x. Two elements are in
+     * the same set exactly when they have the same representative.
+     *
+     * @param x
+     * @return
+     */
+    public int find(int x) {
+        int root = x;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[x] != root) {
+            int next = parent[x];
+            parent[x] = root;
+            x = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merge the sets containing a and b. Return true if they were different
+     * sets, and false if a and b were already in the same set.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) {
+            return false;
+        }
+        if (setSize[ra] < setSize[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        setSize[ra] += setSize[rb];
+        setCount--;
+        return true;
+    }
+
+    /**
+     * Return true if a and b are in the same set.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean sameSet(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * Return the number of elements in the set containing x.
+     *
+     * @param x
+     * @return
+     */
+    public int getSetSize(int x) {
+        return setSize[find(x)];
+    }
+}
@@ -0,0 +1,170 @@
+package graph.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import graph.DistanceMatrix;
+import graph.IGraph;
+
+/**
+ * Saves a {@link DistanceMatrix} to a binary file and loads it back, so that
+ * the distances of a graph that does not change, such as a game board, are
+ * computed once and not every time a program starts.
+ *
+ * Every entry takes the fewest bytes that hold the largest distance: one
+ * byte for the Scotland Yard map, instead of four. The file is little-endian:
+ * <pre>
+ * "APSP"  int version  int n  int width  long arcs
+ * dist[n*n]     (width bytes each, row by row, all bits set for no path)
+ * </pre>
+ * The node names are not saved, only n and the number of edges (arcs), which
+ * are checked against the graph the matrix is loaded for, so the graph has
+ * to be loaded the same way, with the same ids, as the one that was saved.
+ */
+public class DistanceMatrixFile
+{
+    static final int MAGIC = ('A' << 24) | ('P' << 16) | ('S' << 8) | 'P';
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    private DistanceMatrixFile() {
+        // private constructor to prevent creating instances
+        // this class exists only to hold static methods
+    }
+
+    /**
+     * Write the given matrix to the given file, replacing it if it exists.
+     *
+     * @param matrix
+     * @param file
+     * @throws IOException
+     */
+    public static void write(DistanceMatrix matrix, Path file) throws IOException {
+        int n = matrix.getNodeCount();
+        int[] dist = matrix.getEntries();
+        int width = width(matrix.getDiameter());
+        long arcs = AllPairsShortestPaths.arcCount(IntAdjacency.of(matrix.getGraph()));
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(width).putLong(arcs);
+            for (int d : dist) {
+                if (buf.remaining() < width) {
+                    drain(out, buf);
+                }
+                if (width == 1) {
+                    buf.put((byte) d);
+                } else if (width == 2) {
+                    buf.putShort((short) d);
+                } else {
+                    buf.putInt(d);
+                }
+            }
+            drain(out, buf);
+        }
+    }
+
+    /**
+     * Load a matrix written by {@link #write(DistanceMatrix, Path)} for the
+     * given graph.
+     *
+     * @param graph
+     * @param file
+     * @return
+     * @throws IOException if the file is not a distance matrix, has a version
+     *         this class does not know, is truncated, or was saved for a
+     *         graph with a different number of nodes or edges
+     */
+    public static DistanceMatrix load(IGraph graph, Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buf.limit(HEADER_BYTES);
+            if (!fill(in, buf) || buf.getInt() != MAGIC) {
+                throw new IOException("not a distance matrix: " + file);
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported distance matrix version " + version + ": " + file);
+            }
+            int n = buf.getInt();
+            int width = buf.getInt();
+            long arcs = buf.getLong();
+            if (n < 0 || (long) n * n > Integer.MAX_VALUE - 8 || (width != 1 && width != 2 && width != 4)) {
+                throw new IOException("corrupt distance matrix: " + file);
+            }
+            long expected = HEADER_BYTES + (long) n * n * width;
+            if (in.size() != expected) {
+                throw new IOException("truncated distance matrix: " + file + " has " + in.size()
+                        + " bytes, expected " + expected);
+            }
+            IntAdjacency adj = IntAdjacency.of(graph);
+            if (adj.getNodeCount() != n || AllPairsShortestPaths.arcCount(adj) != arcs) {
+                throw new IOException("distance matrix " + file + " is for a graph with " + n
+                        + " nodes and " + arcs + " edges, not " + adj.getNodeCount() + " and "
+                        + AllPairsShortestPaths.arcCount(adj));
+            }
+
+            int[] dist = new int[n * n];
+            int i = 0;
+            while (i < dist.length) {
+                buf.clear();
+                buf.limit((int) Math.min(buf.capacity(), (long) (dist.length - i) * width));
+                fill(in, buf);
+                while (buf.hasRemaining()) {
+                    if (width == 1) {
+                        int d = buf.get() & 0xFF;
+                        dist[i++] = d == 0xFF ? -1 : d;
+                    } else if (width == 2) {
+                        int d = buf.getShort() & 0xFFFF;
+                        dist[i++] = d == 0xFFFF ? -1 : d;
+                    } else {
+                        dist[i++] = buf.getInt();
+                    }
+                }
+            }
+            return new DistanceMatrix(graph, n, dist);
+        }
+    }
+
+    /**
+     * Return the number of bytes per entry for the given largest distance,
+     * keeping the value with all bits set for no path.
+     */
+    static int width(int max) {
+        if (max < 0xFF) {
+            return 1;
+        }
+        if (max < 0xFFFF) {
+            return 2;
+        }
+        return 4;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Read until the buffer is full, then flip it. Return false if the file
+     * ends first.
+     */
+    private static boolean fill(FileChannel in, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (in.read(buf) < 0) {
+                buf.flip();
+                return false;
+            }
+        }
+        buf.flip();
+        return true;
+    }
+}
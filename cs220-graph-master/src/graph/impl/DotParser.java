@@ -0,0 +1,468 @@
+package graph.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import graph.IGraph;
+import graph.INode;
+
+/**
+ * Reads a graph in DOT format, one token at a time.
+ *
+ * The parser understands the parts of the DOT language that describe nodes
+ * and edges:
+ * <ul>
+ * <li><code>graph</code> and <code>digraph</code>, optionally <code>strict</code> and named</li>
+ * <li>edge statements with any number of <code>--</code> or <code>-&gt;</code>
+ * operators, such as <code>A -&gt; B -&gt; C [label=3]</code></li>
+ * <li>node statements, which create a node even if it has no edges</li>
+ * <li>IDs that are plain words, numbers, double-quoted strings
+ * (with <code>\"</code> and <code>\\</code> escapes) or &lt;HTML&gt; strings</li>
+ * <li>attribute lists, <code>//</code>, <code>/* *&#47;</code> and <code>#</code> comments,
+ * and optional semicolons</li>
+ * </ul>
+ * A <code>--</code> edge is added as an undirected edge and a <code>-&gt;</code>
+ * edge as a directed one. The weight of an edge is its <code>weight</code>
+ * attribute, or else its <code>label</code> if that is an int, or else 1.
+ * Attribute statements (<code>node [...]</code>, <code>rankdir=LR</code>),
+ * ports and the braces of subgraphs are read and ignored, so the nodes and
+ * edges of a subgraph belong to the graph. A subgraph can also be an end of
+ * an edge, as in <code>A -&gt; {B C}</code>, which joins A to every node
+ * the subgraph mentions.
+ */
+public class DotParser
+{
+    // token kinds other than single characters such as '{' or '='
+    private static final int EOF = -1;
+    private static final int ID = -2;
+    private static final int UNDIRECTED = -3;
+    private static final int DIRECTED = -4;
+
+    private final Reader in;
+    private final char[] buf = new char[1 << 16];
+    private int pos;
+    private int limit;
+    private int line = 1;
+
+    // the current token, and its text if it is an ID
+    private int kind;
+    private final StringBuilder text = new StringBuilder();
+    private boolean quoted;
+
+    private DotParser(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Read the first graph in the given UTF-8 stream into a new {@link Graph},
+     * and close the stream.
+     *
+     * @param in
+     * @return
+     * @throws IOException if the input is not valid DOT
+     */
+    public static IGraph read(InputStream in) throws IOException {
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            IGraph g = new Graph();
+            read(reader, g);
+            return g;
+        }
+    }
+
+    /**
+     * Read the first graph from the given Reader, adding its nodes and edges
+     * to the given graph. The reader is not closed.
+     *
+     * @param in
+     * @param g
+     * @throws IOException if the input is not valid DOT
+     */
+    public static void read(Reader in, IGraph g) throws IOException {
+        new DotParser(in).parseGraph(g);
+    }
+
+    private void parseGraph(IGraph g) throws IOException {
+        advance();
+        if (isKeyword("strict")) {
+            advance();
+        }
+        if (!isKeyword("graph") && !isKeyword("digraph")) {
+            throw error("expected graph or digraph");
+        }
+        advance();
+        if (kind == ID) {
+            advance();
+        }
+        expect('{');
+        parseStatements(g, null);
+        expect('}');
+    }
+
+    /**
+     * Parse statements up to the closing brace of the current block, adding
+     * the name of every node they mention to the given set, if it is not null.
+     */
+    private void parseStatements(IGraph g, Set<String> mentioned) throws IOException {
+        // the names of the endpoints of an edge statement, one after another,
+        // and where each endpoint starts: a subgraph endpoint has many names
+        List<String> names = new ArrayList<String>();
+        List<Integer> starts = new ArrayList<Integer>();
+        List<INode> nodes = new ArrayList<INode>();
+        List<Integer> ops = new ArrayList<Integer>();
+        while (kind != '}') {
+            if (kind == EOF) {
+                throw error("expected }");
+            }
+            if (kind == ';' || kind == ',') {
+                // Graphviz also accepts commas between statements
+                advance();
+                continue;
+            }
+            if (kind == '[') {
+                throw error("expected a statement");
+            }
+            if (isKeyword("graph") || isKeyword("node") || isKeyword("edge")) {
+                // default attributes
+                advance();
+                parseAttributes();
+                continue;
+            }
+            if (kind == '{' || isKeyword("subgraph")) {
+                parseSubgraph(g, names);
+            } else {
+                String first = id();
+                if (kind == '=') {
+                    // a graph attribute such as rankdir=LR
+                    advance();
+                    id();
+                    continue;
+                }
+                skipPort();
+                names.add(first);
+            }
+
+            starts.add(0);
+            while (kind == UNDIRECTED || kind == DIRECTED) {
+                ops.add(kind);
+                advance();
+                starts.add(names.size());
+                parseEndpoint(g, names);
+            }
+            starts.add(names.size());
+            int weight = parseAttributes();
+            for (String name : names) {
+                nodes.add(g.getOrCreateNode(name));
+                if (mentioned != null) {
+                    mentioned.add(name);
+                }
+            }
+            // every node of an endpoint is joined to every node of the next
+            for (int i = 0; i < ops.size(); i++) {
+                for (int a = starts.get(i); a < starts.get(i + 1); a++) {
+                    INode prev = nodes.get(a);
+                    for (int b = starts.get(i + 1); b < starts.get(i + 2); b++) {
+                        INode next = nodes.get(b);
+                        if (ops.get(i) == DIRECTED) {
+                            prev.addDirectedEdgeToNode(next, weight);
+                        } else {
+                            prev.addUndirectedEdgeToNode(next, weight);
+                        }
+                    }
+                }
+            }
+            names.clear();
+            starts.clear();
+            nodes.clear();
+            ops.clear();
+        }
+    }
+
+    /**
+     * Parse a node ID or a subgraph, adding the names of its nodes to the
+     * given list.
+     */
+    private void parseEndpoint(IGraph g, List<String> names) throws IOException {
+        if (kind == '{' || isKeyword("subgraph")) {
+            parseSubgraph(g, names);
+        } else {
+            names.add(id());
+            skipPort();
+        }
+    }
+
+    /**
+     * Parse a subgraph, whose statements are added to the graph, and add the
+     * names of the nodes it mentions to the given list, once each.
+     */
+    private void parseSubgraph(IGraph g, List<String> names) throws IOException {
+        if (kind == ID) {
+            // subgraph, and maybe its name
+            advance();
+            if (kind == ID) {
+                advance();
+            }
+        }
+        expect('{');
+        Set<String> mentioned = new LinkedHashSet<String>();
+        parseStatements(g, mentioned);
+        expect('}');
+        names.addAll(mentioned);
+    }
+
+    /**
+     * Read any attribute lists and return the weight they give an edge.
+     */
+    private int parseAttributes() throws IOException {
+        Integer weight = null;
+        Integer label = null;
+        while (kind == '[') {
+            advance();
+            while (kind != ']') {
+                String key = id();
+                String value = null;
+                if (kind == '=') {
+                    advance();
+                    value = id();
+                }
+                if (kind == ',' || kind == ';') {
+                    advance();
+                }
+                if (value == null) {
+                    continue;
+                }
+                if (key.equals("weight")) {
+                    weight = parseInt(value);
+                } else if (key.equals("label")) {
+                    label = parseInt(value);
+                }
+            }
+            advance();
+        }
+        if (weight != null) {
+            return weight;
+        }
+        return label != null ? label : 1;
+    }
+
+    private void skipPort() throws IOException {
+        // A:port or A:port:compass
+        while (kind == ':') {
+            advance();
+            id();
+        }
+    }
+
+    private Integer parseInt(String value) {
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String id() throws IOException {
+        if (kind != ID) {
+            throw error("expected an ID");
+        }
+        String id = text.toString();
+        advance();
+        return id;
+    }
+
+    private void expect(int c) throws IOException {
+        if (kind != c) {
+            throw error("expected " + (char) c);
+        }
+        advance();
+    }
+
+    private boolean isKeyword(String keyword) {
+        return kind == ID && !quoted && text.length() == keyword.length()
+                && text.toString().equalsIgnoreCase(keyword);
+    }
+
+    private IOException error(String message) {
+        String found;
+        if (kind == EOF) {
+            found = "end of input";
+        } else if (kind == ID) {
+            found = text.toString();
+        } else if (kind == UNDIRECTED) {
+            found = "--";
+        } else if (kind == DIRECTED) {
+            found = "->";
+        } else {
+            found = String.valueOf((char) kind);
+        }
+        return new IOException("line " + line + ": " + message + ", found " + found);
+    }
+
+    /**
+     * Read the next token into kind (and text).
+     */
+    private void advance() throws IOException {
+        skipWhitespaceAndComments();
+        int c = peek();
+        if (c < 0) {
+            kind = EOF;
+            return;
+        }
+        if (c == '-' && (peek(1) == '-' || peek(1) == '>')) {
+            kind = peek(1) == '-' ? UNDIRECTED : DIRECTED;
+            pos += 2;
+            return;
+        }
+        text.setLength(0);
+        quoted = false;
+        if (c == '"') {
+            readQuoted();
+        } else if (c == '<') {
+            readHtml();
+        } else if (isIdChar(c) || c == '.') {
+            // a word or a number, such as -1.5
+            do {
+                text.append((char) c);
+                pos++;
+                c = peek();
+            } while (c >= 0 && (isIdChar(c) || c == '.') && !(c == '-' && (peek(1) == '-' || peek(1) == '>')));
+            kind = ID;
+        } else {
+            pos++;
+            kind = c;
+        }
+    }
+
+    private void readQuoted() throws IOException {
+        pos++;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw new IOException("line " + line + ": unterminated string");
+            }
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                int next = read();
+                if (next == '\n') {
+                    // a line continuation
+                    continue;
+                }
+                if (next != '"' && next != '\\') {
+                    text.append('\\');
+                }
+                if (next >= 0) {
+                    text.append((char) next);
+                }
+                continue;
+            }
+            text.append((char) c);
+        }
+        kind = ID;
+        quoted = true;
+    }
+
+    private void readHtml() throws IOException {
+        pos++;
+        int depth = 1;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw new IOException("line " + line + ": unterminated HTML string");
+            }
+            if (c == '<') {
+                depth++;
+            } else if (c == '>' && --depth == 0) {
+                break;
+            }
+            text.append((char) c);
+        }
+        kind = ID;
+        quoted = true;
+    }
+
+    private void skipWhitespaceAndComments() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == '\n' || c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+                read();
+            } else if (c == '#' || (c == '/' && peek(1) == '/')) {
+                while (c >= 0 && c != '\n') {
+                    c = read();
+                }
+            } else if (c == '/' && peek(1) == '*') {
+                pos += 2;
+                while (true) {
+                    c = read();
+                    if (c < 0) {
+                        throw new IOException("line " + line + ": unterminated comment");
+                    }
+                    if (c == '*' && peek() == '/') {
+                        pos++;
+                        break;
+                    }
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isIdChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c >= 0x80 || c == '-';
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            pos++;
+            if (c == '\n') {
+                line++;
+            }
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        return peek(0);
+    }
+
+    /**
+     * Return the char at pos + ahead, or -1 at end of input,
+     * where ahead is 0 or 1.
+     */
+    private int peek(int ahead) throws IOException {
+        if (pos + ahead >= limit) {
+            fill();
+            if (pos + ahead >= limit) {
+                return -1;
+            }
+        }
+        return buf[pos + ahead];
+    }
+
+    private void fill() throws IOException {
+        int left = limit - pos;
+        System.arraycopy(buf, pos, buf, 0, left);
+        pos = 0;
+        limit = left;
+        while (limit < buf.length) {
+            int n = in.read(buf, limit, buf.length - limit);
+            if (n < 0) {
+                return;
+            }
+            limit += n;
+            if (n > 0) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package graph.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import graph.IGraph;
+import graph.INode;
+
+/**
+ * Writes a graph in DOT format, one edge at a time, so a graph can be exported
+ * without holding the document (or anything else per edge) in memory.
+ *
+ * An undirected edge is stored as two directed edges, and is written once,
+ * from the endpoint that comes first in {@link IGraph#getAllNodes()}: the
+ * writer skips the edge from u to v if v has a smaller id and an edge back to u,
+ * so no set of edges already written is needed. Directed graphs are written
+ * with every edge.
+ *
+ * Names that are not plain DOT IDs, such as names with spaces, are written in
+ * double quotes, so that {@link DotParser} reads the same names back.
+ */
+public class DotWriter
+{
+    private static final Set<String> KEYWORDS = new HashSet<String>(
+            Arrays.asList("graph", "digraph", "subgraph", "node", "edge", "strict"));
+
+    private DotWriter() {
+        // private constructor to prevent creating instances
+        // this class exists only to hold static methods
+    }
+
+    /**
+     * Write the given graph to the given Appendable, such as a {@link Writer}
+     * or a {@link StringBuilder}.
+     *
+     * @param g
+     * @param graphname
+     * @param directed write a digraph with -&gt; edges instead of a graph with -- edges
+     * @param weighted label each edge with its weight
+     * @param out
+     * @throws IOException
+     */
+    public static void write(IGraph g, String graphname, boolean directed, boolean weighted, Appendable out)
+            throws IOException {
+        out.append(directed ? "digraph " : "graph ").append(graphname).append(" {\n");
+        String arrow = directed ? " -> " : " -- ";
+        for (INode src : g.getAllNodes()) {
+            int u = g.getId(src);
+            for (INode dst : src.getNeighbors()) {
+                if (!directed && g.getId(dst) < u && dst.hasEdge(src)) {
+                    // already written from the other end
+                    continue;
+                }
+                appendId(out, src.getName());
+                out.append(arrow);
+                appendId(out, dst.getName());
+                if (weighted) {
+                    out.append(" [label=").append(Integer.toString(src.getWeight(dst))).append("];\n");
+                } else {
+                    out.append(directed ? ";\n" : "\n");
+                }
+            }
+        }
+        out.append("}\n");
+    }
+
+    /**
+     * Write the given graph to the given stream as UTF-8. The stream is
+     * flushed but not closed.
+     *
+     * @param g
+     * @param graphname
+     * @param directed
+     * @param weighted
+     * @param out
+     * @throws IOException
+     */
+    public static void write(IGraph g, String graphname, boolean directed, boolean weighted, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        write(g, graphname, directed, weighted, writer);
+        writer.flush();
+    }
+
+    /**
+     * Write the given graph to the given file as UTF-8, compressed with gzip
+     * if the file name ends with <code>.gz</code>.
+     *
+     * @param g
+     * @param graphname
+     * @param directed
+     * @param weighted
+     * @param file
+     * @throws IOException
+     */
+    public static void write(IGraph g, String graphname, boolean directed, boolean weighted, Path file)
+            throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (file.getFileName().toString().endsWith(".gz")) {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16)) {
+                    write(g, graphname, directed, weighted, gzip);
+                }
+            } else {
+                write(g, graphname, directed, weighted, out);
+            }
+        }
+    }
+
+
+    /**
+     * Append the given name, in double quotes unless it is a plain word
+     * (letters, digits and underscores, not starting with a digit) that is not
+     * a DOT keyword, or a plain number. Quotes and backslashes are escaped
+     * with a backslash, so {@link DotParser} reads the same name back.
+     */
+    static void appendId(Appendable out, String name) throws IOException {
+        if (isPlainId(name)) {
+            out.append(name);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static boolean isPlainId(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        boolean word = true;
+        boolean number = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean digit = c >= '0' && c <= '9';
+            word &= digit ? i > 0 : (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c >= 0x80;
+            number &= digit || (c == '-' && i == 0 && name.length() > 1);
+        }
+        if (number) {
+            return true;
+        }
+        return word && !KEYWORDS.contains(name.toLowerCase());
+    }
+}
+
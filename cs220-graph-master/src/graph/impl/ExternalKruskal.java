@@ -0,0 +1,304 @@
+package graph.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.IGraph;
+import graph.SpanningForest;
+
+/**
+ * Kruskal's algorithm over an undirected weighted edge list
+ * (one <code>src dst weight</code> per line) that may be far bigger than
+ * memory.
+ *
+ * The file is read once, giving each name an id. Edges are collected in runs
+ * of at most runSize edges; each full run is sorted by weight and spilled to
+ * a temporary file, 12 bytes per edge. The runs are then merged, with an
+ * {@link IndexedHeap} holding the next weight of every run, into one stream
+ * of edges in order of weight, and each edge joins the forest if a
+ * {@link DisjointSet} says its ends are not connected yet. If the whole file
+ * fits in one run, it is sorted in memory and nothing is written to disk.
+ *
+ * Only the names, the disjoint sets and the forest itself are kept in memory
+ * for the whole file, a few dozen bytes per node plus the name, and nothing
+ * per edge but the one run being filled. The merge stops as soon as every
+ * node is in one tree. Edges of equal weight are taken in file order within
+ * a run. A pair of nodes that appears on several lines is a set of parallel
+ * edges, and only the lightest can end up in the forest, unlike the graph loaders in
+ * {@link graph.GraphFactories}, where the last line for a pair wins.
+ */
+public class ExternalKruskal
+{
+    // edges per run, about 64MB while sorting
+    public static final int DEFAULT_RUN_SIZE = 1 << 22;
+    // bytes of each run file read or written at a time
+    static final int BUFFER_SIZE = 1 << 16;
+    static final int RECORD_SIZE = 12;
+
+    private ExternalKruskal() {
+        // private constructor to prevent creating instances
+        // this class exists only to hold static methods
+    }
+
+    /**
+     * Compute a minimum spanning forest of the edge list in the given file,
+     * spilling runs of {@link #DEFAULT_RUN_SIZE} edges to the default
+     * temporary directory.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static SpanningForest fromEdgeList(Path file) throws IOException {
+        return fromEdgeList(Files.newInputStream(file), DEFAULT_RUN_SIZE,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Compute a minimum spanning forest of the edge list in the given stream,
+     * which is closed at the end. The node ids of the forest are in the order
+     * the names first appear in the stream, and the graph of the forest has
+     * the nodes but no edges, so {@link SpanningForest#toGraph()} works.
+     *
+     * @param in
+     * @param runSize the most edges to sort in memory at once
+     * @param tempDir where to write the sorted runs, which are deleted again
+     * @return
+     * @throws IOException
+     */
+    public static SpanningForest fromEdgeList(InputStream in, int runSize, Path tempDir) throws IOException {
+        if (runSize <= 0) {
+            throw new IllegalArgumentException("bad run size " + runSize);
+        }
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> names = new ArrayList<String>();
+        List<Path> runs = new ArrayList<Path>();
+        int[] src = new int[Math.min(runSize, 1024)];
+        int[] dst = new int[src.length];
+        int[] wt = new int[src.length];
+        int size = 0;
+        try {
+            try (ByteTokenizer scanner = new ByteTokenizer(in)) {
+                while (scanner.hasNext()) {
+                    if (size == runSize) {
+                        runs.add(spill(src, dst, wt, size, tempDir));
+                        size = 0;
+                    }
+                    if (size == src.length) {
+                        int capacity = (int) Math.min(runSize, 2L * size);
+                        src = Arrays.copyOf(src, capacity);
+                        dst = Arrays.copyOf(dst, capacity);
+                        wt = Arrays.copyOf(wt, capacity);
+                    }
+                    src[size] = idOf(scanner.next(), ids, names);
+                    dst[size] = idOf(scanner.next(), ids, names);
+                    wt[size] = scanner.nextInt();
+                    size++;
+                }
+            }
+
+            Forest forest = new Forest(names.size());
+            if (runs.isEmpty()) {
+                int[] order = sortByWeight(wt, size);
+                for (int i = 0; i < size && !forest.isSpanning(); i++) {
+                    int e = order[i];
+                    forest.add(src[e], dst[e], wt[e]);
+                }
+            } else {
+                if (size > 0) {
+                    runs.add(spill(src, dst, wt, size, tempDir));
+                }
+                // the last run may be most of memory; it is on disk now
+                src = dst = wt = null;
+                merge(runs, forest);
+            }
+            String[] nameArray = names.toArray(new String[names.size()]);
+            int[] none = new int[0];
+            return forest.toSpanningForest(CompactGraph.fromEdges(nameArray, ids, none, none, none, 0));
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private static int idOf(String name, Map<String, Integer> ids, List<String> names) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Return the indexes of the first size edges, sorted by weight and then index.
+     */
+    static int[] sortByWeight(int[] wt, int size) {
+        long[] keys = new long[size];
+        for (int e = 0; e < size; e++) {
+            keys[e] = ((long) wt[e] << 32) | e;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Write the first size edges to a new temporary file, sorted by weight.
+     */
+    private static Path spill(int[] src, int[] dst, int[] wt, int size, Path tempDir) throws IOException {
+        int[] order = sortByWeight(wt, size);
+        Path file = Files.createTempFile(tempDir, "kruskal", ".run");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE / RECORD_SIZE * RECORD_SIZE);
+            for (int i = 0; i < size; i++) {
+                if (buf.remaining() < RECORD_SIZE) {
+                    drain(buf, channel);
+                }
+                int e = order[i];
+                buf.putInt(src[e]).putInt(dst[e]).putInt(wt[e]);
+            }
+            drain(buf, channel);
+        }
+        return file;
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel channel) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Feed the edges of all the runs to the forest in order of weight.
+     */
+    private static void merge(List<Path> runs, Forest forest) throws IOException {
+        Run[] readers = new Run[runs.size()];
+        IndexedHeap heap = new IndexedHeap(readers.length);
+        try {
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = new Run(runs.get(r));
+                if (readers[r].next()) {
+                    heap.insert(r, readers[r].weight);
+                }
+            }
+            while (!heap.isEmpty() && !forest.isSpanning()) {
+                int r = heap.poll();
+                Run run = readers[r];
+                forest.add(run.src, run.dst, run.weight);
+                if (run.next()) {
+                    heap.insert(r, run.weight);
+                }
+            }
+        } finally {
+            for (Run run : readers) {
+                if (run != null) {
+                    run.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the edges of one sorted run back, one at a time.
+     */
+    private static class Run
+    {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE / RECORD_SIZE * RECORD_SIZE);
+        int src;
+        int dst;
+        int weight;
+
+        Run(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buf.flip();
+        }
+
+        /**
+         * Read the next edge, returning false at the end of the run.
+         */
+        boolean next() throws IOException {
+            if (buf.remaining() < RECORD_SIZE) {
+                buf.compact();
+                while (buf.position() < RECORD_SIZE) {
+                    if (channel.read(buf) < 0) {
+                        if (buf.position() > 0) {
+                            throw new EOFException("truncated run file");
+                        }
+                        buf.flip();
+                        return false;
+                    }
+                }
+                buf.flip();
+            }
+            src = buf.getInt();
+            dst = buf.getInt();
+            weight = buf.getInt();
+            return true;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * The forest that Kruskal's algorithm grows: edges are offered in order
+     * of weight, and kept if they join two trees.
+     */
+    static class Forest
+    {
+        private final DisjointSet sets;
+        private final int[] src;
+        private final int[] dst;
+        private final int[] wt;
+        private int count;
+
+        Forest(int n) {
+            sets = new DisjointSet(n);
+            src = new int[Math.max(0, n - 1)];
+            dst = new int[src.length];
+            wt = new int[src.length];
+        }
+
+        void add(int u, int v, int weight) {
+            if (sets.union(u, v)) {
+                src[count] = u;
+                dst[count] = v;
+                wt[count++] = weight;
+            }
+        }
+
+        /**
+         * Return true once every node is in one tree, when no more edges can be added.
+         */
+        boolean isSpanning() {
+            return sets.getSetCount() <= 1;
+        }
+
+        SpanningForest toSpanningForest(IGraph graph) {
+            return new SpanningForest(graph, Arrays.copyOf(src, count), Arrays.copyOf(dst, count),
+                    Arrays.copyOf(wt, count));
+        }
+    }
+}
@@ -1,32 +1,67 @@
 package graph.impl;
 
-import java.io.File;
-import java.io.IOException;
-import java.net.URI;
-import java.nio.file.*;
 import java.util.*;
-import java.util.function.Consumer;
 
+import graph.BreadthFirstLevels;
+import graph.ConnectedComponents;
+import graph.DepthFirstTree;
+import graph.DistanceMatrix;
+import graph.Heuristic;
 import graph.IGraph;
 import graph.INode;
 import graph.NodeVisitor;
+import graph.SearchMode;
+import graph.ShortestPath;
+import graph.SpanningForest;
+import graph.TraversalVisitor;
 
 /**
  * A basic representation of a graph that can perform BFS, DFS, Dijkstra,
  * and Prim-Jarnik's algorithm for a minimum spanning tree.
- * 
+ *
+ * Every node gets a dense int id (0, 1, 2, ...) when it is created, so the
+ * algorithms can keep their bookkeeping in plain arrays and {@link BitSet}s
+ * instead of hash maps keyed by {@link INode}.
+ *
  * @author jspacco
  *
  */
 public class Graph implements IGraph, graphproject {
 
+    /**
+     * How the nodes of a graph store their edges.
+     */
+    public enum NodeStorage {
+        /** Each node keeps a HashMap from neighbor to weight ({@link Node}). */
+        HASH_MAP,
+        /** Each node keeps parallel neighbor and int weight arrays ({@link ArrayNode}). */
+        ARRAY
+    }
+
     private Map<String, INode> newGraph;
-    private Collection<INode> values;
-    private Set<INode> newNeighbours;
+    private ArrayList<INode> nodes;
+    private final NodeStorage storage;
+    private CompactGraph snapshot;
+    // the searches behind shortestPath, which run on the snapshot
+    private PathSearch.Cache searches;
+    // created the first time they are asked for, then kept up to date
+    private UnionFindComponents components;
 
     public Graph() {
-        newGraph = new HashMap<String, INode>()
-        ;
+        this(NodeStorage.HASH_MAP);
+    }
+
+    /**
+     * Create an empty graph whose nodes store their edges as given.
+     * {@link NodeStorage#ARRAY} uses several times less memory per edge
+     * than the default {@link NodeStorage#HASH_MAP}.
+     *
+     * @param storage
+     */
+    public Graph(NodeStorage storage) {
+        this.storage = storage;
+        newGraph = new HashMap<String, INode>();
+        nodes = new ArrayList<INode>();
     }
 
     /**
@@ -41,17 +76,28 @@ public class Graph implements IGraph, graphproject {
      * @return
      */
     public INode getOrCreateNode(String name) {
+        INode node = newGraph.get(name);
+        if (node == null) {
+            node = createNode(name);
+        }
+        return node;
+    }
 
-        if (newGraph.containsKey(name)) {
-            return newGraph.get(name);
+    private INode createNode(String name) {
+        INode node;
+        if (storage == NodeStorage.ARRAY) {
+            node = new ArrayNode(name, nodes.size(), this);
         } else {
-            INode temp;
-            temp = new Node(name);
-            newGraph.put(name, temp);
-            return newGraph.get(name);
-
-            //Should I have kept this or not? throw new UnsupportedOperationException("Implement this method");
+            node = new Node(name, nodes.size(), this);
         }
+        newGraph.put(name, node);
+        nodes.add(node);
+        snapshot = null;
+        searches = null;
+        if (components != null) {
+            components.nodeAdded();
+        }
+        return node;
     }
 
     /**
@@ -62,374 +108,557 @@ public class Graph implements IGraph, graphproject {
      * @return
      */
     public boolean containsNode(String name) {
-        //throw new UnsupportedOperationException("Implement this method");
         return newGraph.containsKey(name);
-
     }
 
     /**
-     * Return a collection of all of the nodes in the graph.
+     * Add many edges at once. The names are first given ids through a map
+     * local to this call, so each distinct name is looked up in the graph
+     * only once, and the names that are new are created together after the
+     * graph's tables have been sized for them. Then the edges are added by
+     * id with {@link #addEdges(int[], int[], int[], boolean)}.
      *
-     * @return
+     * @param src
+     * @param dst
+     * @param weights
+     * @param directed
      */
-    public Collection<INode> getAllNodes() {
-        values = newGraph.values();
-        return values;
-        //throw new UnsupportedOperationException("Implement this method");
+    public void addEdges(String[] src, String[] dst, int[] weights, boolean directed) {
+        int count = checkEdgeArrays(src.length, dst.length, weights);
+        int[] srcIds = new int[count];
+        int[] dstIds = new int[count];
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        List<String> created = new ArrayList<String>();
+        for (int e = 0; e < count; e++) {
+            srcIds[e] = idFor(src[e], ids, created);
+            dstIds[e] = idFor(dst[e], ids, created);
+        }
+        if (!created.isEmpty()) {
+            int total = nodes.size() + created.size();
+            if (created.size() >= newGraph.size()) {
+                // the table would at least double anyway: grow it once
+                Map<String, INode> bigger = new HashMap<String, INode>((int) (total / 0.75f) + 1);
+                bigger.putAll(newGraph);
+                newGraph = bigger;
+            }
+            nodes.ensureCapacity(total);
+            // the ids handed out above are exactly the ids these get
+            for (String name : created) {
+                createNode(name);
+            }
+        }
+        addEdges(srcIds, dstIds, weights, directed);
     }
 
     /**
-     * Perform a breadth-first search on the graph, starting at the node
-     * with the given name. The visit method of the {@link NodeVisitor} should
-     * be called on each node the first time we visit the node.
+     * Add many edges between existing nodes at once. The new edges of each
+     * node are counted and grouped first, so that every node grows its storage
+     * once and then gets all of its edges while it is in the cache.
      *
-     * @param startNodeName
-     * @param v
+     * @param src
+     * @param dst
+     * @param weights
+     * @param directed
      */
-    public void breadthFirstSearch(String startNodeName, NodeVisitor v) {
-        Set<INode> destination = new HashSet<INode>();  //throw new UnsupportedOperationException("Implement this method")
-        Queue<INode> toSearch = new Queue<INode>() {
-            public boolean add(INode iNode) {
-                return false;
-            }
-
-            @Override
-            public boolean offer(INode iNode) {
-                return false;
-            }
-
-            @Override
-            public INode remove() {
-                return null;
-            }
-
-            @Override
-            public INode poll() {
-                return null;
+    public void addEdges(int[] src, int[] dst, int[] weights, boolean directed) {
+        int count = checkEdgeArrays(src.length, dst.length, weights);
+        int n = nodes.size();
+        int[] added = new int[n];
+        for (int e = 0; e < count; e++) {
+            if (src[e] < 0 || src[e] >= n || dst[e] < 0 || dst[e] >= n) {
+                throw new IllegalArgumentException("No node with id " + (src[e] < 0 || src[e] >= n ? src[e] : dst[e]));
             }
-
-            @Override
-            public INode element() {
-                return null;
+            added[src[e]]++;
+            if (!directed) {
+                added[dst[e]]++;
             }
+        }
 
-            @Override
-            public INode peek() {
-                return null;
-            }
-
-            @Override
-            public int size() {
-                return 0;
-            }
-
-            @Override
-            public boolean isEmpty() {
-                return false;
-            }
-
-            @Override
-            public boolean contains(Object o) {
-                return false;
-            }
-
-            @Override
-            public Iterator<INode> iterator() {
-                return null;
-            }
-
-            @Override
-            public Object[] toArray() {
-                return new Object[0];
-            }
-
-            @Override
-            public <T> T[] toArray(T[] a) {
-                return null;
-            }
-
-            @Override
-            public boolean remove(Object o) {
-                return false;
-            }
-
-            @Override
-            public boolean containsAll(Collection<?> c) {
-                return false;
-            }
-
-            @Override
-            public boolean addAll(Collection<? extends INode> c) {
-                return false;
-            }
-
-            @Override
-            public boolean removeAll(Collection<?> c) {
-                return false;
-            }
-
-            @Override
-            public boolean retainAll(Collection<?> c) {
-                return false;
-            }
-
-            @Override
-            public void clear() {
-
+        // group the edges by the node they leave (keeping their order, so the
+        // last of several edges between the same nodes still wins), and fill
+        // each node in one go after sizing its storage
+        int[] start = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            start[u + 1] = start[u] + added[u];
+        }
+        int[] order = new int[start[n]];
+        for (int e = 0; e < count; e++) {
+            if (directed) {
+                order[start[src[e]]++] = e;
+            } else {
+                order[start[src[e]]++] = 2 * e;
+                order[start[dst[e]]++] = 2 * e + 1;
             }
-        };
-        toSearch.add(getOrCreateNode(startNodeName));
-        while (!toSearch.isEmpty()) {
-            INode mango = toSearch.remove();
-            if (destination.contains(mango)) {
+        }
+        int end = 0;
+        for (int u = 0; u < n; u++) {
+            int begin = end;
+            end = start[u];
+            if (begin == end) {
                 continue;
             }
-            v.visit((mango));
-            toSearch.add(mango);
-
-            newNeighbours = (Set<INode>) mango.getNeighbors();
-            Iterator<INode> iterator = newNeighbours.iterator();
-            for (INode node : newNeighbours) {
-                if (!destination.contains(mango)) {
-                    toSearch.add(mango);
-                }
+            INode node = nodes.get(u);
+            int capacity = node.getNeighbors().size() + added[u];
+            if (node instanceof ArrayNode) {
+                ((ArrayNode) node).ensureCapacity(capacity);
+            } else {
+                ((Node) node).ensureCapacity(capacity);
+            }
+            for (int i = begin; i < end; i++) {
+                // undirected: 2e is src[e] -> dst[e] and 2e+1 is the way back
+                int e = directed ? order[i] : order[i] >> 1;
+                int target = directed || (order[i] & 1) == 0 ? dst[e] : src[e];
+                node.addDirectedEdgeToNode(nodes.get(target), weights == null ? 1 : weights[e]);
             }
         }
-        throw new UnsupportedOperationException("Implement this method");
     }
 
     /**
-     * Perform a depth-first search on the graph, starting at the node
-     * with the given name. The visit method of the {@link NodeVisitor} should
-     * be called on each node the first time we visit the node.
-     *
-     * @param startNodeName
-     * @param v
+     * Return the id of the named node, or the id it will get once the names
+     * in created are added, in order, as new nodes.
      */
-    public void depthFirstSearch(String startNodeName, NodeVisitor v) {
-        Set<INode> destination = new HashSet<INode>();  //throw new UnsupportedOperationException("Implement this method")
-        Stack<INode> toSearch = new Stack<INode>();
-        toSearch.add(getOrCreateNode(startNodeName));
-        while (!toSearch.isEmpty()) {
-            INode mango = toSearch.pop();
-            if (destination.contains(mango)) {
-                continue;
-            }
-            v.visit((mango));
-            toSearch.add(mango);
-
-            newNeighbours = (Set<INode>) mango.getNeighbors();
-            for (INode node : newNeighbours) {
-                if (!destination.contains(mango)) {
-                    toSearch.push(mango);
-                }
+    private int idFor(String name, Map<String, Integer> ids, List<String> created) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            INode node = newGraph.get(name);
+            if (node != null) {
+                id = ((IndexedNode) node).getId();
+            } else {
+                id = nodes.size() + created.size();
+                created.add(name);
             }
+            ids.put(name, id);
         }
+        return id;
+    }
 
+    private static int checkEdgeArrays(int srcLength, int dstLength, int[] weights) {
+        if (srcLength != dstLength || (weights != null && weights.length != srcLength)) {
+            throw new IllegalArgumentException("src, dst and weights must have the same length");
+        }
+        return srcLength;
     }
 
     /**
-     * Perform Dijkstra's algorithm for computing the cost of the shortest path
-     * to every node in the graph starting at the node with the given name.
-     * Return a mapping from every node in the graph to the total minimum cost of reaching
-     * that node from the given start node.
-     *
-     * <b>Hint:</b> Creating a helper class called Path, which stores a destination
-     * (String) and a cost (Integer), and making it implement Comparable, can be
-     * helpful. Well, either than or repeated linear scans.
+     * Return a collection of all of the nodes in the graph, in order of their ids.
      *
-     * @param //startName
      * @return
      */
-
-    public FileSystem getFileSystem() {
-        return null;
-    }
-
-
-    public boolean isAbsolute() {
-        return false;
-    }
-
-
-    public Path getRoot() {
-        return null;
-    }
-
-
-    public Path getFileName() {
-        return null;
+    public Collection<INode> getAllNodes() {
+        return Collections.unmodifiableList(nodes);
     }
 
-
-    public Path getParent() {
-        return null;
+    /**
+     * Return the id of the given node.
+     *
+     * @param node
+     * @return
+     */
+    public int getId(INode node) {
+        if (node instanceof IndexedNode) {
+            int id = ((IndexedNode) node).getId();
+            if (id >= 0 && id < nodes.size() && nodes.get(id) == node) {
+                return id;
+            }
+        }
+        throw new IllegalArgumentException(node.getName() + " is not a node of this graph");
     }
 
-
-    public int getNameCount() {
-        return 0;
+    /**
+     * Return the node with the given id.
+     *
+     * @param id
+     * @return
+     */
+    public INode nodeById(int id) {
+        return nodes.get(id);
     }
 
-    public Path getName(int index) {
-        return null;
+    /**
+     * Return an immutable {@link CompactGraph} copy of this graph, where every
+     * node has the same id as in this graph.
+     *
+     * The copy is cached, and reused until a node or an edge of this
+     * graph is added, changed or removed.
+     *
+     * @return
+     */
+    public CompactGraph snapshot() {
+        if (snapshot == null) {
+            snapshot = CompactGraph.freeze(this);
+        }
+        return snapshot;
     }
 
-
-    public Path subpath(int beginIndex, int endIndex) {
-        return null;
+    /**
+     * Called by the nodes of this graph whenever one of their edges is
+     * removed or changed in a way that {@link #edgeAdded(INode, INode)}
+     * does not describe.
+     */
+    void edgesChanged() {
+        snapshot = null;
+        searches = null;
+        if (components != null) {
+            components.invalidate();
+        }
     }
 
-
-    public boolean startsWith(Path other) {
-        return false;
+    /**
+     * Called by the nodes of this graph when they add an edge, or change the
+     * weight of one.
+     */
+    void edgeAdded(INode src, INode dst) {
+        snapshot = null;
+        searches = null;
+        if (components != null) {
+            components.edgeAdded(getId(src), getId(dst));
+        }
     }
 
-
-    public boolean startsWith(String other) {
-        return false;
+    /**
+     * Return the connected components of this graph. The same object is
+     * returned every time, and it stays up to date as nodes and edges are
+     * added; see {@link UnionFindComponents}.
+     *
+     * @return
+     */
+    public ConnectedComponents connectedComponents() {
+        if (components == null) {
+            components = new UnionFindComponents(this);
+        }
+        return components;
     }
 
-
-    public boolean endsWith(Path other) {
-        return false;
+    /**
+     * Perform a breadth-first search on the graph, starting at the node
+     * with the given name. The visit method of the {@link NodeVisitor} should
+     * be called on each node the first time we visit the node.
+     *
+     * The search walks the edges of {@link #snapshot()}, which are already
+     * sorted by neighbor name, so repeated searches of an unchanged graph do
+     * no sorting and no string comparisons.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void breadthFirstSearch(String startNodeName, NodeVisitor v) {
+        int start = getId(requireNode(startNodeName));
+        IntAdjacency adj = snapshot();
+        BitSet seen = new BitSet(nodes.size());
+        int[] queue = new int[nodes.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        seen.set(start);
+        while (head < tail) {
+            int u = queue[head++];
+            v.visit(nodes.get(u));
+            int degree = adj.degree(u);
+            for (int i = 0; i < degree; i++) {
+                int id = adj.neighbor(u, i);
+                if (!seen.get(id)) {
+                    seen.set(id);
+                    queue[tail++] = id;
+                }
+            }
+        }
     }
 
-
-    public boolean endsWith(String other) {
-        return false;
+    /**
+     * Perform a breadth-first search from the node with the given name on the
+     * common {@link java.util.concurrent.ForkJoinPool}, returning the nodes at
+     * each hop count. See {@link ParallelBFS}. The search runs on
+     * {@link #snapshot()}.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public BreadthFirstLevels parallelBreadthFirstSearch(String startNodeName) {
+        return new ParallelBFS(this).search(startNodeName);
     }
 
-
-    public Path normalize() {
-        return null;
+    /**
+     * Perform a depth-first search on the graph, starting at the node
+     * with the given name. The visit method of the {@link NodeVisitor} should
+     * be called on each node the first time we visit the node.
+     *
+     * Like {@link #breadthFirstSearch(String, NodeVisitor)}, this walks the
+     * name-sorted edges of {@link #snapshot()}, with a {@link DepthFirstSearch}.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void depthFirstSearch(String startNodeName, NodeVisitor v) {
+        int start = getId(requireNode(startNodeName));
+        new DepthFirstSearch(this, snapshot()).search(start, v);
     }
 
-
-    public Path resolve(Path other) {
-        return null;
+    /**
+     * Depth-first search that records discovery and finish times and the
+     * DFS tree; see {@link DepthFirstSearch}.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public DepthFirstTree depthFirstTree(String startNodeName) {
+        return new DepthFirstSearch(this, snapshot()).search(getId(requireNode(startNodeName)));
     }
 
-
-    public Path resolve(String other) {
-        return null;
+    /**
+     * Return the rows that the lazy traversals walk: {@link #snapshot()} if
+     * it is cached, and otherwise the live edges, each row sorted by name
+     * only when it is expanded, so that a traversal that stops early does
+     * not freeze the whole graph.
+     */
+    private IntAdjacency traversalRows() {
+        return snapshot != null ? snapshot : new LiveRows();
     }
 
-
-    public Path resolveSibling(Path other) {
-        return null;
+    /**
+     * Breadth-first search that the visitor can prune or stop; see
+     * {@link Traversal}. Like the iterators, it visits neighbors in the
+     * same name order as {@link #snapshot()}, without building one.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void breadthFirstTraversal(String startNodeName, TraversalVisitor v) {
+        Traversal.walk(this, traversalRows(), getId(requireNode(startNodeName)), false, v);
     }
 
-
-    public Path resolveSibling(String other) {
-        return null;
+    /**
+     * Depth-first search that the visitor can prune or stop; see
+     * {@link Traversal}.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void depthFirstTraversal(String startNodeName, TraversalVisitor v) {
+        Traversal.walk(this, traversalRows(), getId(requireNode(startNodeName)), true, v);
     }
 
-
-    public Path relativize(Path other) {
-        return null;
+    /**
+     * Return a lazy iterator over the nodes in breadth-first order. Each
+     * call to {@link Iterator#next()} only sorts the edges of the node it
+     * expands, unless {@link #snapshot()} is already cached.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public Iterator<INode> breadthFirstIterator(String startNodeName) {
+        return new Traversal(this, traversalRows(), getId(requireNode(startNodeName)), false);
     }
 
-
-    public URI toUri() {
-        return null;
+    /**
+     * Return a lazy iterator over the nodes in depth-first order.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public Iterator<INode> depthFirstIterator(String startNodeName) {
+        return new Traversal(this, traversalRows(), getId(requireNode(startNodeName)), true);
     }
 
+    /**
+     * Perform Dijkstra's algorithm for computing the cost of the shortest path
+     * to every node in the graph starting at the node with the given name.
+     * Return a mapping from every node in the graph to the total minimum cost of reaching
+     * that node from the given start node.
+     *
+     * The frontier is an {@link IndexedHeap}, so every node is in the heap
+     * at most once and relaxing an edge is a decrease-key, not a new entry.
+     *
+     * @param startName
+     * @return
+     */
+    public Map<INode, Integer> dijkstra(String startName) {
+        int[] dist = new int[nodes.size()];
+        BitSet done = new BitSet(nodes.size());
+        IndexedHeap heap = new IndexedHeap(nodes.size());
+        heap.insert(getId(requireNode(startName)), 0);
+        while (!heap.isEmpty()) {
+            int d = heap.peekPriority();
+            int u = heap.poll();
+            dist[u] = d;
+            done.set(u);
+            INode node1 = nodes.get(u);
+            if (node1 instanceof ArrayNode) {
+                // index straight into the edge arrays; no iterator, no weight lookup
+                ArrayNode array = (ArrayNode) node1;
+                for (int i = 0; i < array.degree(); i++) {
+                    int w = getId(array.neighborAt(i));
+                    if (!done.get(w)) {
+                        heap.insertOrDecrease(w, d + array.weightAt(i));
+                    }
+                }
+                continue;
+            }
+            for (INode gelato : node1.getNeighbors()) {
+                int w = getId(gelato);
+                if (!done.get(w)) {
+                    heap.insertOrDecrease(w, d + node1.getWeight(gelato));
+                }
+            }
+        }
 
-    public Path toAbsolutePath() {
-        return null;
+        Map<INode, Integer> map = new HashMap<INode, Integer>();
+        for (int u = done.nextSetBit(0); u >= 0; u = done.nextSetBit(u + 1)) {
+            map.put(nodes.get(u), dist[u]);
+        }
+        return map;
     }
 
-
-    public Path toRealPath(LinkOption... options) throws IOException {
-        return null;
+    /**
+     * Perform Prim-Jarnik's algorithm to compute a Minimum Spanning Tree (MST).
+     * 
+     * The MST is itself a graph containing the same nodes and a subset of the edges 
+     * from the original graph. If the graph is not connected, the result is a
+     * minimum spanning forest.
+     * 
+     * @return
+     */
+    public IGraph primJarnik(){
+        Graph mst = new Graph(storage);
+        for (INode node : nodes) {
+            mst.getOrCreateNode(node.getName());
+        }
+        minimumSpanningForest().addEdgesTo(mst);
+        return mst;
     }
 
-    public File toFile() {
-        return null;
+    /**
+     * Compute a minimum spanning forest with the Prim-Jarnik algorithm on
+     * {@link #snapshot()}, and return just its edges. For a parallel version,
+     * see {@link MinimumSpanningTree#boruvka()}.
+     *
+     * @return
+     */
+    public SpanningForest minimumSpanningForest() {
+        return new MinimumSpanningTree(this, snapshot()).prim();
     }
 
-
-    public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) throws IOException {
-        return null;
+    /**
+     * Compute the distance matrix on {@link #snapshot()}, with blocked
+     * Floyd-Warshall or Dijkstra from every node depending on how dense the
+     * graph is; see {@link AllPairsShortestPaths}.
+     *
+     * @return
+     */
+    public DistanceMatrix allPairsShortestPaths() {
+        return new AllPairsShortestPaths(this).compute();
     }
 
-    public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events) throws IOException {
-        return null;
+    /**
+     * Return the cheapest path between the two named nodes, stopping as soon
+     * as the destination is reached. The search runs on {@link #snapshot()}.
+     *
+     * @param src
+     * @param dst
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst) {
+        return searches().shortestPath(src, dst);
     }
 
-    public Iterator<Path> iterator() {
-        return null;
+    private PathSearch.Cache searches() {
+        if (searches == null) {
+            searches = new PathSearch.Cache(this);
+        }
+        return searches;
     }
 
-
-    public void forEach(Consumer<? super Path> action) {
-
+    /**
+     * Return the cheapest path between the two named nodes, using the
+     * given search algorithm. The search runs on {@link #snapshot()}.
+     *
+     * @param src
+     * @param dst
+     * @param mode
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst, SearchMode mode) {
+        return searches().shortestPath(src, dst, mode);
     }
 
-
-    public Spliterator<Path> spliterator() {
-        return null;
+    /**
+     * Return the cheapest path between the two named nodes, using A* search
+     * guided by the given heuristic. The search runs on {@link #snapshot()}.
+     *
+     * @param src
+     * @param dst
+     * @param h
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst, Heuristic h) {
+        return searches().shortestPath(src, dst, h);
     }
 
-    public int compareTo(Path other) {
-        return 0;
+    private INode requireNode(String name) {
+        INode node = newGraph.get(name);
+        if (node == null) {
+            throw new IllegalArgumentException("No node named " + name);
+        }
+        return node;
     }
 
+    /**
+     * The edges of this graph as rows of ids sorted by neighbor name, the
+     * order of {@link #snapshot()}. Only the row asked for last is kept, so
+     * a traversal pays O(d log d) for each node it expands and nothing for
+     * the rest of the graph. Weights are not needed by the traversals.
+     * {@link #reverse()} falls back on the snapshot.
+     */
+    private class LiveRows implements IntAdjacency
+    {
+        private int rowOf = -1;
+        private int[] row = new int[16];
+        private int rowSize;
+        private INode[] sorted = new INode[16];
+
+        public int getNodeCount() {
+            return nodes.size();
+        }
 
-    public boolean equals(Object other) {
-        return false;
-    }
-
+        public int degree(int u) {
+            load(u);
+            return rowSize;
+        }
 
-    public int hashCode() {
-        return 0;
-    }
+        public int neighbor(int u, int i) {
+            load(u);
+            return row[i];
+        }
 
+        public int weight(int u, int i) {
+            load(u);
+            return nodes.get(u).getWeight(nodes.get(row[i]));
+        }
 
-    public Map<INode, Integer> dijkstra(String startName) {
+        public IntAdjacency reverse() {
+            // the edges into a node are spread over the rows of the others
+            return snapshot().reverse();
+        }
 
-        Map map = new HashMap<INode, Integer>();
-        PriorityQueue priorityQueue = new PriorityQueue();
-        priorityQueue.add(startName);
-        while (map.size() < newGraph.size()) {
-            Path next = (Path) priorityQueue.poll();
-            //retreiving the element
-            Path nextone = next.getFileName();
-            //getting and setting the element to a string so it can be represented.
-            String toString = nextone.toString();
-
-            INode node1 = getOrCreateNode(toString);
-            if (map.containsKey(node1)) {
-                continue;
+        private void load(int u) {
+            if (u == rowOf) {
+                return;
             }
-            int index = next.getNameCount();
-            map.put(node1, index);
-
-            newNeighbours = (Set<INode>) node1.getNeighbors();
-
-
-            for (INode gelato : newNeighbours)
-                priorityQueue.add(new jay(gelato.getName(), index + node1.getWeight(gelato)));
-
+            Collection<INode> neighbors = nodes.get(u).getNeighbors();
+            rowSize = neighbors.size();
+            if (rowSize > row.length) {
+                row = new int[rowSize];
+                sorted = new INode[rowSize];
+            }
+            int i = 0;
+            for (INode v : neighbors) {
+                sorted[i++] = v;
+            }
+            Arrays.sort(sorted, 0, rowSize, (a, b) -> a.getName().compareTo(b.getName()));
+            for (i = 0; i < rowSize; i++) {
+                row[i] = ((IndexedNode) sorted[i]).getId();
+                sorted[i] = null;
+            }
+            rowOf = u;
         }
-
-                return map;
-
-    }
-
-
-
-    /**
-     * Perform Prim-Jarnik's algorithm to compute a Minimum Spanning Tree (MST).
-     * 
-     * The MST is itself a graph containing the same nodes and a subset of the edges 
-     * from the original graph.
-     * 
-     * @return
-     */
-    public IGraph primJarnik(){
-        return null;
-        //throw new UnsupportedOperationException();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,259 @@
+package graph.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import graph.IGraph;
+
+/**
+ * Saves a graph to a binary file and loads it back as a {@link CompactGraph},
+ * without parsing any text.
+ *
+ * The file holds the CSR arrays of the graph and a dictionary of the node
+ * names, all little-endian:
+ * <pre>
+ * "CSRG"  int version  int n  int m  long nameBytes
+ * int offsets[n+1]  int targets[m]  int weights[m]
+ * int rank[n]  int byRank[n]  int nameOffsets[n+1]
+ * byte names[nameBytes]     (UTF-8, name of id i at nameOffsets[i])
+ * </pre>
+ * rank[i] is the alphabetical position of the name of node i and byRank is
+ * its inverse, so names can be looked up by binary search.
+ *
+ * Loading copies the three adjacency arrays into the heap with bulk reads, which
+ * is about as fast as the disk, but leaves the name dictionary memory-mapped:
+ * a name is only decoded into a String when someone asks for it, so no per-node
+ * object is created until a node is actually used.
+ */
+public class GraphSnapshot
+{
+    static final int MAGIC = ('C' << 24) | ('S' << 16) | ('R' << 8) | 'G';
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    // arrays are copied out of the file through mappings of at most this size
+    private static final int WINDOW = 1 << 30;
+
+    private GraphSnapshot() {
+        // private constructor to prevent creating instances
+        // this class exists only to hold static methods
+    }
+
+    /**
+     * Write the given graph to the given file, replacing it if it exists.
+     * A graph that is not a {@link CompactGraph} is frozen first.
+     *
+     * @param g
+     * @param file
+     * @throws IOException
+     */
+    public static void write(IGraph g, Path file) throws IOException {
+        CompactGraph cg = g instanceof CompactGraph ? (CompactGraph) g : CompactGraph.freeze(g);
+        NameTable names = cg.names();
+        int n = names.size();
+        int m = cg.getEdgeCount();
+
+        int[] rank = new int[n];
+        int[] byRank = new int[n];
+        int[] nameOffsets = new int[n + 1];
+        byte[][] encoded = new byte[n][];
+        long nameBytes = 0;
+        for (int i = 0; i < n; i++) {
+            rank[i] = names.rank(i);
+            byRank[rank[i]] = i;
+            encoded[i] = names.name(i).getBytes(StandardCharsets.UTF_8);
+            nameBytes += encoded[i].length;
+            if (nameBytes > Integer.MAX_VALUE) {
+                throw new IllegalStateException("node names take more than 2GB");
+            }
+            nameOffsets[i + 1] = (int) nameBytes;
+        }
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putLong(nameBytes);
+            putInts(out, buf, cg.offsets(), n + 1);
+            putInts(out, buf, cg.targets(), m);
+            putInts(out, buf, cg.weights(), m);
+            putInts(out, buf, rank, n);
+            putInts(out, buf, byRank, n);
+            putInts(out, buf, nameOffsets, n + 1);
+            for (byte[] name : encoded) {
+                if (buf.remaining() < name.length) {
+                    drain(out, buf);
+                }
+                if (name.length > buf.capacity()) {
+                    out.write(ByteBuffer.wrap(name));
+                } else {
+                    buf.put(name);
+                }
+            }
+            drain(out, buf);
+        }
+    }
+
+    /**
+     * Load a graph written by {@link #write(IGraph, Path)}.
+     *
+     * @param file
+     * @return
+     * @throws IOException if the file is not a snapshot, has a version this
+     *         class does not know, or is truncated
+     */
+    public static CompactGraph load(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("not a graph snapshot: " + file);
+            }
+            ByteBuffer header = map(in, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a graph snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported graph snapshot version " + version + ": " + file);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            long nameBytes = header.getLong();
+            if (n < 0 || m < 0 || nameBytes < 0 || nameBytes > Integer.MAX_VALUE) {
+                throw new IOException("corrupt graph snapshot: " + file);
+            }
+            long pos = HEADER_BYTES;
+            long expected = pos + 4L * (n + 1) * 2 + 4L * m * 2 + 4L * n * 2 + nameBytes;
+            if (size != expected) {
+                throw new IOException("truncated graph snapshot: " + file + " has " + size
+                        + " bytes, expected " + expected);
+            }
+
+            int[] offsets = getInts(in, pos, n + 1);
+            pos += 4L * (n + 1);
+            int[] targets = getInts(in, pos, m);
+            pos += 4L * m;
+            int[] weights = getInts(in, pos, m);
+            pos += 4L * m;
+
+            IntBuffer rank = mapInts(in, pos, n);
+            pos += 4L * n;
+            IntBuffer byRank = mapInts(in, pos, n);
+            pos += 4L * n;
+            IntBuffer nameOffsets = mapInts(in, pos, n + 1);
+            pos += 4L * (n + 1);
+            ByteBuffer names = map(in, pos, nameBytes);
+
+            // the mappings stay valid after the channel is closed
+            return new CompactGraph(new MappedNameTable(n, rank, byRank, nameOffsets, names),
+                    offsets, targets, weights);
+        }
+    }
+
+    private static void putInts(FileChannel out, ByteBuffer buf, int[] values, int count)
+            throws IOException {
+        int i = 0;
+        while (i < count) {
+            if (buf.remaining() < 4) {
+                drain(out, buf);
+            }
+            int len = Math.min(count - i, buf.remaining() / 4);
+            buf.asIntBuffer().put(values, i, len);
+            buf.position(buf.position() + len * 4);
+            i += len;
+        }
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    private static int[] getInts(FileChannel in, long pos, int count) throws IOException {
+        int[] values = new int[count];
+        int i = 0;
+        while (i < count) {
+            int len = Math.min(count - i, WINDOW / 4);
+            map(in, pos + 4L * i, 4L * len).asIntBuffer().get(values, i, len);
+            i += len;
+        }
+        return values;
+    }
+
+    private static IntBuffer mapInts(FileChannel in, long pos, int count) throws IOException {
+        if (4L * count > Integer.MAX_VALUE) {
+            throw new IOException("too many nodes to map: " + count);
+        }
+        return map(in, pos, 4L * count).asIntBuffer();
+    }
+
+    private static ByteBuffer map(FileChannel in, long pos, long len) throws IOException {
+        MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, pos, len);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        return buf;
+    }
+
+    /**
+     * Node names read straight out of the mapped dictionary of a snapshot.
+     * Only absolute reads are used, so the table is safe to share between threads.
+     */
+    private static class MappedNameTable extends NameTable
+    {
+        private final int size;
+        private final IntBuffer rank;
+        private final IntBuffer byRank;
+        private final IntBuffer nameOffsets;
+        private final ByteBuffer names;
+
+        MappedNameTable(int size, IntBuffer rank, IntBuffer byRank, IntBuffer nameOffsets, ByteBuffer names) {
+            this.size = size;
+            this.rank = rank;
+            this.byRank = byRank;
+            this.nameOffsets = nameOffsets;
+            this.names = names;
+        }
+
+        int size() {
+            return size;
+        }
+
+        String name(int id) {
+            int start = nameOffsets.get(id);
+            byte[] bytes = new byte[nameOffsets.get(id + 1) - start];
+            ByteBuffer at = names.duplicate();
+            at.position(start);
+            at.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int idOf(String name) {
+            int lo = 0;
+            int hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int id = byRank.get(mid);
+                int cmp = name(id).compareTo(name);
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else if (cmp > 0) {
+                    hi = mid - 1;
+                } else {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        int rank(int id) {
+            return rank.get(id);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package graph.impl;
+
+import java.awt.Point;
+import java.util.Map;
+
+import graph.Heuristic;
+import graph.IGraph;
+import graph.INode;
+
+/**
+ * Factory methods for common A* {@link Heuristic}s.
+ *
+ * Coordinates rarely use the same units as edge weights, so the geometric
+ * heuristics scale their distances by the smallest weight-per-unit-of-distance
+ * of any edge in the graph. That keeps them admissible and consistent, no matter
+ * what the weights mean.
+ *
+ * A geometric heuristic needs a position for every node. A node without one
+ * could only get an estimate of 0, and next to a neighbor with a large
+ * estimate that breaks consistency, so then the heuristic is {@link #zero()}.
+ */
+public class Heuristics
+{
+    // shave a hair off the scale so rounding can never overestimate
+    private static final double SAFETY = 1 - 1e-9;
+
+    private Heuristics() {
+        // private constructor to prevent creating instances
+        // this class exists only to hold static methods
+    }
+
+    /**
+     * The heuristic that always returns 0. A* with this heuristic is just Dijkstra.
+     *
+     * @return
+     */
+    public static Heuristic zero() {
+        return (node, target) -> 0;
+    }
+
+    /**
+     * Straight-line distance between the positions of two nodes, such as the
+     * pixel positions loaded by {@link SYSolver#readPositionPoints(String)}.
+     * If any node has no position, this is {@link #zero()}.
+     *
+     * @param g
+     * @param positions map from node name to position
+     * @return
+     */
+    public static Heuristic euclidean(IGraph g, Map<String, Point> positions) {
+        int n = g.getAllNodes().size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (INode node : g.getAllNodes()) {
+            Point p = positions.get(node.getName());
+            if (p == null) {
+                return zero();
+            }
+            int id = g.getId(node);
+            x[id] = p.getX();
+            y[id] = p.getY();
+        }
+        double scale = Double.POSITIVE_INFINITY;
+        for (INode u : g.getAllNodes()) {
+            int a = g.getId(u);
+            for (INode v : u.getNeighbors()) {
+                int b = g.getId(v);
+                double length = Math.hypot(x[a] - x[b], y[a] - y[b]);
+                if (length > 0) {
+                    scale = Math.min(scale, u.getWeight(v) / length);
+                }
+            }
+        }
+        if (scale == Double.POSITIVE_INFINITY) {
+            return zero();
+        }
+        final double factor = Math.max(0, scale) * SAFETY;
+        return (node, target) -> (int) (factor * Math.hypot(x[node] - x[target], y[node] - y[target]));
+    }
+
+    /**
+     * Manhattan distance for grid graphs like the ones made by
+     * {@link graph.GridGraph#makeGridGraph(int, int)}, whose nodes are named
+     * r<i>row</i>c<i>col</i>. If any node has another name, this is {@link #zero()}.
+     * An {@link ImplicitGridGraph} gets its rows and columns straight from the ids.
+     *
+     * @param g
+     * @return
+     */
+    public static Heuristic manhattan(IGraph g) {
+        if (g instanceof ImplicitGridGraph) {
+            return manhattan((ImplicitGridGraph) g);
+        }
+        int n = g.getAllNodes().size();
+        int[] row = new int[n];
+        int[] col = new int[n];
+        for (INode node : g.getAllNodes()) {
+            String name = node.getName();
+            int c = name.indexOf('c');
+            if (!name.startsWith("r") || c <= 1) {
+                return zero();
+            }
+            try {
+                int id = g.getId(node);
+                row[id] = Integer.parseInt(name.substring(1, c));
+                col[id] = Integer.parseInt(name.substring(c + 1));
+            } catch (NumberFormatException e) {
+                // not a grid node
+                return zero();
+            }
+        }
+        double scale = Double.POSITIVE_INFINITY;
+        for (INode u : g.getAllNodes()) {
+            int a = g.getId(u);
+            for (INode v : u.getNeighbors()) {
+                int b = g.getId(v);
+                int length = Math.abs(row[a] - row[b]) + Math.abs(col[a] - col[b]);
+                if (length > 0) {
+                    scale = Math.min(scale, u.getWeight(v) / (double) length);
+                }
+            }
+        }
+        if (scale == Double.POSITIVE_INFINITY) {
+            return zero();
+        }
+        final double factor = Math.max(0, scale) * SAFETY;
+        return (node, target) -> (int) (factor * (Math.abs(row[node] - row[target])
+                + Math.abs(col[node] - col[target])));
+    }
+
+    /**
+     * Manhattan distance on an {@link ImplicitGridGraph}, computed from the ids
+     * without looking at any names. A diagonal step covers a Manhattan distance
+     * of 2, so on a grid with diagonals the scale is at most half the diagonal weight.
+     */
+    private static Heuristic manhattan(ImplicitGridGraph grid) {
+        double scale = grid.getStraightWeight();
+        if (grid.getConnectivity() == ImplicitGridGraph.Connectivity.EIGHT) {
+            scale = Math.min(scale, grid.getDiagonalWeight() / 2.0);
+        }
+        final double factor = Math.max(0, scale) * SAFETY;
+        return (node, target) -> (int) (factor * (Math.abs(grid.row(node) - grid.row(target))
+                + Math.abs(grid.col(node) - grid.col(target))));
+    }
+}
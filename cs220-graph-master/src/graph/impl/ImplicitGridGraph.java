@@ -0,0 +1,639 @@
+package graph.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import graph.BreadthFirstLevels;
+import graph.ConnectedComponents;
+import graph.DepthFirstTree;
+import graph.DistanceMatrix;
+import graph.Heuristic;
+import graph.IGraph;
+import graph.INode;
+import graph.NodeVisitor;
+import graph.SearchMode;
+import graph.ShortestPath;
+import graph.SpanningForest;
+import graph.TraversalControl;
+import graph.TraversalVisitor;
+
+/**
+ * An immutable grid graph that stores no nodes and no edges at all.
+ *
+ * The node in row <i>r</i> and column <i>c</i> has id <code>r * cols + c</code>
+ * and is named r<i>r</i>c<i>c</i>, like the nodes made by
+ * {@link graph.GridGraph#makeGridGraph(int, int)}. Its neighbors are worked out
+ * from the row and column whenever they are asked for, and names are only
+ * built when a node's name is asked for, so a grid of millions of cells costs
+ * a few bytes.
+ *
+ * Each node is connected to the nodes above, below, left and right of it,
+ * and with {@link Connectivity#EIGHT} also to its four diagonal neighbors.
+ * Straight and diagonal edges each have their own weight, which is the same in
+ * both directions. Neighbors are listed in alphabetical order of their names,
+ * as in {@link Graph} and {@link CompactGraph}, so searches visit the cells in
+ * the same order as on a grid made by {@link graph.GridGraph#makeGridGraph(int, int)}.
+ *
+ * Nodes returned by this graph are lightweight views that are created on demand,
+ * so compare them with equals() rather than ==.
+ */
+public class ImplicitGridGraph implements IGraph, IntAdjacency
+{
+    /**
+     * Which cells around a cell it has edges to.
+     */
+    public enum Connectivity {
+        /** Up, down, left and right. */
+        FOUR,
+        /** Up, down, left, right and the four diagonals. */
+        EIGHT
+    }
+
+    // row and column offsets of the neighbors
+    private static final int[] FOUR_DR = { -1, 0, 0, 1 };
+    private static final int[] FOUR_DC = { 0, -1, 1, 0 };
+    private static final int[] EIGHT_DR = { -1, -1, -1, 0, 0, 1, 1, 1 };
+    private static final int[] EIGHT_DC = { -1, 0, 1, -1, 1, -1, 0, 1 };
+    // the sides of the grid that a cell is on, as bits
+    private static final int TOP = 1;
+    private static final int BOTTOM = 2;
+    private static final int LEFT = 4;
+    private static final int RIGHT = 8;
+    // the order by name of the steps -1, 0 and +1 from a row or column x:
+    // plain, when x is 10, 100, ... ("10" < "11" < "9"), and when x+1 is ("10" < "8" < "9")
+    private static final int[][] NAME_ORDER = { { -1, 0, 1 }, { 0, 1, -1 }, { 1, -1, 0 } };
+
+    private final int rows;
+    private final int cols;
+    private final Connectivity connectivity;
+    private final int straightWeight;
+    private final int diagonalWeight;
+    private final int[] dr;
+    private final int[] dc;
+    // for each kind of cell (see kind()), the directions that stay inside the
+    // grid, in order of the names they lead to, so the i-th edge is one lookup
+    private final int[][] directions = new int[1 << 8][];
+    // change of id and weight of a step in each direction
+    private final int[] stepId;
+    private final int[] stepWeight;
+    private final PathSearch.Cache searches = new PathSearch.Cache(this);
+
+    /**
+     * Create a grid where every edge has a weight of 1.
+     *
+     * @param rows
+     * @param cols
+     * @param connectivity
+     */
+    public ImplicitGridGraph(int rows, int cols, Connectivity connectivity) {
+        this(rows, cols, connectivity, 1, 1);
+    }
+
+    /**
+     * Create a grid with the given edge weights. For example, weights of 10
+     * and 14 make path costs approximate 10 times the Euclidean distance.
+     *
+     * @param rows
+     * @param cols
+     * @param connectivity
+     * @param straightWeight weight of the edges up, down, left and right
+     * @param diagonalWeight weight of the diagonal edges; ignored for {@link Connectivity#FOUR}
+     */
+    public ImplicitGridGraph(int rows, int cols, Connectivity connectivity, int straightWeight, int diagonalWeight) {
+        if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bad grid size " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.connectivity = connectivity;
+        this.straightWeight = straightWeight;
+        this.diagonalWeight = diagonalWeight;
+        this.dr = connectivity == Connectivity.FOUR ? FOUR_DR : EIGHT_DR;
+        this.dc = connectivity == Connectivity.FOUR ? FOUR_DC : EIGHT_DC;
+        this.stepId = new int[dr.length];
+        this.stepWeight = new int[dr.length];
+        for (int k = 0; k < dr.length; k++) {
+            stepId[k] = dr[k] * cols + dc[k];
+            stepWeight[k] = dr[k] != 0 && dc[k] != 0 ? diagonalWeight : straightWeight;
+        }
+        for (int kind = 0; kind < directions.length; kind++) {
+            int[] rowOrder = NAME_ORDER[Math.min(2, (kind >> 4) & 3)];
+            int[] colOrder = NAME_ORDER[Math.min(2, (kind >> 6) & 3)];
+            int[] inside = new int[dr.length];
+            int count = 0;
+            // rows decide the order of names before columns do
+            for (int r : rowOrder) {
+                for (int c : colOrder) {
+                    boolean out = (r < 0 && (kind & TOP) != 0) || (r > 0 && (kind & BOTTOM) != 0)
+                            || (c < 0 && (kind & LEFT) != 0) || (c > 0 && (kind & RIGHT) != 0);
+                    int k = direction(r, c);
+                    if (!out && k >= 0) {
+                        inside[count++] = k;
+                    }
+                }
+            }
+            directions[kind] = Arrays.copyOf(inside, count);
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    public int getStraightWeight() {
+        return straightWeight;
+    }
+
+    public int getDiagonalWeight() {
+        return diagonalWeight;
+    }
+
+    /**
+     * Return the row of the node with the given id.
+     *
+     * @param id
+     * @return
+     */
+    public int row(int id) {
+        return id / cols;
+    }
+
+    /**
+     * Return the column of the node with the given id.
+     *
+     * @param id
+     * @return
+     */
+    public int col(int id) {
+        return id % cols;
+    }
+
+    /**
+     * Return the id of the node in the given row and column.
+     *
+     * @param row
+     * @param col
+     * @return
+     */
+    public int idOf(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("no cell r" + row + "c" + col);
+        }
+        return row * cols + col;
+    }
+
+    /**
+     * Return the name of the node with the given id.
+     *
+     * @param id
+     * @return
+     */
+    public String nameOf(int id) {
+        return "r" + row(id) + "c" + col(id);
+    }
+
+    public int getNodeCount() {
+        return rows * cols;
+    }
+
+    public int degree(int u) {
+        return directions[kind(u)].length;
+    }
+
+    public int neighbor(int u, int i) {
+        return u + stepId[directions[kind(u)][i]];
+    }
+
+    public int weight(int u, int i) {
+        return stepWeight[directions[kind(u)][i]];
+    }
+
+    /**
+     * Every edge has a twin going the other way with the same weight.
+     */
+    public IntAdjacency reverse() {
+        return this;
+    }
+
+    /**
+     * Return what the neighbors of the cell u depend on: the sides of the
+     * grid it is on, as TOP, BOTTOM, LEFT and RIGHT bits (a grid of one row
+     * has cells on both TOP and BOTTOM), and the {@link #NAME_ORDER} of its
+     * row and of its column, in two bits each.
+     */
+    private int kind(int u) {
+        int r = u / cols;
+        int c = u - r * cols;
+        return (r == 0 ? TOP : 0) | (r == rows - 1 ? BOTTOM : 0)
+                | (c == 0 ? LEFT : 0) | (c == cols - 1 ? RIGHT : 0)
+                | nameOrder(r) << 4 | nameOrder(c) << 6;
+    }
+
+    /**
+     * Return the index into {@link #NAME_ORDER} for the numbers x-1, x and
+     * x+1. Their names are in numeric order unless one of them has more
+     * digits than the others.
+     */
+    private static int nameOrder(int x) {
+        int last = x % 10;
+        if (last == 0 && x >= 10 && isPowerOfTen(x)) {
+            return 1;
+        }
+        if (last == 9 && isPowerOfTen(x + 1)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private static boolean isPowerOfTen(int x) {
+        while (x % 10 == 0) {
+            x /= 10;
+        }
+        return x == 1;
+    }
+
+    /**
+     * Return the index into dr and dc of the step (r, c), or -1 if this grid
+     * has no such edge.
+     */
+    private int direction(int r, int c) {
+        for (int k = 0; k < dr.length; k++) {
+            if (dr[k] == r && dc[k] == c) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse a name like r12c7 into an id, or return -1 if it is not the name of a cell.
+     */
+    private int parseName(String name) {
+        int c = name.indexOf('c');
+        if (!name.startsWith("r") || c < 2 || c == name.length() - 1) {
+            return -1;
+        }
+        int row = parseDigits(name, 1, c);
+        int col = parseDigits(name, c + 1, name.length());
+        if (row < 0 || col < 0 || row >= rows || col >= cols) {
+            return -1;
+        }
+        return row * cols + col;
+    }
+
+    private static int parseDigits(String s, int start, int end) {
+        // reject leading zeros, which would give a second name to the same cell
+        if (end - start > 10 || (s.charAt(start) == '0' && end - start > 1)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            value = value * 10 + (ch - '0');
+        }
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    private int requireId(String name) {
+        int id = parseName(name);
+        if (id < 0) {
+            throw new IllegalArgumentException("No node named " + name);
+        }
+        return id;
+    }
+
+    public INode getOrCreateNode(String name) {
+        int id = parseName(name);
+        if (id < 0) {
+            throw new UnsupportedOperationException("ImplicitGridGraph is immutable; cannot create node " + name);
+        }
+        return new GridNode(id);
+    }
+
+    public boolean containsNode(String name) {
+        return parseName(name) >= 0;
+    }
+
+    public void addEdges(String[] src, String[] dst, int[] weights, boolean directed) {
+        throw new UnsupportedOperationException("ImplicitGridGraph is immutable");
+    }
+
+    public void addEdges(int[] src, int[] dst, int[] weights, boolean directed) {
+        throw new UnsupportedOperationException("ImplicitGridGraph is immutable");
+    }
+
+    public Collection<INode> getAllNodes() {
+        return new AbstractList<INode>() {
+            @Override
+            public INode get(int index) {
+                return nodeById(index);
+            }
+
+            @Override
+            public int size() {
+                return getNodeCount();
+            }
+        };
+    }
+
+    public int getId(INode node) {
+        if (node instanceof GridNode && ((GridNode) node).graph() == this) {
+            return ((GridNode) node).id;
+        }
+        throw new IllegalArgumentException(node.getName() + " is not a node of this graph");
+    }
+
+    public INode nodeById(int id) {
+        if (id < 0 || id >= getNodeCount()) {
+            throw new IndexOutOfBoundsException("id " + id);
+        }
+        return new GridNode(id);
+    }
+
+    /**
+     * Perform a breadth-first search starting at the node with the given name,
+     * visiting neighbors in order of their names.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void breadthFirstSearch(String startNodeName, NodeVisitor v) {
+        Traversal.walk(this, this, requireId(startNodeName), false, visitAll(v));
+    }
+
+    /**
+     * Perform a breadth-first search from the node with the given name on the
+     * common {@link java.util.concurrent.ForkJoinPool}. See {@link ParallelBFS}.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public BreadthFirstLevels parallelBreadthFirstSearch(String startNodeName) {
+        return new ParallelBFS(this).search(startNodeName);
+    }
+
+    /**
+     * Return the connected components of the grid, which has only one, so
+     * no labeling is needed.
+     *
+     * @return
+     */
+    public ConnectedComponents connectedComponents() {
+        return new ConnectedComponents() {
+            public int getComponentCount() {
+                return getNodeCount() > 0 ? 1 : 0;
+            }
+
+            public boolean sameComponent(INode a, INode b) {
+                getId(a);
+                getId(b);
+                return true;
+            }
+
+            public int getComponentSize(INode node) {
+                getId(node);
+                return getNodeCount();
+            }
+
+            public int getComponent(INode node) {
+                getId(node);
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * Perform a depth-first search starting at the node with the given name,
+     * visiting neighbors in order of their names.
+     *
+     * @param startNodeName
+     * @param v
+     */
+    public void depthFirstSearch(String startNodeName, NodeVisitor v) {
+        new DepthFirstSearch(this).search(requireId(startNodeName), v);
+    }
+
+    public DepthFirstTree depthFirstTree(String startNodeName) {
+        return new DepthFirstSearch(this).search(requireId(startNodeName));
+    }
+
+    private static TraversalVisitor visitAll(NodeVisitor v) {
+        return node -> {
+            v.visit(node);
+            return TraversalControl.CONTINUE;
+        };
+    }
+
+    public void breadthFirstTraversal(String startNodeName, TraversalVisitor v) {
+        Traversal.walk(this, this, requireId(startNodeName), false, v);
+    }
+
+    public void depthFirstTraversal(String startNodeName, TraversalVisitor v) {
+        Traversal.walk(this, this, requireId(startNodeName), true, v);
+    }
+
+    public Iterator<INode> breadthFirstIterator(String startNodeName) {
+        return new Traversal(this, this, requireId(startNodeName), false);
+    }
+
+    public Iterator<INode> depthFirstIterator(String startNodeName) {
+        return new Traversal(this, this, requireId(startNodeName), true);
+    }
+
+    /**
+     * Perform Dijkstra's algorithm starting at the node with the given name.
+     * Return a mapping from every reachable node to the minimum cost of reaching it.
+     *
+     * @param startName
+     * @return
+     */
+    public Map<INode, Integer> dijkstra(String startName) {
+        int n = getNodeCount();
+        int[] dist = new int[n];
+        boolean[] done = new boolean[n];
+        IndexedHeap heap = new IndexedHeap(n);
+        heap.insert(requireId(startName), 0);
+        while (!heap.isEmpty()) {
+            int d = heap.peekPriority();
+            int u = heap.poll();
+            dist[u] = d;
+            done[u] = true;
+            int degree = degree(u);
+            for (int i = 0; i < degree; i++) {
+                int w = neighbor(u, i);
+                if (!done[w]) {
+                    heap.insertOrDecrease(w, d + weight(u, i));
+                }
+            }
+        }
+        Map<INode, Integer> result = new HashMap<INode, Integer>();
+        for (int u = 0; u < n; u++) {
+            if (done[u]) {
+                result.put(new GridNode(u), dist[u]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute a minimum spanning tree with Prim-Jarnik's algorithm. The result
+     * is an immutable {@link CompactGraph} containing every node of this grid.
+     *
+     * @return
+     */
+    public IGraph primJarnik() {
+        CompactGraph.Builder mst = new CompactGraph.Builder();
+        for (int u = 0; u < getNodeCount(); u++) {
+            mst.addNode(nameOf(u));
+        }
+        SpanningForest forest = minimumSpanningForest();
+        for (int e = 0; e < forest.getEdgeCount(); e++) {
+            mst.addUndirectedEdge(nameOf(forest.getSource(e)), nameOf(forest.getTarget(e)), forest.getWeight(e));
+        }
+        return mst.build();
+    }
+
+    public SpanningForest minimumSpanningForest() {
+        return new MinimumSpanningTree(this).prim();
+    }
+
+    public DistanceMatrix allPairsShortestPaths() {
+        return new AllPairsShortestPaths(this).compute();
+    }
+
+    public ShortestPath shortestPath(String src, String dst) {
+        return searches.shortestPath(src, dst);
+    }
+
+    public ShortestPath shortestPath(String src, String dst, SearchMode mode) {
+        return searches.shortestPath(src, dst, mode);
+    }
+
+    public ShortestPath shortestPath(String src, String dst, Heuristic h) {
+        return searches.shortestPath(src, dst, h);
+    }
+
+    /**
+     * Lightweight view of a single cell of an {@link ImplicitGridGraph}.
+     */
+    private class GridNode implements INode
+    {
+        private final int id;
+
+        GridNode(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return nameOf(id);
+        }
+
+        public Collection<INode> getNeighbors() {
+            final int degree = degree(id);
+            return new AbstractList<INode>() {
+                @Override
+                public INode get(int index) {
+                    if (index < 0 || index >= degree) {
+                        throw new IndexOutOfBoundsException("index " + index);
+                    }
+                    return new GridNode(neighbor(id, index));
+                }
+
+                @Override
+                public int size() {
+                    return degree;
+                }
+            };
+        }
+
+        public void addDirectedEdgeToNode(INode neighbor, int weight) {
+            throw new UnsupportedOperationException("ImplicitGridGraph is immutable");
+        }
+
+        public void addUndirectedEdgeToNode(INode neighbor, int weight) {
+            throw new UnsupportedOperationException("ImplicitGridGraph is immutable");
+        }
+
+        public void removeDirectedEdgeToNode(INode neighbor) {
+            throw new UnsupportedOperationException("ImplicitGridGraph is immutable");
+        }
+
+        public void removeUndirectedEdgeToNode(INode neighbor) {
+            throw new UnsupportedOperationException("ImplicitGridGraph is immutable");
+        }
+
+        public boolean hasEdge(INode node) {
+            return edgeWeight(node) > Integer.MIN_VALUE;
+        }
+
+        public int getWeight(INode node) {
+            int weight = edgeWeight(node);
+            if (weight == Integer.MIN_VALUE) {
+                throw new IllegalStateException("No edge from " + getName() + " to " + node.getName());
+            }
+            return weight;
+        }
+
+        /**
+         * Return the weight of the edge to the given node, or Integer.MIN_VALUE if there is none.
+         */
+        private int edgeWeight(INode node) {
+            int other;
+            if (node instanceof GridNode && ((GridNode) node).graph() == graph()) {
+                other = ((GridNode) node).id;
+            } else {
+                other = parseName(node.getName());
+                if (other < 0) {
+                    return Integer.MIN_VALUE;
+                }
+            }
+            int rowStep = row(other) - row(id);
+            int colStep = col(other) - col(id);
+            if (Math.abs(rowStep) > 1 || Math.abs(colStep) > 1 || (rowStep == 0 && colStep == 0)) {
+                return Integer.MIN_VALUE;
+            }
+            if (rowStep != 0 && colStep != 0) {
+                return connectivity == Connectivity.EIGHT ? diagonalWeight : Integer.MIN_VALUE;
+            }
+            return straightWeight;
+        }
+
+        private ImplicitGridGraph graph() {
+            return ImplicitGridGraph.this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GridNode)) {
+                return false;
+            }
+            GridNode other = (GridNode) o;
+            return other.id == id && other.graph() == graph();
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+}
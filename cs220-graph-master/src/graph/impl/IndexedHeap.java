@@ -0,0 +1,229 @@
+package graph.impl;
+
+import java.util.Arrays;
+
+/**
+ * A d-ary min-heap of int ids (0 up to capacity-1), each with an int priority.
+ *
+ * Unlike {@link java.util.PriorityQueue}, the heap knows where every id
+ * is stored, so it supports a real {@link #decreaseKey(int, int)}. That means
+ * Dijkstra and Prim-Jarnik never hold more than one entry per node (the heap
+ * is O(V) instead of O(E)), and nothing is allocated per relaxation.
+ *
+ * A larger arity makes the heap shallower, so decreaseKey is cheaper and
+ * poll is a little more expensive; 4 is a good default for graph searches.
+ *
+ * A heap can be reused for many searches by calling {@link #clear()}.
+ */
+public class IndexedHeap
+{
+    public static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    // ids and their priorities, in heap order
+    private final int[] heap;
+    private final int[] priorities;
+    // position of each id in the heap, or -1 if the id is not in the heap
+    private final int[] position;
+    private int size;
+
+    /**
+     * Create an empty heap for ids 0 to capacity-1, using the default arity.
+     *
+     * @param capacity
+     */
+    public IndexedHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Create an empty heap for ids 0 to capacity-1 where every entry
+     * has up to arity children.
+     *
+     * @param capacity
+     * @param arity
+     */
+    public IndexedHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be at least 2, not " + arity);
+        }
+        this.arity = arity;
+        heap = new int[capacity];
+        priorities = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int capacity() {
+        return position.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    /**
+     * Return the priority of the given id, which must be in the heap.
+     *
+     * @param id
+     * @return
+     */
+    public int priorityOf(int id) {
+        int pos = position[id];
+        if (pos < 0) {
+            throw new IllegalStateException(id + " is not in the heap");
+        }
+        return priorities[pos];
+    }
+
+    /**
+     * Add the given id, which must not already be in the heap.
+     *
+     * @param id
+     * @param priority
+     */
+    public void insert(int id, int priority) {
+        if (position[id] >= 0) {
+            throw new IllegalStateException(id + " is already in the heap");
+        }
+        siftUp(size++, id, priority);
+    }
+
+    /**
+     * Lower the priority of the given id, which must be in the heap.
+     *
+     * @param id
+     * @param priority
+     */
+    public void decreaseKey(int id, int priority) {
+        int pos = position[id];
+        if (pos < 0) {
+            throw new IllegalStateException(id + " is not in the heap");
+        }
+        if (priority > priorities[pos]) {
+            throw new IllegalArgumentException("cannot increase the priority of " + id);
+        }
+        siftUp(pos, id, priority);
+    }
+
+    /**
+     * Insert the given id, or lower its priority if it is already in the heap
+     * with a higher priority. Return true if the heap changed.
+     *
+     * @param id
+     * @param priority
+     * @return
+     */
+    public boolean insertOrDecrease(int id, int priority) {
+        int pos = position[id];
+        if (pos < 0) {
+            siftUp(size++, id, priority);
+            return true;
+        }
+        if (priority < priorities[pos]) {
+            siftUp(pos, id, priority);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Return the id with the smallest priority without removing it.
+     *
+     * @return
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Return the smallest priority in the heap.
+     *
+     * @return
+     */
+    public int peekPriority() {
+        if (size == 0) {
+            throw new IllegalStateException("heap is empty");
+        }
+        return priorities[0];
+    }
+
+    /**
+     * Remove and return the id with the smallest priority.
+     *
+     * @return
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new IllegalStateException("heap is empty");
+        }
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, heap[size], priorities[size]);
+        }
+        return min;
+    }
+
+    /**
+     * Remove everything from the heap, in time proportional to its size.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int pos, int id, int priority) {
+        while (pos > 0) {
+            int parent = (pos - 1) / arity;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            move(heap[parent], priorities[parent], pos);
+            pos = parent;
+        }
+        move(id, priority, pos);
+    }
+
+    private void siftDown(int pos, int id, int priority) {
+        while (true) {
+            int first = pos * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int best = first;
+            for (int c = first + 1; c < last; c++) {
+                if (priorities[c] < priorities[best]) {
+                    best = c;
+                }
+            }
+            if (priority <= priorities[best]) {
+                break;
+            }
+            move(heap[best], priorities[best], pos);
+            pos = best;
+        }
+        move(id, priority, pos);
+    }
+
+    private void move(int id, int priority, int pos) {
+        heap[pos] = id;
+        priorities[pos] = priority;
+        position[id] = pos;
+    }
+}
@@ -0,0 +1,13 @@
+package graph.impl;
+
+import graph.INode;
+
+/**
+ * A node that knows its own dense integer id within the graph that created it.
+ * 
+ * Nodes created outside of a graph have an id of -1.
+ */
+interface IndexedNode extends INode
+{
+    int getId();
+}
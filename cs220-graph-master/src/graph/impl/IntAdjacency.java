@@ -0,0 +1,40 @@
+package graph.impl;
+
+import graph.IGraph;
+
+/**
+ * Read-only view of a graph as dense int ids, for the search engines in this
+ * package. The edges of node <i>u</i> are numbered 0 to degree(u)-1.
+ *
+ * The ids are the same ones returned by {@link IGraph#getId(graph.INode)} on
+ * the graph the view came from, so results can be mapped back with
+ * {@link IGraph#nodeById(int)}.
+ */
+interface IntAdjacency
+{
+    int getNodeCount();
+
+    int degree(int u);
+
+    int neighbor(int u, int i);
+
+    int weight(int u, int i);
+
+    /**
+     * Return the same nodes with every edge reversed.
+     */
+    IntAdjacency reverse();
+
+    /**
+     * Return an int view of the given graph.
+     */
+    static IntAdjacency of(IGraph g) {
+        if (g instanceof IntAdjacency) {
+            return (IntAdjacency) g;
+        }
+        if (g instanceof Graph) {
+            return ((Graph) g).snapshot();
+        }
+        return CompactGraph.freeze(g);
+    }
+}
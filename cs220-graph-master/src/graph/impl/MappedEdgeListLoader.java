@@ -0,0 +1,250 @@
+package graph.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a large undirected edge list file (one <code>src dst [weight]</code>
+ * per line) into a {@link CompactGraph}, using every core.
+ *
+ * The file is memory-mapped and split into chunks at line boundaries, and
+ * the chunks are parsed at the same time with a {@link ByteTokenizer} each.
+ * Names are given ids through a shared {@link ConcurrentHashMap}, and each
+ * chunk collects its edges in plain int arrays. At the end the ids are
+ * renumbered into alphabetical order (so the result does not depend on which
+ * chunk saw a name first) and the edges are handed straight to the CSR
+ * construction, without ever creating a {@link Graph} or a node object.
+ *
+ * A chunk is mapped on its own, so files larger than 2GB are fine.
+ */
+public class MappedEdgeListLoader
+{
+    // chunks are at most this big, since a single mapping is limited to 2GB
+    static final long MAX_CHUNK = 1L << 30;
+    static final long MIN_CHUNK = 1L << 20;
+
+    private MappedEdgeListLoader() {
+        // private constructor to prevent creating instances
+        // this class exists only to hold static methods
+    }
+
+    /**
+     * Load the given file on the common pool.
+     *
+     * @param file
+     * @param weighted true if every line ends with an int weight; otherwise
+     *        every edge gets a weight of 1
+     * @return
+     * @throws IOException
+     */
+    public static CompactGraph load(Path file, boolean weighted) throws IOException {
+        return load(file, weighted, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Load the given file, parsing on the given pool.
+     *
+     * @param file
+     * @param weighted
+     * @param pool
+     * @return
+     * @throws IOException
+     */
+    public static CompactGraph load(Path file, boolean weighted, ForkJoinPool pool) throws IOException {
+        AtomicInteger nextId = new AtomicInteger();
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        // the map starts small and grows with the names: the file size says
+        // little about how many distinct names there are, and threads that
+        // find the table resizing help move its entries rather than wait
+        ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = lineBoundaries(channel, pool.getParallelism());
+            List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                ConcurrentHashMap<String, Integer> names = ids;
+                tasks.add(() -> parse(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start),
+                        weighted, names, nextId));
+            }
+            for (Future<Chunk> future : pool.invokeAll(tasks)) {
+                chunks.add(join(future));
+            }
+        }
+
+        // renumber the ids alphabetically
+        int n = nextId.get();
+        String[] names = new String[n];
+        ids.forEach((name, id) -> names[id] = name);
+        // sorted on the caller's pool, which parallelSort uses when run in it
+        pool.submit(() -> Arrays.parallelSort(names)).join();
+        int[] newId = new int[n];
+        for (int i = 0; i < n; i++) {
+            newId[ids.get(names[i])] = i;
+        }
+        ids.replaceAll((name, id) -> newId[id]);
+
+        // every line is an edge in both directions, kept in file order so the
+        // last of several duplicate lines wins, as in the sequential loaders
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.size;
+        }
+        if (total > Integer.MAX_VALUE / 2) {
+            throw new IllegalStateException("too many edges: " + total);
+        }
+        int lines = (int) total;
+        int[] src = new int[lines * 2];
+        int[] dst = new int[lines * 2];
+        int[] wt = new int[lines * 2];
+        int offset = 0;
+        List<Callable<Void>> copies = new ArrayList<Callable<Void>>();
+        for (Chunk chunk : chunks) {
+            int base = offset;
+            copies.add(() -> {
+                for (int i = 0; i < chunk.size; i++) {
+                    int e = (base + i) * 2;
+                    int s = newId[chunk.src[i]];
+                    int d = newId[chunk.dst[i]];
+                    src[e] = s;
+                    dst[e] = d;
+                    src[e + 1] = d;
+                    dst[e + 1] = s;
+                    wt[e] = wt[e + 1] = chunk.wt[i];
+                }
+                return null;
+            });
+            offset += chunk.size;
+        }
+        for (Future<Void> future : pool.invokeAll(copies)) {
+            join(future);
+        }
+        return CompactGraph.fromEdges(names, ids, src, dst, wt, lines * 2);
+    }
+
+    /**
+     * Split the file into about 4 chunks per thread, moving every split
+     * forward to just after the next newline. Return the chunk boundaries,
+     * starting with 0 and ending with the file size.
+     */
+    static long[] lineBoundaries(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long target = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (parallelism * 4L) + 1));
+        List<Long> bounds = new ArrayList<Long>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = target;
+        while (pos < size) {
+            long lineEnd = nextLineStart(channel, pos, probe);
+            if (lineEnd >= size) {
+                break;
+            }
+            if (lineEnd - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE) {
+                throw new IOException("line too long near byte " + pos);
+            }
+            bounds.add(lineEnd);
+            pos = lineEnd + target;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Return the position just after the first newline at or after pos,
+     * or the file size if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long pos, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+    }
+
+    private static Chunk parse(MappedByteBuffer region, boolean weighted,
+            ConcurrentHashMap<String, Integer> ids, AtomicInteger nextId) throws IOException {
+        Chunk chunk = new Chunk();
+        ByteTokenizer tok = new ByteTokenizer(region);
+        while (tok.hasNext()) {
+            int s = idOf(tok.next(), ids, nextId);
+            int d = idOf(tok.next(), ids, nextId);
+            int w = weighted ? tok.nextInt() : 1;
+            chunk.add(s, d, w);
+        }
+        return chunk;
+    }
+
+    private static int idOf(String name, ConcurrentHashMap<String, Integer> ids, AtomicInteger nextId) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.computeIfAbsent(name, k -> nextId.getAndIncrement());
+        }
+        return id;
+    }
+
+    private static <T> T join(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * The edges parsed from one chunk of the file, in file order.
+     */
+    private static class Chunk
+    {
+        int[] src = new int[1024];
+        int[] dst = new int[1024];
+        int[] wt = new int[1024];
+        int size;
+
+        void add(int s, int d, int w) {
+            if (size == src.length) {
+                src = Arrays.copyOf(src, size * 2);
+                dst = Arrays.copyOf(dst, size * 2);
+                wt = Arrays.copyOf(wt, size * 2);
+            }
+            src[size] = s;
+            dst[size] = d;
+            wt[size] = w;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package graph.impl;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+import graph.IGraph;
+
+/**
+ * A maze on a grid of cells: a set of passages between neighboring cells,
+ * such as the spanning trees made by {@link MazeGenerator}.
+ *
+ * Cells are numbered like the nodes of an {@link ImplicitGridGraph}, so the
+ * cell in row r and column c is r*cols+c and is named r<i>r</i>c<i>c</i>.
+ * Each cell only records whether it has a passage to the cell on its right
+ * and to the cell below it, one bit each, so even a maze of 100 million
+ * cells takes only a few tens of MB.
+ */
+public class Maze
+{
+    private final int rows;
+    private final int cols;
+    private final BitSet right;
+    private final BitSet down;
+
+    /**
+     * Create a maze with no passages at all.
+     *
+     * @param rows
+     * @param cols
+     */
+    public Maze(int rows, int cols) {
+        if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bad maze size " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.right = new BitSet(rows * cols);
+        this.down = new BitSet(rows * cols);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Open a passage between the two given cells, which must be next to
+     * each other in the same row or column.
+     *
+     * @param a
+     * @param b
+     */
+    public void open(int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        if (hi == lo + 1 && hi % cols != 0) {
+            right.set(lo);
+        } else if (hi == lo + cols) {
+            down.set(lo);
+        } else {
+            throw new IllegalArgumentException("cells " + a + " and " + b + " are not neighbors");
+        }
+    }
+
+    /**
+     * Return true if there is a passage between the two given cells.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean isOpen(int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        if (hi == lo + 1 && hi % cols != 0) {
+            return right.get(lo);
+        }
+        return hi == lo + cols && down.get(lo);
+    }
+
+    /**
+     * Return the number of passages. A maze with exactly one path between
+     * any two cells has rows*cols-1 passages.
+     *
+     * @return
+     */
+    public int getPassageCount() {
+        return right.cardinality() + down.cardinality();
+    }
+
+    /**
+     * Write the maze in DOT format, one passage per line, followed by
+     * <code>rank=same</code> hints that tell GraphViz to lay out each row of
+     * the grid on one line.
+     *
+     * @param out
+     * @param graphname
+     * @throws IOException
+     */
+    public void writeDot(Appendable out, String graphname) throws IOException {
+        out.append("graph ").append(graphname).append(" {\n");
+        StringBuilder line = new StringBuilder();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                if (right.get(cell)) {
+                    line.setLength(0);
+                    appendName(line, r, c).append(" -- ");
+                    appendName(line, r, c + 1).append(";\n");
+                    out.append(line);
+                }
+                if (down.get(cell)) {
+                    line.setLength(0);
+                    appendName(line, r, c).append(" -- ");
+                    appendName(line, r + 1, c).append(";\n");
+                    out.append(line);
+                }
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            line.setLength(0);
+            line.append("{ rank=same; ");
+            for (int c = 0; c < cols; c++) {
+                appendName(line, r, c).append(' ');
+            }
+            line.append("}\n");
+            out.append(line);
+        }
+        out.append("}\n");
+    }
+
+    /**
+     * Return the maze as a mutable graph with an undirected edge of weight 1
+     * for every passage. Node ids are the cell numbers.
+     *
+     * @return
+     */
+    public IGraph toGraph() {
+        IGraph g = new Graph();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                g.getOrCreateNode("r" + r + "c" + c);
+            }
+        }
+        int count = getPassageCount();
+        int[] src = new int[count];
+        int[] dst = new int[count];
+        int e = 0;
+        for (int cell = right.nextSetBit(0); cell >= 0; cell = right.nextSetBit(cell + 1)) {
+            src[e] = cell;
+            dst[e++] = cell + 1;
+        }
+        for (int cell = down.nextSetBit(0); cell >= 0; cell = down.nextSetBit(cell + 1)) {
+            src[e] = cell;
+            dst[e++] = cell + cols;
+        }
+        g.addEdges(src, dst, null, false);
+        return g;
+    }
+
+    private static StringBuilder appendName(StringBuilder buf, int r, int c) {
+        return buf.append('r').append(r).append('c').append(c);
+    }
+}
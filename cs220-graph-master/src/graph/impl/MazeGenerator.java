@@ -0,0 +1,263 @@
+package graph.impl;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Generates random mazes: random spanning trees of a 4-connected
+ * {@link ImplicitGridGraph}, returned as a {@link Maze}.
+ *
+ * <ul>
+ * <li>{@link #depthFirst(ImplicitGridGraph, Random)} is the classic
+ * "recursive backtracker": long winding corridors with few dead ends.</li>
+ * <li>{@link #prim(ImplicitGridGraph, Random)} grows the maze from a random
+ * frontier cell each step: many short dead ends.</li>
+ * <li>{@link #kruskal(ImplicitGridGraph, Random)} knocks down walls in random
+ * order unless the two cells are already connected, using a {@link DisjointSet}.</li>
+ * </ul>
+ *
+ * The neighbors of a cell are worked out from its row and column, and the
+ * depth-first walk keeps no stack: each cell remembers, in one byte, the
+ * direction of the cell it was reached from, and the walk backs up by
+ * following those directions. The passage to that parent is opened as soon
+ * as a cell is reached, so the tree is built without ever searching for it.
+ *
+ * The given {@link Random} only seeds a {@link SplittableRandom}, which is
+ * several times faster for the hundreds of millions of draws a big maze takes.
+ */
+public class MazeGenerator
+{
+    // directions, and the direction back from each one
+    private static final byte UP = 1;
+    private static final byte LEFT = 2;
+    private static final byte RIGHT = 3;
+    private static final byte DOWN = 4;
+    private static final byte ROOT = 5;
+
+    // the states of a cell in prim
+    private static final byte FRONTIER = 1;
+    private static final byte IN = 2;
+
+    private MazeGenerator() {
+        // private constructor to prevent creating instances
+        // this class exists only to hold static methods
+    }
+
+    /**
+     * Generate a maze with a randomized depth-first search from the top left cell.
+     *
+     * @param grid
+     * @param random
+     * @return
+     */
+    public static Maze depthFirst(ImplicitGridGraph grid, Random random) {
+        SplittableRandom rng = new SplittableRandom(random.nextLong());
+        int rows = checkGrid(grid);
+        int cols = grid.getCols();
+        Maze maze = new Maze(rows, cols);
+        int n = rows * cols;
+        if (n == 0) {
+            return maze;
+        }
+        // from[u] is the direction u was reached from, or 0 if u has not been reached
+        byte[] from = new byte[n];
+        int[] candidates = new int[4];
+        int u = 0;
+        from[u] = ROOT;
+        while (true) {
+            int count = unvisitedNeighbors(u, rows, cols, from, candidates);
+            if (count > 0) {
+                int dir = candidates[count == 1 ? 0 : rng.nextInt(count)];
+                int v = step(u, dir, cols);
+                from[v] = (byte) opposite(dir);
+                maze.open(u, v);
+                u = v;
+            } else if (from[u] == ROOT) {
+                return maze;
+            } else {
+                u = step(u, from[u], cols);
+            }
+        }
+    }
+
+    /**
+     * Generate a maze with randomized Prim's algorithm: starting from the top
+     * left cell, repeatedly pick a random cell next to the maze and connect it
+     * to a random neighbor already in the maze.
+     *
+     * @param grid
+     * @param random
+     * @return
+     */
+    public static Maze prim(ImplicitGridGraph grid, Random random) {
+        SplittableRandom rng = new SplittableRandom(random.nextLong());
+        int rows = checkGrid(grid);
+        int cols = grid.getCols();
+        Maze maze = new Maze(rows, cols);
+        int n = rows * cols;
+        if (n == 0) {
+            return maze;
+        }
+        // 0: not seen yet, FRONTIER: next to the maze, IN: part of the maze
+        byte[] state = new byte[n];
+        int[] frontier = new int[16];
+        int size = 0;
+        int[] candidates = new int[4];
+        int v = 0;
+        while (true) {
+            state[v] = IN;
+            // add the new neighbors of v to the frontier
+            int count = 0;
+            int r = v / cols;
+            int c = v % cols;
+            if (r > 0) {
+                candidates[count++] = v - cols;
+            }
+            if (c > 0) {
+                candidates[count++] = v - 1;
+            }
+            if (c < cols - 1) {
+                candidates[count++] = v + 1;
+            }
+            if (r < rows - 1) {
+                candidates[count++] = v + cols;
+            }
+            for (int k = 0; k < count; k++) {
+                int w = candidates[k];
+                if (state[w] == 0) {
+                    state[w] = FRONTIER;
+                    if (size == frontier.length) {
+                        frontier = Arrays.copyOf(frontier, size * 2);
+                    }
+                    frontier[size++] = w;
+                }
+            }
+            if (size == 0) {
+                break;
+            }
+
+            // take a random frontier cell, and connect it to a random neighbor in the maze
+            int i = rng.nextInt(size);
+            v = frontier[i];
+            frontier[i] = frontier[--size];
+            count = 0;
+            r = v / cols;
+            c = v % cols;
+            if (r > 0 && state[v - cols] == IN) {
+                candidates[count++] = v - cols;
+            }
+            if (c > 0 && state[v - 1] == IN) {
+                candidates[count++] = v - 1;
+            }
+            if (c < cols - 1 && state[v + 1] == IN) {
+                candidates[count++] = v + 1;
+            }
+            if (r < rows - 1 && state[v + cols] == IN) {
+                candidates[count++] = v + cols;
+            }
+            maze.open(v, candidates[count == 1 ? 0 : rng.nextInt(count)]);
+        }
+        return maze;
+    }
+
+    /**
+     * Generate a maze with randomized Kruskal's algorithm: go through every
+     * wall in random order, and remove it if the cells on either side are not
+     * connected yet.
+     *
+     * This needs 4 bytes per wall and 8 bytes per cell on top of the maze,
+     * several times more memory than the other two generators.
+     *
+     * @param grid
+     * @param random
+     * @return
+     */
+    public static Maze kruskal(ImplicitGridGraph grid, Random random) {
+        SplittableRandom rng = new SplittableRandom(random.nextLong());
+        int rows = checkGrid(grid);
+        int cols = grid.getCols();
+        Maze maze = new Maze(rows, cols);
+        int n = rows * cols;
+        long wallCount = (long) rows * (cols - 1) + (long) (rows - 1) * cols;
+        if (n == 0 || wallCount <= 0) {
+            return maze;
+        }
+        if (wallCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("too many walls for kruskal: " + wallCount);
+        }
+        // wall 2u is between u and the cell on its right, 2u+1 between u and the cell below
+        int[] walls = new int[(int) wallCount];
+        int w = 0;
+        for (int u = 0; u < n; u++) {
+            if (u % cols < cols - 1) {
+                walls[w++] = 2 * u;
+            }
+            if (u + cols < n) {
+                walls[w++] = 2 * u + 1;
+            }
+        }
+        for (int i = walls.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int t = walls[i];
+            walls[i] = walls[j];
+            walls[j] = t;
+        }
+        DisjointSet sets = new DisjointSet(n);
+        for (int i = 0; i < walls.length && sets.getSetCount() > 1; i++) {
+            int u = walls[i] >>> 1;
+            int v = (walls[i] & 1) == 0 ? u + 1 : u + cols;
+            if (sets.union(u, v)) {
+                maze.open(u, v);
+            }
+        }
+        return maze;
+    }
+
+    private static int checkGrid(ImplicitGridGraph grid) {
+        if (grid.getConnectivity() != ImplicitGridGraph.Connectivity.FOUR) {
+            throw new IllegalArgumentException("mazes need a grid with Connectivity.FOUR");
+        }
+        return grid.getRows();
+    }
+
+    /**
+     * Put the directions of the unreached neighbors of u into candidates,
+     * and return how many there are.
+     */
+    private static int unvisitedNeighbors(int u, int rows, int cols, byte[] from, int[] candidates) {
+        int count = 0;
+        int r = u / cols;
+        int c = u % cols;
+        if (r > 0 && from[u - cols] == 0) {
+            candidates[count++] = UP;
+        }
+        if (c > 0 && from[u - 1] == 0) {
+            candidates[count++] = LEFT;
+        }
+        if (c < cols - 1 && from[u + 1] == 0) {
+            candidates[count++] = RIGHT;
+        }
+        if (r < rows - 1 && from[u + cols] == 0) {
+            candidates[count++] = DOWN;
+        }
+        return count;
+    }
+
+    private static int step(int u, int dir, int cols) {
+        switch (dir) {
+        case UP:
+            return u - cols;
+        case LEFT:
+            return u - 1;
+        case RIGHT:
+            return u + 1;
+        default:
+            return u + cols;
+        }
+    }
+
+    private static int opposite(int dir) {
+        return 5 - dir;
+    }
+}
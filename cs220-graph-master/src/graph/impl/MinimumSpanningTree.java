@@ -0,0 +1,401 @@
+package graph.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import graph.IGraph;
+import graph.SpanningForest;
+
+/**
+ * Minimum spanning forests over the int ids of a graph, whose edges are
+ * taken to be undirected: an edge stored only as u-&gt;v joins u and v just
+ * as if v-&gt;u were stored too, so a directed graph has the same spanning
+ * forests as the undirected graph with the same edges.
+ *
+ * <ul>
+ * <li>{@link #prim()} grows one tree at a time from the smallest unreached
+ * id, always adding the cheapest edge out of the tree, with the candidate
+ * edges in an {@link IndexedHeap} keyed by node.</li>
+ * <li>{@link #boruvka()} runs in rounds on a {@link ForkJoinPool}. Each round
+ * every node finds, in parallel, its cheapest edge to another component;
+ * the cheapest of those for each component is then added, merging the
+ * components in a {@link DisjointSet}. Every round at least halves the
+ * number of components, so there are at most log2(n) rounds. The edges of
+ * every node are copied and sorted by weight once, up front, and each node
+ * keeps a cursor to its first edge that may still leave its component, so
+ * over all the rounds each edge is looked at only a few times. Nodes with
+ * no such edge left drop out of later rounds.</li>
+ * <li>{@link #kruskal()} sorts all the edges by weight in memory and adds
+ * them in order, skipping those that would close a cycle. For edge lists
+ * too big for memory, see {@link ExternalKruskal}.</li>
+ * </ul>
+ *
+ * All return the edges as a {@link SpanningForest} rather than as a graph.
+ * Edges of equal weight are ordered by their lower and then their higher
+ * endpoint, so Boruvka never closes a cycle and always finds the same
+ * forest. When several forests have the minimum weight, Prim may find a
+ * different one, of the same total weight.
+ */
+public class MinimumSpanningTree
+{
+    static final int SEQUENTIAL_THRESHOLD = 4096;
+    // nodes per leaf task in a Boruvka round
+    static final int CHUNK = 1024;
+
+    private final IGraph graph;
+    private final IntAdjacency adj;
+    // adj with every edge in both directions, for prim() and boruvka()
+    private IntAdjacency bothWays;
+
+    /**
+     * Create an MST search for the given graph, which should not change
+     * while the search is in use.
+     *
+     * @param graph
+     */
+    public MinimumSpanningTree(IGraph graph) {
+        this.graph = graph;
+        this.adj = IntAdjacency.of(graph);
+    }
+
+    MinimumSpanningTree(IGraph graph, IntAdjacency adj) {
+        this.graph = graph;
+        this.adj = adj;
+    }
+
+    /**
+     * Compute a minimum spanning forest with the Prim-Jarnik algorithm.
+     * The edges are in the order they were added, and every edge goes from
+     * a node already in its tree to the new node.
+     *
+     * @return
+     */
+    public SpanningForest prim() {
+        IntAdjacency adj = bothWays();
+        int n = adj.getNodeCount();
+        int[] src = new int[Math.max(0, n - 1)];
+        int[] dst = new int[src.length];
+        int[] wt = new int[src.length];
+        int count = 0;
+        int[] parent = new int[n];
+        boolean[] done = new boolean[n];
+        IndexedHeap heap = new IndexedHeap(n);
+        for (int root = 0; root < n; root++) {
+            if (done[root]) {
+                continue;
+            }
+            parent[root] = -1;
+            heap.insert(root, 0);
+            while (!heap.isEmpty()) {
+                int weight = heap.peekPriority();
+                int u = heap.poll();
+                done[u] = true;
+                if (parent[u] >= 0) {
+                    src[count] = parent[u];
+                    dst[count] = u;
+                    wt[count++] = weight;
+                }
+                int degree = adj.degree(u);
+                for (int i = 0; i < degree; i++) {
+                    int w = adj.neighbor(u, i);
+                    if (!done[w] && heap.insertOrDecrease(w, adj.weight(u, i))) {
+                        parent[w] = u;
+                    }
+                }
+            }
+        }
+        return new SpanningForest(graph, Arrays.copyOf(src, count), Arrays.copyOf(dst, count),
+                Arrays.copyOf(wt, count));
+    }
+
+    /**
+     * Compute a minimum spanning forest with Kruskal's algorithm, sorting
+     * every edge in memory. Edges of equal weight are taken in id order.
+     *
+     * @return
+     */
+    public SpanningForest kruskal() {
+        int n = adj.getNodeCount();
+        long m = 0;
+        for (int u = 0; u < n; u++) {
+            m += adj.degree(u);
+        }
+        if (m > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("too many edges for kruskal: " + m);
+        }
+        int[] src = new int[(int) m];
+        int[] dst = new int[src.length];
+        int[] wt = new int[src.length];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            int degree = adj.degree(u);
+            for (int i = 0; i < degree; i++) {
+                src[e] = u;
+                dst[e] = adj.neighbor(u, i);
+                wt[e++] = adj.weight(u, i);
+            }
+        }
+        int[] order = ExternalKruskal.sortByWeight(wt, src.length);
+        ExternalKruskal.Forest forest = new ExternalKruskal.Forest(n);
+        for (int i = 0; i < order.length && !forest.isSpanning(); i++) {
+            forest.add(src[order[i]], dst[order[i]], wt[order[i]]);
+        }
+        return forest.toSpanningForest(graph);
+    }
+
+    /**
+     * Compute a minimum spanning forest with Boruvka's algorithm on the
+     * common pool.
+     *
+     * @return
+     */
+    public SpanningForest boruvka() {
+        return boruvka(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute a minimum spanning forest with Boruvka's algorithm, scanning
+     * the edges of each round on the given pool.
+     *
+     * @param pool
+     * @return
+     */
+    public SpanningForest boruvka(ForkJoinPool pool) {
+        IntAdjacency adj = bothWays();
+        int n = adj.getNodeCount();
+        // a copy of the edges, each node's sorted by weight and then target
+        int[] start = new int[n + 1];
+        long total = 0;
+        for (int u = 0; u < n; u++) {
+            total += adj.degree(u);
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("too many edges for boruvka: " + total);
+            }
+            start[u + 1] = (int) total;
+        }
+        int[] targets = new int[start[n]];
+        int[] weights = new int[start[n]];
+        run(pool, n, (lo, hi) -> {
+            long[] keys = new long[16];
+            for (int u = lo; u < hi; u++) {
+                int degree = start[u + 1] - start[u];
+                if (keys.length < degree) {
+                    keys = new long[Math.max(degree, keys.length * 2)];
+                }
+                for (int i = 0; i < degree; i++) {
+                    keys[i] = ((long) adj.weight(u, i) << 32) | adj.neighbor(u, i);
+                }
+                Arrays.sort(keys, 0, degree);
+                for (int i = 0; i < degree; i++) {
+                    targets[start[u] + i] = (int) keys[i];
+                    weights[start[u] + i] = (int) (keys[i] >> 32);
+                }
+            }
+        });
+
+        // component[u] is the id of the node that represents u's component
+        int[] component = new int[n];
+        // the new representative of each representative after a round
+        int[] root = new int[n];
+        // the next edge of each node that may lead to another component
+        int[] cursor = Arrays.copyOf(start, n);
+        int[] active = new int[n];
+        int activeCount = 0;
+        for (int u = 0; u < n; u++) {
+            component[u] = u;
+            root[u] = u;
+            if (start[u] < start[u + 1]) {
+                active[activeCount++] = u;
+            }
+        }
+        // the cheapest edge out of each component, indexed by representative
+        int[] bestSource = new int[n];
+        Arrays.fill(bestSource, -1);
+        // both sides of every edge added in a round
+        int[] touched = new int[2 * n];
+        DisjointSet sets = new DisjointSet(n);
+
+        int[] src = new int[Math.max(0, n - 1)];
+        int[] dst = new int[src.length];
+        int[] wt = new int[src.length];
+        int count = 0;
+        while (activeCount > 0) {
+            // move each cursor past the edges that no longer leave the component
+            run(pool, activeCount, (lo, hi) -> {
+                for (int k = lo; k < hi; k++) {
+                    int u = active[k];
+                    int c = component[u];
+                    int e = cursor[u];
+                    int end = start[u + 1];
+                    while (e < end && component[targets[e]] == c) {
+                        e++;
+                    }
+                    cursor[u] = e;
+                }
+            });
+
+            // the cheapest edge out of each component, dropping nodes with none left
+            int kept = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int u = active[k];
+                int e = cursor[u];
+                if (e == start[u + 1]) {
+                    continue;
+                }
+                active[kept++] = u;
+                int c = component[u];
+                int b = bestSource[c];
+                if (b < 0 || lighter(u, targets[e], weights[e], b, targets[cursor[b]], weights[cursor[b]])) {
+                    bestSource[c] = u;
+                }
+            }
+            activeCount = kept;
+
+            int touchedCount = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int c = component[active[k]];
+                int u = bestSource[c];
+                if (u < 0) {
+                    continue;
+                }
+                bestSource[c] = -1;
+                int e = cursor[u];
+                // two components that pick the same edge add it only once
+                if (sets.union(u, targets[e])) {
+                    src[count] = u;
+                    dst[count] = targets[e];
+                    wt[count++] = weights[e];
+                    touched[touchedCount++] = c;
+                    touched[touchedCount++] = component[targets[e]];
+                }
+            }
+            if (touchedCount == 0) {
+                break;
+            }
+            for (int k = 0; k < touchedCount; k++) {
+                root[touched[k]] = sets.find(touched[k]);
+            }
+            run(pool, n, (lo, hi) -> {
+                for (int u = lo; u < hi; u++) {
+                    component[u] = root[component[u]];
+                }
+            });
+        }
+        return new SpanningForest(graph, Arrays.copyOf(src, count), Arrays.copyOf(dst, count),
+                Arrays.copyOf(wt, count));
+    }
+
+    /**
+     * Return true if edge u1-v1 with weight w1 comes before edge u2-v2 with
+     * weight w2: by weight, then lower endpoint, then higher endpoint.
+     * For edges from the same node, that is by weight and then target.
+     */
+    static boolean lighter(int u1, int v1, int w1, int u2, int v2, int w2) {
+        if (w1 != w2) {
+            return w1 < w2;
+        }
+        int lo1 = Math.min(u1, v1);
+        int lo2 = Math.min(u2, v2);
+        if (lo1 != lo2) {
+            return lo1 < lo2;
+        }
+        return Math.max(u1, v1) < Math.max(u2, v2);
+    }
+
+    /**
+     * Return the edges of the graph in both directions. A graph that is its
+     * own reverse, such as an {@link ImplicitGridGraph}, is returned as is;
+     * otherwise an undirected edge is seen twice from each end, which costs
+     * prim() and boruvka() time but not correctness.
+     */
+    private IntAdjacency bothWays() {
+        if (bothWays == null) {
+            IntAdjacency reverse = adj.reverse();
+            bothWays = reverse == adj ? adj : new BothWays(adj, reverse);
+        }
+        return bothWays;
+    }
+
+    /**
+     * Run the given step on [0..count), split into chunks on the pool if
+     * there are enough.
+     */
+    private static void run(ForkJoinPool pool, int count, Range step) {
+        if (count < SEQUENTIAL_THRESHOLD) {
+            step.run(0, count);
+        } else {
+            pool.invoke(new Split(step, 0, count));
+        }
+    }
+
+    /**
+     * One step of a Boruvka round over the indexes [lo..hi). Different
+     * ranges only ever write the entries of their own nodes.
+     */
+    private interface Range
+    {
+        void run(int lo, int hi);
+    }
+
+    private static class Split extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Range step;
+        private final int lo;
+        private final int hi;
+
+        Split(Range step, int lo, int hi) {
+            this.step = step;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= CHUNK) {
+                step.run(lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Split(step, lo, mid), new Split(step, mid, hi));
+        }
+    }
+
+    /**
+     * The out-edges of each node followed by its in-edges.
+     */
+    private static class BothWays implements IntAdjacency
+    {
+        private final IntAdjacency out;
+        private final IntAdjacency in;
+
+        BothWays(IntAdjacency out, IntAdjacency in) {
+            this.out = out;
+            this.in = in;
+        }
+
+        public int getNodeCount() {
+            return out.getNodeCount();
+        }
+
+        public int degree(int u) {
+            return out.degree(u) + in.degree(u);
+        }
+
+        public int neighbor(int u, int i) {
+            int d = out.degree(u);
+            return i < d ? out.neighbor(u, i) : in.neighbor(u, i - d);
+        }
+
+        public int weight(int u, int i) {
+            int d = out.degree(u);
+            return i < d ? out.weight(u, i) : in.weight(u, i - d);
+        }
+
+        public IntAdjacency reverse() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package graph.impl;
+
+import java.util.Map;
+
+/**
+ * The names of the nodes of a {@link CompactGraph}, looked up by id or by name.
+ *
+ * Besides the name itself, the table knows the alphabetical rank of every
+ * name, which is the order the edges of every node are sorted in. That lets
+ * the graph search an edge list by comparing ints instead of strings, and lets
+ * a table that keeps its names outside the heap (see {@link GraphSnapshot})
+ * avoid decoding names to compare them.
+ */
+abstract class NameTable
+{
+    abstract int size();
+
+    abstract String name(int id);
+
+    /**
+     * Return the id of the node with the given name, or -1 if there is none.
+     */
+    abstract int idOf(String name);
+
+    /**
+     * Return the position of the name of the given node in alphabetical order.
+     */
+    abstract int rank(int id);
+
+    /**
+     * Return a table of names held in memory.
+     *
+     * @param names the name of each id
+     * @param ids the id of each name
+     * @param rank the alphabetical position of each id
+     */
+    static NameTable of(String[] names, Map<String, Integer> ids, int[] rank) {
+        return new ArrayNameTable(names, ids, rank);
+    }
+
+    private static class ArrayNameTable extends NameTable
+    {
+        private final String[] names;
+        private final Map<String, Integer> ids;
+        private final int[] rank;
+
+        ArrayNameTable(String[] names, Map<String, Integer> ids, int[] rank) {
+            this.names = names;
+            this.ids = ids;
+            this.rank = rank;
+        }
+
+        int size() {
+            return names.length;
+        }
+
+        String name(int id) {
+            return names[id];
+        }
+
+        int idOf(String name) {
+            Integer id = ids.get(name);
+            return id == null ? -1 : id;
+        }
+
+        int rank(int id) {
+            return rank[id];
+        }
+    }
+}
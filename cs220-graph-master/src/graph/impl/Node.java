@@ -22,13 +22,17 @@ import graph.INode;
  * @author jspacco
  *
  */
-public class Node implements INode
+public class Node implements IndexedNode
 {
     private String name;
+    private final int id;
+    private final Graph owner;
     private int weight;
     private INode node;
-    private INode otherNode;
     private Map<INode, Integer> neighbours;
+    // the number of edges the map can hold before it resizes itself
+    // (a new HashMap holds 12)
+    private int reserved = 12;
     /**
      * Create a new node with the given name. The newly created node should
      * have no edges.
@@ -36,7 +40,22 @@ public class Node implements INode
      * @param name
      */
     public Node(String name) {
+        this(name, -1, null);
+    }
+
+    /**
+     * Create a new node with the given name and the given id. This is
+     * used by {@link Graph}, which hands out ids 0, 1, 2, ... in the order
+     * that nodes are created, and wants to hear about every edge change.
+     *
+     * @param name
+     * @param id
+     * @param owner
+     */
+    Node(String name, int id, Graph owner) {
         this.name = name;
+        this.id = id;
+        this.owner = owner;
         neighbours = new HashMap<INode, Integer>();
     }
 
@@ -49,6 +68,16 @@ public class Node implements INode
        return name;
     }
 
+    /**
+     * Return the dense integer id of this node, or -1 if the node
+     * was not created by a {@link Graph}.
+     *
+     * @return
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Return a collection of nodes that the current node is connected to by an edge.
      * 
@@ -58,6 +87,22 @@ public class Node implements INode
         return neighbours.keySet();
     }
     
+    /**
+     * Make sure this node can hold the given number of edges without
+     * its map growing again.
+     *
+     * @param capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > reserved) {
+            // at least double, so that growing a few edges at a time stays cheap
+            reserved = Math.max(capacity, reserved * 2);
+            Map<INode, Integer> bigger = new HashMap<INode, Integer>((int) (reserved / 0.75f) + 1);
+            bigger.putAll(neighbours);
+            neighbours = bigger;
+        }
+    }
+
     /**
      * Add a directed edge to the given node using the given weight.
      * 
@@ -66,6 +111,9 @@ public class Node implements INode
      */
     public void addDirectedEdgeToNode(INode n, int weight) {
         neighbours.put(n, weight);
+        if (owner != null) {
+            owner.edgeAdded(this, n);
+        }
     }
     
     /**
@@ -77,7 +125,7 @@ public class Node implements INode
      */
     public void addUndirectedEdgeToNode(INode n, int weight) {
         addDirectedEdgeToNode(n, weight);
-        n.addUndirectedEdgeToNode(this, weight);
+        n.addDirectedEdgeToNode(this, weight);
     }
 
     /**
@@ -91,6 +139,7 @@ public class Node implements INode
      */
     public void removeDirectedEdgeToNode(INode n) {
         neighbours.remove(n);
+        edgesChanged();
     }
     
     /**
@@ -106,6 +155,7 @@ public class Node implements INode
     public void removeUndirectedEdgeToNode(INode n) {
         if(neighbours.containsKey(n)){
             neighbours.remove(n);
+            edgesChanged();
             n.removeDirectedEdgeToNode(this);
         }
         else {
@@ -121,7 +171,7 @@ public class Node implements INode
      * @return
      */
     public boolean hasEdge(INode other) {
-        return neighbours.containsKey(otherNode);
+        return neighbours.containsKey(other);
     }
 
     /**
@@ -141,4 +191,10 @@ public class Node implements INode
             throw new IllegalArgumentException("neither here bruv :(");
         }
     }
+
+    private void edgesChanged() {
+        if (owner != null) {
+            owner.edgesChanged();
+        }
+    }
 }
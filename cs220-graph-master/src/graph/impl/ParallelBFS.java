@@ -0,0 +1,175 @@
+package graph.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import graph.BreadthFirstLevels;
+import graph.IGraph;
+
+/**
+ * Level-synchronous breadth-first search that expands each level of the
+ * search in parallel on a {@link ForkJoinPool}.
+ *
+ * The frontier (all nodes at the current hop count) is split into chunks,
+ * and each chunk scans the edges of its nodes on its own worker. A node is
+ * claimed by whichever worker first sets its bit in a shared atomic bitset,
+ * so every node lands in exactly one level. The chunks' discoveries are then
+ * joined into the next frontier, which is why the result is a set of nodes
+ * per level rather than a visit order: there is no alphabetical order across
+ * workers, and no {@link graph.NodeVisitor} is called.
+ *
+ * Levels smaller than {@link #SEQUENTIAL_THRESHOLD} nodes are expanded on the
+ * calling thread, where splitting them would cost more than it saves.
+ */
+public class ParallelBFS
+{
+    static final int SEQUENTIAL_THRESHOLD = 2048;
+    // frontier nodes per leaf task
+    static final int CHUNK = 512;
+
+    private final IGraph graph;
+    private final IntAdjacency adj;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a search for the given graph that runs on the common pool.
+     *
+     * @param graph
+     */
+    public ParallelBFS(IGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a search for the given graph that runs on the given pool.
+     * The graph should not change while the search is in use.
+     *
+     * @param graph
+     * @param pool
+     */
+    public ParallelBFS(IGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.adj = IntAdjacency.of(graph);
+        this.pool = pool;
+    }
+
+    /**
+     * Search from the node with the given name.
+     *
+     * @param startNodeName
+     * @return
+     */
+    public BreadthFirstLevels search(String startNodeName) {
+        return search(PathSearch.idOf(graph, startNodeName));
+    }
+
+    /**
+     * Search from the node with the given id.
+     *
+     * @param start
+     * @return
+     */
+    public BreadthFirstLevels search(int start) {
+        int n = adj.getNodeCount();
+        int[] hops = new int[n];
+        Arrays.fill(hops, -1);
+        int[] parents = new int[n];
+        Arrays.fill(parents, -1);
+        AtomicLongArray visited = new AtomicLongArray((n + 63) >>> 6);
+        claim(visited, start);
+        hops[start] = 0;
+
+        List<int[]> levels = new ArrayList<int[]>();
+        int[] frontier = { start };
+        for (int depth = 1; frontier.length > 0; depth++) {
+            levels.add(frontier);
+            Expand task = new Expand(frontier, 0, frontier.length, depth, hops, parents, visited);
+            if (frontier.length < SEQUENTIAL_THRESHOLD) {
+                frontier = task.compute();
+            } else {
+                frontier = pool.invoke(task);
+            }
+        }
+        return new BreadthFirstLevels(graph, hops, parents, levels.toArray(new int[levels.size()][]));
+    }
+
+    /**
+     * Atomically set the bit for v. Return true if this call set it,
+     * and false if it was already set.
+     */
+    static boolean claim(AtomicLongArray bits, int v) {
+        int word = v >>> 6;
+        long mask = 1L << v;
+        long old = bits.get(word);
+        while ((old & mask) == 0) {
+            if (bits.compareAndSet(word, old, old | mask)) {
+                return true;
+            }
+            old = bits.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Expand frontier[lo..hi), returning the ids of the newly reached nodes.
+     */
+    private class Expand extends RecursiveTask<int[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] frontier;
+        private final int lo;
+        private final int hi;
+        private final int depth;
+        private final int[] hops;
+        private final int[] parents;
+        private final AtomicLongArray visited;
+
+        Expand(int[] frontier, int lo, int hi, int depth, int[] hops, int[] parents, AtomicLongArray visited) {
+            this.frontier = frontier;
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+            this.hops = hops;
+            this.parents = parents;
+            this.visited = visited;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (hi - lo > CHUNK && frontier.length >= SEQUENTIAL_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                Expand left = new Expand(frontier, lo, mid, depth, hops, parents, visited);
+                left.fork();
+                int[] right = new Expand(frontier, mid, hi, depth, hops, parents, visited).compute();
+                int[] found = left.join();
+                int[] both = Arrays.copyOf(found, found.length + right.length);
+                System.arraycopy(right, 0, both, found.length, right.length);
+                return both;
+            }
+            int[] found = new int[16];
+            int size = 0;
+            for (int i = lo; i < hi; i++) {
+                int u = frontier[i];
+                int degree = adj.degree(u);
+                for (int e = 0; e < degree; e++) {
+                    int v = adj.neighbor(u, e);
+                    if (claim(visited, v)) {
+                        // only the claiming task writes hops[v] and parents[v]; join publishes them
+                        hops[v] = depth;
+                        parents[v] = u;
+                        if (size == found.length) {
+                            found = Arrays.copyOf(found, size * 2);
+                        }
+                        found[size++] = v;
+                    }
+                }
+            }
+            return Arrays.copyOf(found, size);
+        }
+    }
+}
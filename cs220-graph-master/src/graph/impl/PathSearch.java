@@ -0,0 +1,365 @@
+package graph.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import graph.Heuristic;
+import graph.IGraph;
+import graph.INode;
+import graph.SearchMode;
+import graph.ShortestPath;
+
+/**
+ * Point-to-point shortest path engine.
+ *
+ * The default search runs Dijkstra's algorithm from the source and stops as
+ * soon as the destination is settled, then follows a predecessor array back to
+ * the source to recover the route. The bidirectional search also runs Dijkstra
+ * backward from the destination, alternating between the two frontiers, and
+ * stops once no path through the unsettled nodes can beat the best path
+ * found where the two searches met. The A* search orders the heap by the
+ * distance so far plus a {@link Heuristic} estimate of the distance left, so
+ * it settles nodes in the direction of the destination first.
+ *
+ * Distances, predecessors and the heaps are plain arrays sized to the
+ * graph, and are stamped with a query number instead of being cleared, so a
+ * single PathSearch can answer many queries and each query only touches the
+ * part of the graph it actually explores.
+ *
+ * A PathSearch is not thread-safe; use one per thread. The graphs keep one
+ * in a {@link Cache} for their own shortestPath methods.
+ */
+public class PathSearch
+{
+    private final IGraph graph;
+    private final Frontier forward;
+    private Frontier backward;
+
+    /**
+     * Create a search engine for the given graph. The graph should not
+     * change while the engine is in use.
+     *
+     * @param graph
+     */
+    public PathSearch(IGraph graph) {
+        this.graph = graph;
+        this.forward = new Frontier(IntAdjacency.of(graph));
+    }
+
+    /**
+     * Return the cheapest path from the node named src to the node named dst.
+     *
+     * @param src
+     * @param dst
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst) {
+        return shortestPath(idOf(graph, src), idOf(graph, dst));
+    }
+
+    /**
+     * Return the cheapest path from the node named src to the node named dst,
+     * using the given search mode. Both modes return paths of the same cost.
+     *
+     * @param src
+     * @param dst
+     * @param mode
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst, SearchMode mode) {
+        int s = idOf(graph, src);
+        int t = idOf(graph, dst);
+        if (mode == SearchMode.BIDIRECTIONAL) {
+            return bidirectional(s, t);
+        }
+        return shortestPath(s, t);
+    }
+
+    /**
+     * Return the cheapest path between the nodes with the given ids.
+     *
+     * @param src
+     * @param dst
+     * @return
+     */
+    public ShortestPath shortestPath(int src, int dst) {
+        Frontier f = forward;
+        f.start(src);
+        while (!f.heap.isEmpty()) {
+            int u = f.settleNext();
+            if (u == dst) {
+                return new ShortestPath(f.dist[u], f.pathTo(dst, true), f.settledCount);
+            }
+            f.relax(u, null);
+        }
+        return ShortestPath.unreachable(f.settledCount);
+    }
+
+    /**
+     * Return the cheapest path from the node named src to the node named dst,
+     * using A* search with the given heuristic.
+     *
+     * @param src
+     * @param dst
+     * @param h
+     * @return
+     */
+    public ShortestPath shortestPath(String src, String dst, Heuristic h) {
+        return aStar(idOf(graph, src), idOf(graph, dst), h);
+    }
+
+    /**
+     * Return the cheapest path between the nodes with the given ids,
+     * using A* search with the given heuristic.
+     *
+     * @param src
+     * @param dst
+     * @param h
+     * @return
+     */
+    public ShortestPath aStar(int src, int dst, Heuristic h) {
+        Frontier f = forward;
+        f.start(src);
+        f.heuristic = h;
+        f.target = dst;
+        try {
+            while (!f.heap.isEmpty()) {
+                int u = f.settleNext();
+                if (u == dst) {
+                    return new ShortestPath(f.dist[u], f.pathTo(dst, true), f.settledCount);
+                }
+                f.relax(u, null);
+            }
+            return ShortestPath.unreachable(f.settledCount);
+        } finally {
+            f.heuristic = null;
+        }
+    }
+
+    /**
+     * Return the cheapest path between the nodes with the given ids,
+     * searching from both ends at once.
+     *
+     * @param src
+     * @param dst
+     * @return
+     */
+    public ShortestPath bidirectional(int src, int dst) {
+        Frontier f = forward;
+        if (backward == null) {
+            backward = new Frontier(f.adj.reverse());
+        }
+        Frontier b = backward;
+        f.start(src);
+        b.start(dst);
+        f.best = b.best = Integer.MAX_VALUE;
+        if (src == dst) {
+            f.best = 0;
+            f.meetFrom = f.meetTo = src;
+        }
+        while (!f.heap.isEmpty() && !b.heap.isEmpty()) {
+            long bound = (long) f.heap.peekPriority() + b.heap.peekPriority();
+            if (bound >= Math.min(f.best, b.best)) {
+                break;
+            }
+            // expand whichever side has the smaller frontier
+            if (f.heap.size() <= b.heap.size()) {
+                f.relax(f.settleNext(), b);
+            } else {
+                b.relax(b.settleNext(), f);
+            }
+        }
+        int settled = f.settledCount + b.settledCount;
+        // the meeting edge is stored on whichever side found the best path
+        Frontier found = f.best <= b.best ? f : b;
+        if (found.best == Integer.MAX_VALUE) {
+            return ShortestPath.unreachable(settled);
+        }
+        Frontier other = found == f ? b : f;
+        List<INode> path;
+        if (found == f) {
+            path = f.pathTo(f.meetFrom, true);
+            if (f.meetTo != f.meetFrom) {
+                path.addAll(other.pathTo(f.meetTo, false));
+            }
+        } else {
+            path = other.pathTo(b.meetTo, true);
+            if (b.meetTo != b.meetFrom) {
+                path.addAll(b.pathTo(b.meetFrom, false));
+            }
+        }
+        return new ShortestPath(found.best, path, settled);
+    }
+
+    /**
+     * Return the id of the node with the given name, without creating it.
+     */
+    static int idOf(IGraph graph, String name) {
+        if (!graph.containsNode(name)) {
+            throw new IllegalArgumentException("No node named " + name);
+        }
+        return graph.getId(graph.getOrCreateNode(name));
+    }
+
+    /**
+     * Keeps one idle PathSearch for a graph, so the shortestPath methods of
+     * the graph reuse its arrays instead of allocating new ones on every
+     * query. A query checks the idle search out and hands it back when done;
+     * a query that runs while another thread has it checked out builds its
+     * own, so a Cache can be shared by threads querying an immutable graph.
+     */
+    static final class Cache
+    {
+        private final IGraph graph;
+        private final AtomicReference<PathSearch> idle = new AtomicReference<PathSearch>();
+
+        Cache(IGraph graph) {
+            this.graph = graph;
+        }
+
+        ShortestPath shortestPath(String src, String dst) {
+            PathSearch search = take();
+            try {
+                return search.shortestPath(src, dst);
+            } finally {
+                idle.set(search);
+            }
+        }
+
+        ShortestPath shortestPath(String src, String dst, SearchMode mode) {
+            PathSearch search = take();
+            try {
+                return search.shortestPath(src, dst, mode);
+            } finally {
+                idle.set(search);
+            }
+        }
+
+        ShortestPath shortestPath(String src, String dst, Heuristic h) {
+            PathSearch search = take();
+            try {
+                return search.shortestPath(src, dst, h);
+            } finally {
+                idle.set(search);
+            }
+        }
+
+        private PathSearch take() {
+            PathSearch search = idle.getAndSet(null);
+            return search != null ? search : new PathSearch(graph);
+        }
+    }
+
+    /**
+     * The state of one Dijkstra search: tentative distances, predecessors,
+     * and the heap of reached but unsettled nodes.
+     */
+    private class Frontier
+    {
+        final IntAdjacency adj;
+        final int[] dist;
+        final int[] pred;
+        // reached[u] == round means dist[u] and pred[u] belong to the current query
+        final int[] reached;
+        // settled[u] == round means dist[u] is final for the current query
+        final int[] settled;
+        final IndexedHeap heap;
+        int round;
+        int settledCount;
+        // best path found through an edge scanned by this side, and that edge
+        int best;
+        int meetFrom;
+        int meetTo;
+        // if not null, heap priorities are dist + heuristic.estimate(node, target)
+        Heuristic heuristic;
+        int target;
+
+        Frontier(IntAdjacency adj) {
+            this.adj = adj;
+            int n = adj.getNodeCount();
+            dist = new int[n];
+            pred = new int[n];
+            reached = new int[n];
+            settled = new int[n];
+            heap = new IndexedHeap(n);
+        }
+
+        void start(int source) {
+            heap.clear();
+            if (round == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                Arrays.fill(settled, 0);
+                round = 0;
+            }
+            round++;
+            settledCount = 0;
+            reach(source, 0, -1);
+            heap.insert(source, 0);
+        }
+
+        boolean isReached(int u) {
+            return reached[u] == round;
+        }
+
+        int settleNext() {
+            int u = heap.poll();
+            settled[u] = round;
+            settledCount++;
+            return u;
+        }
+
+        /**
+         * Relax every edge leaving u. If other is not null, it is the search
+         * coming from the opposite end, and every edge that reaches one of its
+         * nodes is a candidate meeting point.
+         */
+        void relax(int u, Frontier other) {
+            int d = dist[u];
+            int degree = adj.degree(u);
+            for (int i = 0; i < degree; i++) {
+                int v = adj.neighbor(u, i);
+                if (settled[v] == round) {
+                    continue;
+                }
+                int cost = d + adj.weight(u, i);
+                if (reached[v] != round || cost < dist[v]) {
+                    reach(v, cost, u);
+                    if (heuristic == null) {
+                        heap.insertOrDecrease(v, cost);
+                    } else {
+                        heap.insertOrDecrease(v, cost + heuristic.estimate(v, target));
+                    }
+                }
+                if (other != null && other.isReached(v) && cost + other.dist[v] < best) {
+                    best = cost + other.dist[v];
+                    meetFrom = u;
+                    meetTo = v;
+                }
+            }
+        }
+
+        private void reach(int u, int d, int from) {
+            reached[u] = round;
+            dist[u] = d;
+            pred[u] = from;
+        }
+
+        /**
+         * Return the nodes on the way from the start of this search to u,
+         * or from u to the start if fromStart is false.
+         */
+        List<INode> pathTo(int u, boolean fromStart) {
+            List<INode> path = new ArrayList<INode>();
+            for (int v = u; v >= 0; v = pred[v]) {
+                path.add(graph.nodeById(v));
+            }
+            if (fromStart) {
+                Collections.reverse(path);
+            }
+            return path;
+        }
+    }
+}
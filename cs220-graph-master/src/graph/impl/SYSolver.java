@@ -7,7 +7,6 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
 
 import graph.IGraph;
@@ -54,20 +53,22 @@ public class SYSolver
     public static IGraph readGraphFromFile(InputStream in) throws IOException
     {
         IGraph g=new Graph();
-        Scanner scan=new Scanner(in);
+        ByteTokenizer scan=new ByteTokenizer(in);
         int numNodes=scan.nextInt();
         int numEdges=scan.nextInt();
         for (int i=0; i<numEdges; i++) {
             String srcName=scan.next();
             String dstName=scan.next();
-            String transportType=scan.next();
             int transportTypeInt = 0;
-            if (transportType.equals("T")){
+            if (scan.nextEquals("T")){
                 transportTypeInt = 1;
-            } else if (transportType.equals("B")){
+            } else if (scan.nextEquals("B")){
                 transportTypeInt = 2;
-            } else if (transportType.equals("U")){
+            } else if (scan.nextEquals("U")){
                 transportTypeInt = 4;
+            } else {
+                // unknown transport type
+                scan.next();
             }
             INode src=g.getOrCreateNode(srcName);
             INode dst=g.getOrCreateNode(dstName);
@@ -115,7 +116,7 @@ public class SYSolver
      */
     public static Map<String,Point> readPositionPoints(String filename) throws IOException {
         Map<String,Point> map=new HashMap<String,Point>();
-        Scanner scan=new Scanner(new FileInputStream(filename));
+        ByteTokenizer scan=new ByteTokenizer(new FileInputStream(filename));
         int numPoints=scan.nextInt();
         for (int i=0; i<numPoints; i++) {
             String num=scan.next();
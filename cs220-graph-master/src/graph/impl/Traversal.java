@@ -0,0 +1,149 @@
+package graph.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import graph.IGraph;
+import graph.INode;
+import graph.TraversalControl;
+import graph.TraversalVisitor;
+
+/**
+ * A lazy breadth-first or depth-first walk over a graph, visiting neighbors in
+ * the order of the adjacency rows (alphabetical for {@link CompactGraph} and
+ * {@link Graph#snapshot()}) and in the same order as
+ * {@link IGraph#breadthFirstSearch(String, graph.NodeVisitor)} and
+ * {@link IGraph#depthFirstSearch(String, graph.NodeVisitor)}.
+ *
+ * The neighbors of a node are not added to the queue (or stack) until the
+ * caller asks for the node after it, so a caller that stops early only pays
+ * for the part of the graph it saw, and {@link #skipNeighbors()} can still
+ * prune the node that was just returned.
+ */
+class Traversal implements Iterator<INode>
+{
+    private final IGraph graph;
+    private final IntAdjacency adj;
+    private final boolean depthFirst;
+    // breadth-first: marked when queued; depth-first: marked when visited
+    private final BitSet seen;
+    // a queue (items[head..tail)) or a stack (items[0..tail))
+    private int[] items = new int[16];
+    private int head;
+    private int tail;
+    // the node returned last, whose neighbors have not been added yet, or -1
+    private int pending = -1;
+    // depth-first: the next node to return, already popped and marked, or -1
+    private int lookahead = -1;
+
+    Traversal(IGraph graph, IntAdjacency adj, int start, boolean depthFirst) {
+        this.graph = graph;
+        this.adj = adj;
+        this.depthFirst = depthFirst;
+        this.seen = new BitSet(adj.getNodeCount());
+        items[tail++] = start;
+        if (!depthFirst) {
+            seen.set(start);
+        }
+    }
+
+    /**
+     * Walk the graph from the node with the given id, calling the visitor on
+     * each node and obeying the {@link TraversalControl} it returns.
+     */
+    static void walk(IGraph graph, IntAdjacency adj, int start, boolean depthFirst, TraversalVisitor v) {
+        Traversal t = new Traversal(graph, adj, start, depthFirst);
+        while (t.hasNext()) {
+            TraversalControl control = v.visit(t.next());
+            if (control == TraversalControl.STOP) {
+                return;
+            }
+            if (control == TraversalControl.SKIP_NEIGHBORS) {
+                t.skipNeighbors();
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        expandPending();
+        if (!depthFirst) {
+            return head < tail;
+        }
+        while (lookahead < 0 && tail > 0) {
+            int u = items[--tail];
+            if (!seen.get(u)) {
+                seen.set(u);
+                lookahead = u;
+            }
+        }
+        return lookahead >= 0;
+    }
+
+    @Override
+    public INode next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int u;
+        if (depthFirst) {
+            u = lookahead;
+            lookahead = -1;
+        } else {
+            u = items[head++];
+        }
+        pending = u;
+        return graph.nodeById(u);
+    }
+
+    /**
+     * Do not explore the neighbors of the node returned by the last call
+     * to {@link #next()}.
+     */
+    void skipNeighbors() {
+        pending = -1;
+    }
+
+    private void expandPending() {
+        int u = pending;
+        if (u < 0) {
+            return;
+        }
+        pending = -1;
+        if (depthFirst) {
+            // push in reverse so the first neighbor is popped first
+            for (int i = adj.degree(u) - 1; i >= 0; i--) {
+                int w = adj.neighbor(u, i);
+                if (!seen.get(w)) {
+                    push(w);
+                }
+            }
+        } else {
+            int degree = adj.degree(u);
+            for (int i = 0; i < degree; i++) {
+                int w = adj.neighbor(u, i);
+                if (!seen.get(w)) {
+                    seen.set(w);
+                    push(w);
+                }
+            }
+        }
+    }
+
+    private void push(int u) {
+        if (tail == items.length) {
+            if (head >= items.length / 2) {
+                // mostly consumed: slide the queue back to the front instead of growing
+                System.arraycopy(items, head, items, 0, tail - head);
+                tail -= head;
+                head = 0;
+            }
+            if (tail == items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+        }
+        items[tail++] = u;
+    }
+}
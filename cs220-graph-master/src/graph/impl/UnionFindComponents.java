@@ -0,0 +1,93 @@
+package graph.impl;
+
+import graph.ConnectedComponents;
+import graph.IGraph;
+import graph.INode;
+
+/**
+ * Connected components kept in a {@link DisjointSet} over the node ids.
+ *
+ * The components are labeled the first time they are asked for, by one
+ * union per edge. After that, {@link #nodeAdded()} and
+ * {@link #edgeAdded(int, int)} keep them up to date for the price of a single
+ * union. A disjoint set cannot split a set again, so {@link #invalidate()},
+ * called when an edge is removed, just drops the labels, and the next query
+ * labels every node again from the current edges.
+ *
+ * Like the graphs themselves, this is not safe to use from several threads
+ * while the graph changes: even a query can shorten paths in the set.
+ */
+public class UnionFindComponents implements ConnectedComponents
+{
+    private final IGraph graph;
+    private DisjointSet sets;
+
+    /**
+     * Create the components of the given graph. Nothing is labeled until
+     * the first query.
+     *
+     * @param graph
+     */
+    public UnionFindComponents(IGraph graph) {
+        this.graph = graph;
+    }
+
+    public int getComponentCount() {
+        return labels().getSetCount();
+    }
+
+    public boolean sameComponent(INode a, INode b) {
+        DisjointSet s = labels();
+        return s.sameSet(graph.getId(a), graph.getId(b));
+    }
+
+    public int getComponentSize(INode node) {
+        DisjointSet s = labels();
+        return s.getSetSize(graph.getId(node));
+    }
+
+    public int getComponent(INode node) {
+        DisjointSet s = labels();
+        return s.find(graph.getId(node));
+    }
+
+    /**
+     * Called when the graph gets a new node, with the next id.
+     */
+    void nodeAdded() {
+        if (sets != null) {
+            sets.add();
+        }
+    }
+
+    /**
+     * Called when the graph gets an edge between the nodes with the given ids.
+     */
+    void edgeAdded(int u, int v) {
+        if (sets != null) {
+            sets.union(u, v);
+        }
+    }
+
+    /**
+     * Called when the graph loses an edge.
+     */
+    void invalidate() {
+        sets = null;
+    }
+
+    private DisjointSet labels() {
+        if (sets == null) {
+            IntAdjacency adj = IntAdjacency.of(graph);
+            DisjointSet s = new DisjointSet(adj.getNodeCount());
+            for (int u = 0; u < adj.getNodeCount(); u++) {
+                int degree = adj.degree(u);
+                for (int i = 0; i < degree; i++) {
+                    s.union(u, adj.neighbor(u, i));
+                }
+            }
+            sets = s;
+        }
+        return sets;
+    }
+}
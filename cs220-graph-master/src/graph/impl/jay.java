@@ -1,28 +1,31 @@
 package graph.impl;
 //class for Dijkstra's part in Graph.
-import java.nio.file.Path;
 
-public class jay implements Comparable<Path> {
-    private String lilG;
+/**
+ * Entry in Dijkstra's priority queue: a node id and the cost of the
+ * path that reached it.
+ */
+public class jay implements Comparable<jay> {
+    private int node;
     private int ash;
 
-    public jay(String lilG, int ash){
-        this.lilG = lilG;
+    public jay(int node, int ash){
+        this.node = node;
         this.ash = ash;
     }
 
-    public int compareTo(Path o){
-        return this.ash-o.getNameCount();
+    public int compareTo(jay o){
+        return Integer.compare(this.ash, o.ash);
     }
     public String toString(){
-        return this.lilG+"with cost "+this.ash;
+        return this.node+" with cost "+this.ash;
     }
 
-    public String getDest(){
-        return lilG;
+    public int getDest(){
+        return node;
     }
 
-    public Integer cost() {
+    public int cost() {
         return ash;
     }
 }
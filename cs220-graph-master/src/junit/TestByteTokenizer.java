@@ -0,0 +1,113 @@
+package junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import graph.GraphFactories;
+import graph.IGraph;
+import graph.impl.ByteTokenizer;
+
+public class TestByteTokenizer
+{
+    private static ByteTokenizer tokenizer(String text, int bufferSize) {
+        return new ByteTokenizer(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), bufferSize);
+    }
+
+    @Test
+    public void testTokens() throws Exception
+    {
+        // a tiny buffer makes tokens run across refills
+        ByteTokenizer tok = tokenizer("  alpha\tbeta 42\r\n-17 +3\n\n2147483647 -2147483648 caf\u00e9 ", 16);
+        assertEquals("alpha", tok.next());
+        assertEquals("beta", tok.next());
+        assertEquals(42, tok.nextInt());
+        assertEquals(-17, tok.nextInt());
+        assertEquals(3, tok.nextInt());
+        assertEquals(Integer.MAX_VALUE, tok.nextInt());
+        assertEquals(Integer.MIN_VALUE, tok.nextInt());
+        assertFalse(tok.nextEquals("cafe"));
+        assertEquals("caf\u00e9", tok.next());
+        assertFalse(tok.hasNext());
+        try {
+            tok.next();
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLongTokens() throws Exception
+    {
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longName.append("x").append(i);
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("n").append(i % 2000).append(' ').append(longName).append('\n');
+        }
+        ByteTokenizer tok = tokenizer(text.toString(), 32);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("n" + (i % 2000), tok.next());
+            assertEquals(longName.toString(), tok.next());
+        }
+        assertFalse(tok.hasNext());
+    }
+
+    @Test
+    public void testNotAnInt() throws Exception
+    {
+        for (String bad : new String[] {"12a", "-", "2147483648", "-2147483649", "T"}) {
+            try {
+                tokenizer(bad, 16).nextInt();
+                fail(bad);
+            } catch (InputMismatchException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testFactories() throws Exception
+    {
+        String edges = "A B 3\nB C 7\r\nA D 8";
+        IGraph g = GraphFactories.createUndirectedWeightedGraphFromEdgeList(
+                new ByteArrayInputStream(edges.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(4, g.getAllNodes().size());
+        assertEquals(7, g.getOrCreateNode("C").getWeight(g.getOrCreateNode("B")));
+        IGraph h = GraphFactories.createUndirectedGraphFromAdjacencyList(
+                new ByteArrayInputStream("A B\nA C\nB C\nC D\n".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(h.getOrCreateNode("D").hasEdge(h.getOrCreateNode("C")));
+        assertEquals(4, h.getAllNodes().size());
+    }
+
+    @Test
+    public void testFactoriesGrowTheirBatches() throws Exception
+    {
+        // more edges than the first batch holds, so the buffers have to grow
+        StringBuilder weighted = new StringBuilder();
+        StringBuilder plain = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            weighted.append("n").append(i).append(" n").append(i + 1).append(" ").append(i % 7).append("\n");
+            plain.append("n").append(i).append(" n").append(i + 1).append("\n");
+        }
+        IGraph g = GraphFactories.createUndirectedWeightedGraphFromEdgeList(
+                new ByteArrayInputStream(weighted.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(5001, g.getAllNodes().size());
+        assertEquals(4999 % 7, g.getOrCreateNode("n5000").getWeight(g.getOrCreateNode("n4999")));
+        IGraph h = GraphFactories.createUndirectedGraphFromAdjacencyList(
+                new ByteArrayInputStream(plain.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(5001, h.getAllNodes().size());
+        assertTrue(h.getOrCreateNode("n1024").hasEdge(h.getOrCreateNode("n1025")));
+    }
+}
@@ -0,0 +1,225 @@
+package junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import graph.GraphFactories;
+import graph.IGraph;
+import graph.INode;
+import graph.impl.CompactGraph;
+import graph.impl.Graph;
+import graph.impl.MappedEdgeListLoader;
+
+public class TestCompactGraph
+{
+    @Test
+    public void testFreeze()
+    {
+        IGraph g = new Graph();
+        INode a = g.getOrCreateNode("A");
+        INode b = g.getOrCreateNode("B");
+        INode c = g.getOrCreateNode("C");
+        g.getOrCreateNode("D");
+        a.addUndirectedEdgeToNode(b, 5);
+        b.addDirectedEdgeToNode(c, 7);
+
+        CompactGraph cg = CompactGraph.freeze(g);
+        assertEquals(4, cg.getNodeCount());
+        assertEquals(3, cg.getEdgeCount());
+        assertTrue(cg.containsNode("D"));
+        INode ca = cg.getOrCreateNode("A");
+        INode cb = cg.getOrCreateNode("B");
+        INode cc = cg.getOrCreateNode("C");
+        assertEquals(5, ca.getWeight(cb));
+        assertEquals(5, cb.getWeight(ca));
+        assertEquals(7, cb.getWeight(cc));
+        assertFalse(cc.hasEdge(cb));
+        assertEquals(0, cg.getOrCreateNode("D").getNeighbors().size());
+    }
+
+    @Test
+    public void testImmutable()
+    {
+        CompactGraph cg = new CompactGraph.Builder().addUndirectedEdge("A", "B", 1).build();
+        try {
+            cg.getOrCreateNode("Z");
+            fail("Should have thrown an exception");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            cg.getOrCreateNode("A").addDirectedEdgeToNode(cg.getOrCreateNode("B"), 2);
+            fail("Should have thrown an exception");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDuplicateEdgeKeepsLastWeight()
+    {
+        CompactGraph cg = new CompactGraph.Builder()
+                .addUndirectedEdge("A", "B", 5)
+                .addUndirectedEdge("A", "B", 8)
+                .build();
+        assertEquals(2, cg.getEdgeCount());
+        assertEquals(8, cg.getOrCreateNode("A").getWeight(cg.getOrCreateNode("B")));
+    }
+
+    @Test
+    public void testBFSAndDFSOrder()
+    {
+        // inserted out of order on purpose; traversal must still be alphabetical
+        CompactGraph cg = new CompactGraph.Builder()
+                .addUndirectedEdge("A", "D", 1)
+                .addUndirectedEdge("A", "C", 1)
+                .addUndirectedEdge("A", "B", 1)
+                .addUndirectedEdge("D", "E", 1)
+                .addUndirectedEdge("B", "E", 1)
+                .build();
+        List<String> bfs = new LinkedList<String>();
+        cg.breadthFirstSearch("A", n -> bfs.add(n.getName()));
+        assertEquals("[A, B, C, D, E]", bfs.toString());
+
+        List<String> dfs = new LinkedList<String>();
+        cg.depthFirstSearch("A", n -> dfs.add(n.getName()));
+        assertEquals("[A, B, E, D, C]", dfs.toString());
+    }
+
+    @Test
+    public void testDijkstra() throws Exception
+    {
+        CompactGraph g = GraphFactories.createCompactUndirectedWeightedGraphFromEdgeList(
+                new FileInputStream("tests/dijkstra1.txt"));
+        Map<INode, Integer> shortPaths = g.dijkstra("A");
+
+        assertEquals(7, shortPaths.size());
+        assertEquals(0, (int)shortPaths.get(g.getOrCreateNode("A")));
+        assertEquals(2, (int)shortPaths.get(g.getOrCreateNode("D")));
+        assertEquals(3, (int)shortPaths.get(g.getOrCreateNode("B")));
+        assertEquals(8, (int)shortPaths.get(g.getOrCreateNode("E")));
+        assertEquals(10, (int)shortPaths.get(g.getOrCreateNode("C")));
+        assertEquals(11, (int)shortPaths.get(g.getOrCreateNode("F")));
+        assertEquals(11, (int)shortPaths.get(g.getOrCreateNode("G")));
+    }
+
+    @Test
+    public void testPrimJarnik() throws Exception
+    {
+        CompactGraph graph = GraphFactories.createCompactUndirectedWeightedGraphFromEdgeList(
+                new FileInputStream("tests/dijkstra1.txt"));
+        IGraph g2 = graph.primJarnik();
+        assertEquals(7, g2.getAllNodes().size());
+        INode a = g2.getOrCreateNode("A");
+        INode c = g2.getOrCreateNode("C");
+        INode g = g2.getOrCreateNode("G");
+        assertEquals(1, c.getWeight(g));
+        assertFalse(c.hasEdge(a));
+        assertEquals(2, a.getWeight(g2.getOrCreateNode("D")));
+        int total = 0;
+        for (INode n : g2.getAllNodes()) {
+            for (INode m : n.getNeighbors()) {
+                total += n.getWeight(m);
+            }
+        }
+        assertEquals(2 * (1 + 2 + 3 + 5 + 3 + 2), total);
+    }
+
+    @Test
+    public void testMappedLoaderMatchesStreamLoader() throws Exception
+    {
+        // several MB, so the file is split into many chunks
+        File file = File.createTempFile("edges", ".txt");
+        file.deleteOnExit();
+        Random random = new Random(220);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < 300000; i++) {
+                out.write("v" + random.nextInt(20000) + " v" + random.nextInt(20000) + " " + random.nextInt(100));
+                out.write(i % 7 == 0 ? "\r\n" : "\n");
+            }
+            // no newline at the end
+            out.write("v1 v2 5");
+        }
+        CompactGraph expected;
+        try (FileInputStream in = new FileInputStream(file)) {
+            expected = GraphFactories.createCompactUndirectedWeightedGraphFromEdgeList(in);
+        }
+        CompactGraph g = MappedEdgeListLoader.load(file.toPath(), true, new ForkJoinPool(4));
+        assertEquals(expected.getNodeCount(), g.getNodeCount());
+        assertEquals(expected.getEdgeCount(), g.getEdgeCount());
+        String previous = "";
+        for (INode node : g.getAllNodes()) {
+            // ids are in alphabetical order
+            assertTrue(previous.compareTo(node.getName()) < 0);
+            previous = node.getName();
+            INode other = expected.getOrCreateNode(node.getName());
+            assertEquals(other.getNeighbors().size(), node.getNeighbors().size());
+            for (INode next : other.getNeighbors()) {
+                assertEquals(other.getWeight(next), node.getWeight(g.getOrCreateNode(next.getName())));
+            }
+        }
+        assertEquals(5, g.getOrCreateNode("v1").getWeight(g.getOrCreateNode("v2")));
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception
+    {
+        IGraph g = new Graph();
+        Random random = new Random(220);
+        for (int i = 0; i < 3000; i++) {
+            String a = "n" + random.nextInt(1000);
+            String b = i % 100 == 0 ? "caf\u00e9" + random.nextInt(5) : "n" + random.nextInt(1000);
+            g.getOrCreateNode(a).addUndirectedEdgeToNode(g.getOrCreateNode(b), 1 + random.nextInt(50));
+        }
+        g.getOrCreateNode("lonely");
+        CompactGraph expected = CompactGraph.freeze(g);
+
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        GraphFactories.writeSnapshot(g, file.toPath());
+        CompactGraph loaded = GraphFactories.readSnapshot(file.toPath());
+
+        assertEquals(expected.getNodeCount(), loaded.getNodeCount());
+        assertEquals(expected.getEdgeCount(), loaded.getEdgeCount());
+        assertFalse(loaded.containsNode("missing"));
+        assertTrue(loaded.containsNode("caf\u00e90"));
+        for (int id = 0; id < expected.getNodeCount(); id++) {
+            INode node = loaded.nodeById(id);
+            assertEquals(expected.nodeById(id).getName(), node.getName());
+            assertEquals(id, loaded.getId(loaded.getOrCreateNode(node.getName())));
+            assertEquals(expected.degree(id), loaded.degree(id));
+            for (int i = 0; i < loaded.degree(id); i++) {
+                assertEquals(expected.neighbor(id, i), loaded.neighbor(id, i));
+                assertEquals(expected.weight(id, i), loaded.weight(id, i));
+                assertEquals(loaded.weight(id, i), node.getWeight(loaded.nodeById(loaded.neighbor(id, i))));
+            }
+        }
+        assertEquals(expected.shortestPath("n1", "n999").getCost(),
+                loaded.shortestPath("n1", "n999").getCost());
+
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("A B\n");
+        }
+        try {
+            GraphFactories.readSnapshot(file.toPath());
+            fail("Should have thrown an exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
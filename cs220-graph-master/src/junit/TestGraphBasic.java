@@ -5,12 +5,23 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.Test;
 
+import graph.GraphFactories;
 import graph.IGraph;
 import graph.INode;
+import graph.impl.ArrayNode;
 import graph.impl.Graph;
 import graph.impl.Node;
 
@@ -152,4 +163,236 @@ public class TestGraphBasic
         assertFalse(n1.hasEdge(n2));
         assertEquals(7, n2.getWeight(n1));
     }
+    
+    @Test
+    public void testNodeIds()
+    {
+        IGraph g = new Graph();
+        INode n1=g.getOrCreateNode("A");
+        INode n2=g.getOrCreateNode("B");
+        g.getOrCreateNode("A");
+        assertEquals(0, g.getId(n1));
+        assertEquals(1, g.getId(n2));
+        assertTrue(n2==g.nodeById(1));
+        try {
+            g.getId(new Node("A"));
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            // a node from outside the graph has no id
+        }
+    }
+    
+    @Test
+    public void testArrayNodeEdges()
+    {
+        ArrayNode hub = new ArrayNode("hub");
+        ArrayNode[] spokes = new ArrayNode[100];
+        for (int i=0; i<spokes.length; i++) {
+            spokes[i] = new ArrayNode("s"+i);
+            hub.addUndirectedEdgeToNode(spokes[i], i);
+        }
+        assertEquals(100, hub.getNeighbors().size());
+        hub.addDirectedEdgeToNode(spokes[7], 70);
+        assertEquals(70, hub.getWeight(spokes[7]));
+        assertEquals(7, spokes[7].getWeight(hub));
+        // remove every other edge, then make sure the rest are still found
+        for (int i=0; i<spokes.length; i+=2) {
+            hub.removeUndirectedEdgeToNode(spokes[i]);
+        }
+        assertEquals(50, hub.degree());
+        for (int i=0; i<spokes.length; i++) {
+            assertEquals(i % 2 == 1, hub.hasEdge(spokes[i]));
+            assertEquals(i % 2 == 1, spokes[i].hasEdge(hub));
+        }
+        assertEquals(99, hub.getWeight(spokes[99]));
+    }
+    
+    @Test
+    public void testArrayStorageGraph()
+    {
+        IGraph g = new Graph(Graph.NodeStorage.ARRAY);
+        INode n1=g.getOrCreateNode("A");
+        INode n2=g.getOrCreateNode("B");
+        INode n3=g.getOrCreateNode("C");
+        assertTrue(n1 instanceof ArrayNode);
+        n1.addUndirectedEdgeToNode(n2, 5);
+        n2.addUndirectedEdgeToNode(n3, 1);
+        n1.addUndirectedEdgeToNode(n3, 9);
+        assertEquals(6, (int)g.dijkstra("A").get(n3));
+        n1.removeUndirectedEdgeToNode(n2);
+        assertFalse(n2.hasEdge(n1));
+        assertEquals(9, (int)g.dijkstra("A").get(n3));
+    }
+
+    @Test
+    public void testDotWriters() throws Exception
+    {
+        IGraph g = new Graph();
+        INode a = g.getOrCreateNode("A");
+        INode b = g.getOrCreateNode("B");
+        INode c = g.getOrCreateNode("C");
+        a.addUndirectedEdgeToNode(b, 5);
+        b.addDirectedEdgeToNode(c, 7);
+        c.addDirectedEdgeToNode(c, 1);
+
+        String undirected = GraphFactories.toUndirectedWeightedDotFile(g, "G");
+        assertTrue(undirected.startsWith("graph G {\n"));
+        assertTrue(undirected.contains("A -- B [label=5];\n"));
+        assertFalse(undirected.contains("B -- A"));
+        assertTrue(undirected.contains("B -- C [label=7];\n"));
+        assertTrue(undirected.contains("C -- C [label=1];\n"));
+        assertEquals(5, undirected.split("\n").length);
+
+        // both directions of a directed pair are kept
+        String directed = GraphFactories.toDirectedUnWeightedDotFile(g, "G");
+        assertTrue(directed.contains("A -> B;\n"));
+        assertTrue(directed.contains("B -> A;\n"));
+        assertEquals(6, directed.split("\n").length);
+
+        StringWriter out = new StringWriter();
+        GraphFactories.writeDotFile(g, "G", false, true, out);
+        assertEquals(undirected, out.toString());
+
+        File file = File.createTempFile("graph", ".dot.gz");
+        file.deleteOnExit();
+        GraphFactories.writeDotFile(g, "G", true, false, file.toPath());
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            for (int len; (len = in.read(buf)) > 0; ) {
+                bytes.write(buf, 0, len);
+            }
+            assertEquals(directed, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testDotParser() throws Exception
+    {
+        String dot = "/* a test */ strict digraph \"my graph\" {\n"
+                + "  rankdir=LR; node [shape=box]\n"
+                + "  # a comment\n"
+                + "  A -> B -> \"C D\" [color=red, label=4];\n"
+                + "  B -- E [weight=9 label=\"x\"] // undirected\n"
+                + "  subgraph cluster0 { F; \"say \\\"hi\\\"\" -> A }\n"
+                + "  G:port -> A\n"
+                + "}\n";
+        IGraph g = GraphFactories.readFromDotFile(new ByteArrayInputStream(dot.getBytes(StandardCharsets.UTF_8)));
+        INode a = g.getOrCreateNode("A");
+        INode b = g.getOrCreateNode("B");
+        INode cd = g.getOrCreateNode("C D");
+        INode e = g.getOrCreateNode("E");
+        assertEquals(4, a.getWeight(b));
+        assertEquals(4, b.getWeight(cd));
+        assertFalse(b.hasEdge(a));
+        assertEquals(9, b.getWeight(e));
+        assertEquals(9, e.getWeight(b));
+        assertTrue(g.getOrCreateNode("say \"hi\"").hasEdge(a));
+        assertEquals(1, g.getOrCreateNode("G").getWeight(a));
+        assertEquals(0, g.getOrCreateNode("F").getNeighbors().size());
+        assertEquals(7, g.getAllNodes().size());
+
+        // what the writers produce reads back as the same graph
+        IGraph copy = GraphFactories.readFromDotFile(new ByteArrayInputStream(
+                GraphFactories.toUndirectedWeightedDotFile(g, "G").getBytes(StandardCharsets.UTF_8)));
+        assertEquals(GraphFactories.toUndirectedWeightedDotFile(g, "G").length(),
+                GraphFactories.toUndirectedWeightedDotFile(copy, "G").length());
+        assertEquals(9, copy.getOrCreateNode("B").getWeight(copy.getOrCreateNode("E")));
+
+        // a subgraph at either end of an edge stands for every node it mentions
+        dot = "digraph { A -> {B C} -> subgraph s { D; E -> F } [weight=2] }";
+        IGraph sub = GraphFactories.readFromDotFile(new ByteArrayInputStream(dot.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(6, sub.getAllNodes().size());
+        assertEquals(2, sub.getOrCreateNode("A").getNeighbors().size());
+        for (String from : new String[] {"B", "C"}) {
+            assertEquals(2, sub.getOrCreateNode("A").getWeight(sub.getOrCreateNode(from)));
+            for (String to : new String[] {"D", "E", "F"}) {
+                assertEquals(2, sub.getOrCreateNode(from).getWeight(sub.getOrCreateNode(to)));
+            }
+        }
+        assertEquals(1, sub.getOrCreateNode("E").getWeight(sub.getOrCreateNode("F")));
+        assertFalse(sub.getOrCreateNode("D").hasEdge(sub.getOrCreateNode("A")));
+
+        // backslashes in names survive a round trip, even at the end
+        IGraph slashes = new Graph();
+        slashes.getOrCreateNode("C:\\dir").addUndirectedEdgeToNode(slashes.getOrCreateNode("ends\\"), 3);
+        slashes.getOrCreateNode("ends\\").addUndirectedEdgeToNode(slashes.getOrCreateNode("\\\"\\"), 5);
+        copy = GraphFactories.readFromDotFile(new ByteArrayInputStream(
+                GraphFactories.toUndirectedWeightedDotFile(slashes, "G").getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, copy.getAllNodes().size());
+        assertEquals(3, copy.getOrCreateNode("C:\\dir").getWeight(copy.getOrCreateNode("ends\\")));
+        assertEquals(5, copy.getOrCreateNode("ends\\").getWeight(copy.getOrCreateNode("\\\"\\")));
+
+        try {
+            GraphFactories.readFromDotFile(new ByteArrayInputStream("graph { A -- }".getBytes(StandardCharsets.UTF_8)));
+            fail("Should have thrown an exception");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAddEdges()
+    {
+        for (Graph.NodeStorage storage : Graph.NodeStorage.values()) {
+            IGraph bulk = new Graph(storage);
+            IGraph single = new Graph(storage);
+            String[] src = new String[200];
+            String[] dst = new String[200];
+            int[] weights = new int[200];
+            for (int i = 0; i < 200; i++) {
+                src[i] = "n" + (i % 7);
+                dst[i] = "n" + (i * 13 % 50);
+                weights[i] = i;
+                single.getOrCreateNode(src[i]).addUndirectedEdgeToNode(single.getOrCreateNode(dst[i]), i);
+            }
+            bulk.addEdges(src, dst, weights, false);
+            assertEquals(single.getAllNodes().size(), bulk.getAllNodes().size());
+            for (INode node : single.getAllNodes()) {
+                INode other = bulk.getOrCreateNode(node.getName());
+                // new nodes get their ids in the order their names first appear
+                assertEquals(single.getId(node), bulk.getId(other));
+                assertEquals(node.getNeighbors().size(), other.getNeighbors().size());
+                for (INode next : node.getNeighbors()) {
+                    assertEquals(node.getWeight(next), other.getWeight(bulk.getOrCreateNode(next.getName())));
+                }
+            }
+
+            int a = bulk.getId(bulk.getOrCreateNode("n0"));
+            int b = bulk.getId(bulk.getOrCreateNode("n1"));
+            bulk.addEdges(new int[] { a }, new int[] { b }, null, true);
+            assertEquals(1, bulk.getOrCreateNode("n0").getWeight(bulk.getOrCreateNode("n1")));
+            // directed, so the edge back keeps its weight
+            assertEquals(single.getOrCreateNode("n1").getWeight(single.getOrCreateNode("n0")),
+                    bulk.getOrCreateNode("n1").getWeight(bulk.getOrCreateNode("n0")));
+
+            // a batch of old and new names, repeated, with the components watching
+            int n = bulk.getAllNodes().size();
+            int components = bulk.connectedComponents().getComponentCount();
+            bulk.addEdges(new String[] { "x", "n0", "x" }, new String[] { "y", "y", "z" }, null, false);
+            assertEquals(n + 3, bulk.getAllNodes().size());
+            assertEquals(n, bulk.getId(bulk.getOrCreateNode("x")));
+            assertEquals(n + 1, bulk.getId(bulk.getOrCreateNode("y")));
+            assertEquals(n + 2, bulk.getId(bulk.getOrCreateNode("z")));
+            assertEquals("x", bulk.nodeById(n).getName());
+            assertEquals(2, bulk.getOrCreateNode("y").getNeighbors().size());
+            assertEquals(components, bulk.connectedComponents().getComponentCount());
+            assertTrue(bulk.connectedComponents().sameComponent(bulk.getOrCreateNode("z"),
+                    bulk.getOrCreateNode("n0")));
+        }
+        IGraph g = new Graph();
+        try {
+            g.addEdges(new String[] { "A" }, new String[] { "B" }, new int[2], false);
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            g.addEdges(new int[] { 0 }, new int[] { 5 }, null, false);
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
 }
+
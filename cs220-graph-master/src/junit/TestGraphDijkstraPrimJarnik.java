@@ -4,14 +4,26 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
 import graph.GraphFactories;
 import graph.IGraph;
 import graph.INode;
+import graph.SpanningForest;
+import graph.impl.DisjointSet;
+import graph.impl.ExternalKruskal;
+import graph.impl.Graph;
+import graph.impl.MinimumSpanningTree;
 
 public class TestGraphDijkstraPrimJarnik
 {
@@ -102,4 +114,131 @@ graph dijkstra1 {
         assertEquals(2, a.getWeight(d));
         assertFalse(d.hasEdge(e));
     }
+    
+    @Test
+    public void testMinimumSpanningForest() throws Exception
+    {
+        IGraph graph = GraphFactories.createUndirectedWeightedGraphFromEdgeList(new FileInputStream("tests/dijkstra1.txt"));
+        SpanningForest prim = graph.minimumSpanningForest();
+        assertEquals(6, prim.getEdgeCount());
+        assertEquals(1, prim.getTreeCount());
+        assertEquals(16, prim.getTotalWeight());
+        SpanningForest boruvka = new MinimumSpanningTree(graph).boruvka();
+        assertEquals(16, boruvka.getTotalWeight());
+        IGraph tree = boruvka.toGraph();
+        assertEquals(2, tree.getOrCreateNode("C").getWeight(tree.getOrCreateNode("F")));
+        assertFalse(tree.getOrCreateNode("A").hasEdge(tree.getOrCreateNode("C")));
+    }
+    
+    /**
+     * Edges stored in one direction only still join both of their ends,
+     * whichever way they point.
+     */
+    @Test
+    public void testDirectedEdges() throws Exception
+    {
+        IGraph g = new Graph();
+        g.getOrCreateNode("A").addDirectedEdgeToNode(g.getOrCreateNode("B"), 1);
+        g.getOrCreateNode("D").addDirectedEdgeToNode(g.getOrCreateNode("B"), 2);
+        g.getOrCreateNode("C").addDirectedEdgeToNode(g.getOrCreateNode("D"), 3);
+        g.getOrCreateNode("B").addDirectedEdgeToNode(g.getOrCreateNode("C"), 5);
+        MinimumSpanningTree mst = new MinimumSpanningTree(g);
+        for (SpanningForest forest : new SpanningForest[] { mst.prim(), mst.boruvka(), mst.kruskal() }) {
+            assertEquals(6, forest.getTotalWeight());
+            assertEquals(3, forest.getEdgeCount());
+            assertEquals(1, forest.getTreeCount());
+        }
+
+        // and a bigger one, with the rounds of Boruvka split across threads
+        int n = 20000;
+        Random random = new Random(220);
+        IGraph big = new Graph();
+        for (int i = 0; i < n; i++) {
+            big.getOrCreateNode("n" + i);
+        }
+        int m = 50000;
+        int[] src = new int[m];
+        int[] dst = new int[m];
+        int[] wt = new int[m];
+        for (int e = 0; e < m; e++) {
+            src[e] = random.nextInt(n);
+            dst[e] = random.nextInt(n);
+            wt[e] = random.nextInt(50);
+        }
+        big.addEdges(src, dst, wt, true);
+        mst = new MinimumSpanningTree(big);
+        long total = mst.kruskal().getTotalWeight();
+        assertEquals(total, mst.prim().getTotalWeight());
+        assertEquals(total, mst.boruvka(new ForkJoinPool(4)).getTotalWeight());
+    }
+
+    /**
+     * A random graph big enough for Boruvka to split its rounds across
+     * threads, with many equal weights and a few separate components.
+     */
+    @Test
+    public void testParallelBoruvka() throws Exception
+    {
+        int n = 20000;
+        Random random = new Random(220);
+        IGraph g = new Graph();
+        for (int i = 0; i < n; i++) {
+            g.getOrCreateNode("n" + i);
+        }
+        int m = 60000;
+        int[] src = new int[m];
+        int[] dst = new int[m];
+        int[] wt = new int[m];
+        for (int e = 0; e < m; e++) {
+            // nodes 0-9 have no edges, so there are at least 11 trees
+            src[e] = 10 + random.nextInt(n - 10);
+            dst[e] = 10 + random.nextInt(n - 10);
+            wt[e] = random.nextInt(50);
+        }
+        g.addEdges(src, dst, wt, false);
+
+        SpanningForest prim = g.minimumSpanningForest();
+        SpanningForest boruvka = new MinimumSpanningTree(g).boruvka(new ForkJoinPool(4));
+        assertEquals(prim.getTotalWeight(), boruvka.getTotalWeight());
+        assertEquals(prim.getEdgeCount(), boruvka.getEdgeCount());
+        assertTrue(prim.getTreeCount() >= 11);
+        // a forest: no edge closes a cycle
+        DisjointSet sets = new DisjointSet(n);
+        for (int e = 0; e < boruvka.getEdgeCount(); e++) {
+            assertTrue(sets.union(boruvka.getSource(e), boruvka.getTarget(e)));
+        }
+        assertEquals(prim.getTreeCount(), sets.getSetCount());
+    }
+    
+    @Test
+    public void testExternalKruskal() throws Exception
+    {
+        SpanningForest small = GraphFactories.minimumSpanningForestFromEdgeList(Paths.get("tests/dijkstra1.txt"));
+        assertEquals(6, small.getEdgeCount());
+        assertEquals(16, small.getTotalWeight());
+        IGraph tree = small.toGraph();
+        assertEquals(3, tree.getOrCreateNode("A").getWeight(tree.getOrCreateNode("B")));
+
+        // enough edges for a few dozen sorted runs on disk, with no pair twice,
+        // since a graph keeps only the last weight of a pair
+        Random random = new Random(220);
+        StringBuilder edges = new StringBuilder();
+        Set<Long> pairs = new HashSet<Long>();
+        while (pairs.size() < 30000) {
+            int a = random.nextInt(5000);
+            int b = random.nextInt(5000);
+            if (pairs.add((long) Math.min(a, b) << 32 | Math.max(a, b))) {
+                edges.append('n').append(a).append(" n").append(b)
+                        .append(' ').append(random.nextInt(100)).append('\n');
+            }
+        }
+        byte[] bytes = edges.toString().getBytes(StandardCharsets.UTF_8);
+        IGraph g = GraphFactories.createUndirectedWeightedGraphFromEdgeList(new ByteArrayInputStream(bytes));
+        SpanningForest prim = g.minimumSpanningForest();
+        SpanningForest external = ExternalKruskal.fromEdgeList(new ByteArrayInputStream(bytes), 1000,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+        assertEquals(prim.getTotalWeight(), external.getTotalWeight());
+        assertEquals(prim.getTreeCount(), external.getTreeCount());
+        assertEquals(prim.getTotalWeight(), new MinimumSpanningTree(g).kruskal().getTotalWeight());
+    }
 }
@@ -0,0 +1,63 @@
+package junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graph.impl.IndexedHeap;
+
+public class TestIndexedHeap
+{
+    @Test
+    public void testDecreaseKey()
+    {
+        IndexedHeap heap = new IndexedHeap(5, 2);
+        heap.insert(0, 50);
+        heap.insert(1, 40);
+        heap.insert(2, 30);
+        heap.decreaseKey(0, 10);
+        assertFalse(heap.insertOrDecrease(1, 45));
+        assertTrue(heap.insertOrDecrease(1, 20));
+        assertEquals(3, heap.size());
+        assertEquals(0, heap.poll());
+        assertEquals(20, heap.peekPriority());
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(0));
+    }
+
+    @Test
+    public void testRandomAgainstSort()
+    {
+        Random random = new Random(220);
+        for (int arity = 2; arity <= 8; arity++) {
+            int n = 1000;
+            IndexedHeap heap = new IndexedHeap(n, arity);
+            int[] best = new int[n];
+            Arrays.fill(best, Integer.MAX_VALUE);
+            for (int i = 0; i < 5000; i++) {
+                int id = random.nextInt(n);
+                int priority = random.nextInt(100000);
+                heap.insertOrDecrease(id, priority);
+                best[id] = Math.min(best[id], priority);
+            }
+            int last = Integer.MIN_VALUE;
+            while (!heap.isEmpty()) {
+                int priority = heap.peekPriority();
+                int id = heap.poll();
+                assertEquals(best[id], priority);
+                assertTrue(priority >= last);
+                last = priority;
+            }
+            heap.insert(3, 1);
+            heap.clear();
+            assertFalse(heap.contains(3));
+        }
+    }
+}
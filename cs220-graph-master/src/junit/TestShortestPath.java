@@ -0,0 +1,454 @@
+package junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import graph.DistanceMatrix;
+import graph.GraphFactories;
+import graph.GridGraph;
+import graph.Heuristic;
+import graph.IGraph;
+import graph.INode;
+import graph.SearchMode;
+import graph.ShortestPath;
+import graph.impl.AllPairsShortestPaths;
+import graph.impl.BatchDijkstra;
+import graph.impl.Graph;
+import graph.impl.Heuristics;
+import graph.impl.ImplicitGridGraph;
+import graph.impl.PathSearch;
+import graph.impl.SYSolver;
+
+public class TestShortestPath
+{
+    private static List<String> names(ShortestPath path) {
+        List<String> names = new ArrayList<String>();
+        for (INode n : path.getNodes()) {
+            names.add(n.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testShortestPath() throws Exception
+    {
+        IGraph g = GraphFactories.createUndirectedWeightedGraphFromEdgeList(new FileInputStream("tests/dijkstra1.txt"));
+        ShortestPath path = g.shortestPath("A", "F");
+        assertTrue(path.isReachable());
+        assertEquals(11, path.getCost());
+        assertEquals("[A, B, E, F]", names(path).toString());
+
+        path = g.shortestPath("A", "D");
+        assertEquals(2, path.getCost());
+        assertEquals("[A, D]", names(path).toString());
+        // D is the closest node, so only A and D should be settled
+        assertEquals(2, path.getSettledCount());
+
+        assertEquals(0, g.shortestPath("C", "C").getCost());
+    }
+
+    @Test
+    public void testUnreachable()
+    {
+        IGraph g = new Graph();
+        g.getOrCreateNode("A").addDirectedEdgeToNode(g.getOrCreateNode("B"), 1);
+        g.getOrCreateNode("C");
+        assertFalse(g.shortestPath("A", "C").isReachable());
+        assertFalse(g.shortestPath("B", "A").isReachable());
+        assertEquals(-1, g.shortestPath("B", "A").getCost());
+        // the graph changed, so the cached snapshot must be rebuilt
+        g.getOrCreateNode("B").addDirectedEdgeToNode(g.getOrCreateNode("C"), 4);
+        assertEquals(5, g.shortestPath("A", "C").getCost());
+    }
+
+    @Test
+    public void testMatchesDijkstra() throws Exception
+    {
+        IGraph g = SYSolver.readGraphFromFile(new FileInputStream("files/scotmap.txt"));
+        PathSearch search = new PathSearch(g);
+        for (String src : new String[] {"1", "13", "89", "199"}) {
+            Map<INode, Integer> all = g.dijkstra(src);
+            for (INode dst : g.getAllNodes()) {
+                ShortestPath path = search.shortestPath(src, dst.getName());
+                assertEquals((int)all.get(dst), path.getCost());
+                assertEquals(src, path.getNodes().get(0).getName());
+                assertEquals(dst, path.getNodes().get(path.getNodes().size()-1));
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedQueries() throws Exception
+    {
+        Graph g = (Graph) SYSolver.readGraphFromFile(new FileInputStream("files/scotmap.txt"));
+        IGraph[] graphs = {
+            g,
+            g.snapshot(),
+            GridGraph.makeImplicitGridGraph(15, 15, ImplicitGridGraph.Connectivity.EIGHT),
+        };
+        for (IGraph graph : graphs) {
+            PathSearch fresh = new PathSearch(graph);
+            Random random = new Random(220);
+            List<INode> nodes = new ArrayList<INode>(graph.getAllNodes());
+            // every kind of query, one after another on the same graph
+            for (int i = 0; i < 60; i++) {
+                String src = nodes.get(random.nextInt(nodes.size())).getName();
+                String dst = nodes.get(random.nextInt(nodes.size())).getName();
+                int cost = fresh.shortestPath(src, dst).getCost();
+                assertEquals(cost, graph.shortestPath(src, dst).getCost());
+                assertEquals(cost, graph.shortestPath(src, dst, SearchMode.BIDIRECTIONAL).getCost());
+                assertEquals(cost, graph.shortestPath(src, dst, Heuristics.zero()).getCost());
+                assertEquals(cost, graph.shortestPath(src, dst, SearchMode.DIJKSTRA).getCost());
+            }
+            // and from several threads at once
+            nodes.parallelStream().limit(100).forEach(node -> {
+                String dst = nodes.get(0).getName();
+                assertEquals(new PathSearch(graph).shortestPath(node.getName(), dst).getCost(),
+                        graph.shortestPath(node.getName(), dst).getCost());
+            });
+        }
+
+        // a query after a change runs on the new nodes and edges
+        g.getOrCreateNode("1").addDirectedEdgeToNode(g.getOrCreateNode("200"), 7);
+        assertEquals(7, g.shortestPath("1", "200").getCost());
+        assertEquals(7, g.shortestPath("1", "200", SearchMode.BIDIRECTIONAL).getCost());
+    }
+
+    @Test
+    public void testBatchDijkstra() throws Exception
+    {
+        IGraph g = SYSolver.readGraphFromFile(new FileInputStream("files/scotmap.txt"));
+        BatchDijkstra batch = new BatchDijkstra(g, new ForkJoinPool(3));
+        List<String> names = new ArrayList<String>();
+        for (INode node : g.getAllNodes()) {
+            names.add(node.getName());
+        }
+        int[] sources = batch.idsOf(names);
+        int[][] rows = batch.distances(sources);
+        Map<Integer, int[]> streamed = new ConcurrentHashMap<Integer, int[]>();
+        batch.distances(sources, (source, dist) -> streamed.put(source, dist.clone()));
+        assertEquals(sources.length, streamed.size());
+        for (int i = 0; i < sources.length; i += 17) {
+            Map<INode, Integer> all = g.dijkstra(names.get(i));
+            for (INode dst : g.getAllNodes()) {
+                assertEquals((int)all.get(dst), rows[i][g.getId(dst)]);
+            }
+            assertTrue(Arrays.equals(rows[i], streamed.get(sources[i])));
+        }
+
+        // the nearest of several sources is the smallest of their rows
+        int[] some = batch.idsOf(Arrays.asList("1", "89", "199"));
+        int[] nearest = new int[sources.length];
+        int[] dist = batch.multiSource(some, nearest);
+        int[][] someRows = batch.distances(some);
+        for (int u = 0; u < dist.length; u++) {
+            int best = Integer.MAX_VALUE;
+            for (int[] row : someRows) {
+                best = Math.min(best, row[u]);
+            }
+            assertEquals(best, dist[u]);
+            assertEquals(dist[u], someRows[indexOf(some, nearest[u])][u]);
+        }
+
+        // unreachable nodes are -1
+        IGraph two = new Graph();
+        two.getOrCreateNode("A");
+        two.getOrCreateNode("B");
+        assertEquals(-1, new BatchDijkstra(two).distances(new int[] {0})[0][1]);
+    }
+
+    @Test
+    public void testAllPairsShortestPaths() throws Exception
+    {
+        IGraph g = SYSolver.readGraphFromFile(new FileInputStream("files/scotmap.txt"));
+        DistanceMatrix matrix = g.allPairsShortestPaths();
+        AllPairsShortestPaths apsp = new AllPairsShortestPaths(g, new ForkJoinPool(3));
+        assertTrue(Arrays.equals(matrix.getEntries(), apsp.floydWarshall().getEntries()));
+        assertTrue(Arrays.equals(matrix.getEntries(), apsp.repeatedDijkstra().getEntries()));
+        for (String src : new String[] {"1", "13", "89", "199"}) {
+            Map<INode, Integer> all = g.dijkstra(src);
+            for (INode dst : g.getAllNodes()) {
+                assertEquals((int)all.get(dst), matrix.getDistance(g.getOrCreateNode(src), dst));
+            }
+        }
+        assertEquals(g.shortestPath("1", "199").getCost(), matrix.getDistance("1", "199"));
+
+        // saved with one byte per entry, and loaded back only for the same graph
+        File file = File.createTempFile("scotmap", ".apsp");
+        file.deleteOnExit();
+        GraphFactories.writeDistanceMatrix(matrix, file.toPath());
+        assertEquals(24 + 199 * 199, file.length());
+        DistanceMatrix loaded = GraphFactories.readDistanceMatrix(g, file.toPath());
+        assertTrue(Arrays.equals(matrix.getEntries(), loaded.getEntries()));
+        try {
+            GraphFactories.readDistanceMatrix(GridGraph.makeGridGraph(3, 3), file.toPath());
+            fail("loaded a distance matrix for another graph");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBlockedFloydWarshall() throws Exception
+    {
+        // several blocks, the last one partial, and nodes that cannot be reached
+        Random random = new Random(220);
+        IGraph g = new Graph();
+        for (int i = 0; i < 150; i++) {
+            g.getOrCreateNode("n" + i);
+        }
+        for (int e = 0; e < 1200; e++) {
+            INode a = g.getOrCreateNode("n" + random.nextInt(140));
+            INode b = g.getOrCreateNode("n" + random.nextInt(140));
+            a.addDirectedEdgeToNode(b, 300 + random.nextInt(1000));
+        }
+        AllPairsShortestPaths apsp = new AllPairsShortestPaths(g, new ForkJoinPool(3));
+        DistanceMatrix fw = apsp.floydWarshall();
+        DistanceMatrix dijkstra = apsp.repeatedDijkstra();
+        assertTrue(Arrays.equals(dijkstra.getEntries(), fw.getEntries()));
+        assertEquals(-1, fw.getDistance("n1", "n145"));
+        assertFalse(fw.isReachable(g.getId(g.getOrCreateNode("n149")), 0));
+
+        // distances above 254 take two bytes per entry
+        File file = File.createTempFile("random", ".apsp");
+        file.deleteOnExit();
+        GraphFactories.writeDistanceMatrix(fw, file.toPath());
+        assertEquals(24 + 2 * 150 * 150, file.length());
+        assertTrue(Arrays.equals(fw.getEntries(), GraphFactories.readDistanceMatrix(g, file.toPath()).getEntries()));
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testBidirectionalMatchesDijkstra() throws Exception
+    {
+        IGraph g = SYSolver.readGraphFromFile(new FileInputStream("files/scotmap.txt"));
+        PathSearch search = new PathSearch(g);
+        long uni = 0;
+        long bi = 0;
+        for (INode src : g.getAllNodes()) {
+            for (INode dst : g.getAllNodes()) {
+                ShortestPath a = search.shortestPath(src.getName(), dst.getName(), SearchMode.DIJKSTRA);
+                ShortestPath b = search.shortestPath(src.getName(), dst.getName(), SearchMode.BIDIRECTIONAL);
+                assertEquals(a.getCost(), b.getCost());
+                assertEquals(src, b.getNodes().get(0));
+                assertEquals(dst, b.getNodes().get(b.getNodes().size()-1));
+                assertEquals(b.getCost(), pathCost(b));
+                uni += a.getSettledCount();
+                bi += b.getSettledCount();
+            }
+        }
+        assertTrue(bi < uni);
+    }
+
+    @Test
+    public void testBidirectionalSettlesNoMore() throws Exception
+    {
+        // stopping on the cheaper meeting point of either side, no query
+        // settles more nodes than one-sided Dijkstra
+        for (IGraph g : new IGraph[] {
+                SYSolver.readGraphFromFile(new FileInputStream("files/scotmap.txt")),
+                GridGraph.makeGridGraph(15, 15)}) {
+            PathSearch search = new PathSearch(g);
+            for (INode src : g.getAllNodes()) {
+                for (INode dst : g.getAllNodes()) {
+                    ShortestPath a = search.shortestPath(src.getName(), dst.getName(), SearchMode.DIJKSTRA);
+                    ShortestPath b = search.shortestPath(src.getName(), dst.getName(), SearchMode.BIDIRECTIONAL);
+                    assertTrue(src + " to " + dst, b.getSettledCount() <= a.getSettledCount());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBidirectionalDirected()
+    {
+        IGraph g = new Graph();
+        INode a = g.getOrCreateNode("A");
+        INode b = g.getOrCreateNode("B");
+        INode c = g.getOrCreateNode("C");
+        INode d = g.getOrCreateNode("D");
+        a.addDirectedEdgeToNode(b, 1);
+        b.addDirectedEdgeToNode(c, 1);
+        c.addDirectedEdgeToNode(d, 1);
+        a.addDirectedEdgeToNode(d, 10);
+        d.addDirectedEdgeToNode(a, 1);
+        ShortestPath path = g.shortestPath("A", "D", SearchMode.BIDIRECTIONAL);
+        assertEquals(3, path.getCost());
+        assertEquals("[A, B, C, D]", names(path).toString());
+        assertEquals(1, g.shortestPath("D", "A", SearchMode.BIDIRECTIONAL).getCost());
+        assertEquals("[B, C, D, A]", names(g.shortestPath("B", "A", SearchMode.BIDIRECTIONAL)).toString());
+        assertEquals(0, g.shortestPath("C", "C", SearchMode.BIDIRECTIONAL).getCost());
+    }
+
+    @Test
+    public void testAStarEuclidean() throws Exception
+    {
+        IGraph g = SYSolver.readGraphFromFile(new FileInputStream("files/scotmap.txt"));
+        Heuristic h = Heuristics.euclidean(g, SYSolver.readPositionPoints("files/scotpos.txt"));
+        PathSearch search = new PathSearch(g);
+        for (String src : new String[] {"1", "13", "89", "199"}) {
+            for (INode dst : g.getAllNodes()) {
+                ShortestPath a = search.shortestPath(src, dst.getName());
+                ShortestPath b = search.shortestPath(src, dst.getName(), h);
+                assertEquals(a.getCost(), b.getCost());
+                assertEquals(b.getCost(), pathCost(b));
+                assertEquals(dst, b.getNodes().get(b.getNodes().size()-1));
+            }
+        }
+    }
+
+    @Test
+    public void testAStarPartialPositions()
+    {
+        // u is far from t in the plane, but two steps away through v, which
+        // has no position: an estimate of 0 for v next to 200 for u would
+        // make A* settle t through the direct edge of weight 50
+        IGraph g = new Graph();
+        g.getOrCreateNode("s").addUndirectedEdgeToNode(g.getOrCreateNode("u"), 1);
+        g.getOrCreateNode("u").addUndirectedEdgeToNode(g.getOrCreateNode("v"), 1);
+        g.getOrCreateNode("v").addUndirectedEdgeToNode(g.getOrCreateNode("t"), 1);
+        g.getOrCreateNode("u").addUndirectedEdgeToNode(g.getOrCreateNode("b"), 100);
+        g.getOrCreateNode("s").addUndirectedEdgeToNode(g.getOrCreateNode("t"), 50);
+        Map<String, Point> positions = new HashMap<String, Point>();
+        positions.put("u", new Point(0, 0));
+        positions.put("b", new Point(100, 0));
+        positions.put("t", new Point(200, 0));
+        Heuristic h = Heuristics.euclidean(g, positions);
+        for (INode src : g.getAllNodes()) {
+            Map<INode, Integer> expected = g.dijkstra(src.getName());
+            for (INode dst : g.getAllNodes()) {
+                assertEquals((int)expected.get(dst), g.shortestPath(src.getName(), dst.getName(), h).getCost());
+            }
+        }
+        assertEquals(3, g.shortestPath("s", "t", h).getCost());
+
+        // the same graph with grid names, except for s and v
+        IGraph named = new Graph();
+        named.getOrCreateNode("s").addUndirectedEdgeToNode(named.getOrCreateNode("r0c0"), 1);
+        named.getOrCreateNode("r0c0").addUndirectedEdgeToNode(named.getOrCreateNode("v"), 1);
+        named.getOrCreateNode("v").addUndirectedEdgeToNode(named.getOrCreateNode("r0c200"), 1);
+        named.getOrCreateNode("r0c0").addUndirectedEdgeToNode(named.getOrCreateNode("r0c100"), 100);
+        named.getOrCreateNode("s").addUndirectedEdgeToNode(named.getOrCreateNode("r0c200"), 50);
+        assertEquals(3, named.shortestPath("s", "r0c200", Heuristics.manhattan(named)).getCost());
+    }
+
+    @Test
+    public void testAStarManhattan()
+    {
+        IGraph g = GridGraph.makeGridGraph(30, 30);
+        ShortestPath a = g.shortestPath("r15c0", "r15c29");
+        ShortestPath b = g.shortestPath("r15c0", "r15c29", Heuristics.manhattan(g));
+        assertEquals(29, b.getCost());
+        assertEquals(30, b.getNodes().size());
+        assertTrue(b.getSettledCount() < a.getSettledCount());
+        ShortestPath zero = g.shortestPath("r15c0", "r15c29", Heuristics.zero());
+        assertEquals(a.getSettledCount(), zero.getSettledCount());
+    }
+
+    @Test
+    public void testImplicitGridGraph()
+    {
+        IGraph stored = GridGraph.makeGridGraph(12, 17);
+        ImplicitGridGraph grid = GridGraph.makeImplicitGridGraph(12, 17, ImplicitGridGraph.Connectivity.FOUR);
+        assertEquals(stored.getAllNodes().size(), grid.getAllNodes().size());
+        for (INode node : stored.getAllNodes()) {
+            INode cell = grid.nodeById(stored.getId(node));
+            assertEquals(node.getName(), cell.getName());
+            assertEquals(node.getNeighbors().size(), cell.getNeighbors().size());
+            for (INode next : cell.getNeighbors()) {
+                assertTrue(node.hasEdge(stored.getOrCreateNode(next.getName())));
+            }
+        }
+        assertFalse(grid.containsNode("r12c0"));
+        assertFalse(grid.containsNode("r01c1"));
+        Map<INode, Integer> expected = stored.dijkstra("r3c4");
+        Map<INode, Integer> actual = grid.dijkstra("r3c4");
+        for (INode node : stored.getAllNodes()) {
+            assertEquals(expected.get(node), actual.get(grid.getOrCreateNode(node.getName())));
+        }
+        ShortestPath path = grid.shortestPath("r0c0", "r11c16", Heuristics.manhattan(grid));
+        assertEquals(27, path.getCost());
+        assertEquals(27, pathCost(path));
+
+        // with diagonals of weight 14 and straight steps of weight 10
+        ImplicitGridGraph octile = GridGraph.makeImplicitGridGraph(12, 17, ImplicitGridGraph.Connectivity.EIGHT, 10, 14);
+        assertEquals(8, octile.getOrCreateNode("r5c5").getNeighbors().size());
+        assertEquals(14, octile.getOrCreateNode("r5c5").getWeight(octile.getOrCreateNode("r6c4")));
+        ShortestPath diagonal = octile.shortestPath("r0c0", "r11c16", Heuristics.manhattan(octile));
+        assertEquals(11 * 14 + 5 * 10, diagonal.getCost());
+        assertEquals(octile.shortestPath("r0c0", "r11c16").getCost(), diagonal.getCost());
+        assertEquals(12 * 17, octile.parallelBreadthFirstSearch("r0c0").getReachedCount());
+    }
+
+    @Test
+    public void testImplicitGridBorders()
+    {
+        // thin grids put cells on both sides at once
+        int[][] sizes = { {1, 1}, {1, 5}, {5, 1}, {2, 2}, {3, 4} };
+        for (int[] size : sizes) {
+            IGraph stored = GridGraph.makeGridGraph(size[0], size[1]);
+            ImplicitGridGraph four = GridGraph.makeImplicitGridGraph(size[0], size[1], ImplicitGridGraph.Connectivity.FOUR);
+            ImplicitGridGraph eight = GridGraph.makeImplicitGridGraph(size[0], size[1], ImplicitGridGraph.Connectivity.EIGHT, 2, 3);
+            for (INode node : stored.getAllNodes()) {
+                INode cell = four.getOrCreateNode(node.getName());
+                assertEquals(node.getNeighbors().size(), cell.getNeighbors().size());
+                for (INode next : cell.getNeighbors()) {
+                    assertTrue(node.hasEdge(stored.getOrCreateNode(next.getName())));
+                }
+                int id = eight.getId(eight.getOrCreateNode(node.getName()));
+                int expected = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int r = eight.row(id) + dr;
+                        int c = eight.col(id) + dc;
+                        if ((dr != 0 || dc != 0) && r >= 0 && r < size[0] && c >= 0 && c < size[1]) {
+                            expected++;
+                        }
+                    }
+                }
+                assertEquals(expected, eight.getOrCreateNode(node.getName()).getNeighbors().size());
+                for (INode next : eight.getOrCreateNode(node.getName()).getNeighbors()) {
+                    int other = eight.getId(next);
+                    boolean diagonal = eight.row(other) != eight.row(id) && eight.col(other) != eight.col(id);
+                    assertEquals(diagonal ? 3 : 2, eight.getOrCreateNode(node.getName()).getWeight(next));
+                    assertTrue(Math.abs(eight.row(other) - eight.row(id)) <= 1);
+                    assertTrue(Math.abs(eight.col(other) - eight.col(id)) <= 1);
+                }
+            }
+        }
+    }
+
+    private static int pathCost(ShortestPath path) {
+        int cost = 0;
+        List<INode> nodes = path.getNodes();
+        for (int i = 1; i < nodes.size(); i++) {
+            cost += nodes.get(i-1).getWeight(nodes.get(i));
+        }
+        return cost;
+    }
+}
@@ -2,15 +2,39 @@ package junit;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
+import graph.BreadthFirstLevels;
+import graph.ConnectedComponents;
+import graph.DepthFirstTree;
+import graph.GraphFactories;
+import graph.GridGraph;
 import graph.IGraph;
 import graph.INode;
 import graph.NodeVisitor;
+import graph.TraversalControl;
+import graph.impl.CompactGraph;
+import graph.impl.DepthFirstSearch;
+import graph.impl.DirectionOptimizingBFS;
+import graph.impl.DisjointSet;
 import graph.impl.Graph;
+import graph.impl.ImplicitGridGraph;
+import graph.impl.Maze;
+import graph.impl.MazeGenerator;
+import graph.impl.ParallelBFS;
 
 public class TestXFS
 {
@@ -129,6 +153,292 @@ graph dfs1 {
         assertEquals("E", order.get(2));
     }
     
+    @Test
+    public void testIteratorsMatchVisitors() {
+        IGraph g = GridGraph.makeGridGraph(6, 7);
+        OrderedNodeVisitor bfs = new OrderedNodeVisitor();
+        g.breadthFirstSearch("r2c3", bfs);
+        OrderedNodeVisitor dfs = new OrderedNodeVisitor();
+        g.depthFirstSearch("r2c3", dfs);
+
+        List<String> order = new ArrayList<>();
+        for (Iterator<INode> it = g.breadthFirstIterator("r2c3"); it.hasNext(); ) {
+            order.add(it.next().getName());
+        }
+        assertEquals(bfs.getOrder(), order);
+        assertEquals(dfs.getOrder(),
+                g.depthFirstStream("r2c3").map(INode::getName).collect(Collectors.toList()));
+        assertEquals(bfs.getOrder().subList(0, 5),
+                g.breadthFirstStream("r2c3").limit(5).map(INode::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testImplicitGridSearchOrder() {
+        // rows and columns from 10 (and 100) on sort before the ones under them,
+        // and the implicit grid has to visit them in the same name order
+        int[][] sizes = { {12, 13}, {102, 3}, {3, 102} };
+        for (int[] size : sizes) {
+            IGraph stored = GridGraph.makeGridGraph(size[0], size[1]);
+            IGraph grid = GridGraph.makeImplicitGridGraph(size[0], size[1], ImplicitGridGraph.Connectivity.FOUR);
+            String start = size[0] > 10 && size[1] > 10 ? "r9c9" : "r1c1";
+            for (boolean depthFirst : new boolean[] {false, true}) {
+                OrderedNodeVisitor expected = new OrderedNodeVisitor();
+                OrderedNodeVisitor actual = new OrderedNodeVisitor();
+                if (depthFirst) {
+                    stored.depthFirstSearch(start, expected);
+                    grid.depthFirstSearch(start, actual);
+                } else {
+                    stored.breadthFirstSearch(start, expected);
+                    grid.breadthFirstSearch(start, actual);
+                }
+                assertEquals(expected.getOrder(), actual.getOrder());
+            }
+            assertEquals(stored.breadthFirstStream(start).map(INode::getName).collect(Collectors.toList()),
+                    grid.breadthFirstStream(start).map(INode::getName).collect(Collectors.toList()));
+            assertEquals(stored.depthFirstStream(start).map(INode::getName).collect(Collectors.toList()),
+                    grid.depthFirstStream(start).map(INode::getName).collect(Collectors.toList()));
+        }
+
+        // the diagonals sort in with the straight neighbors
+        ImplicitGridGraph eight = GridGraph.makeImplicitGridGraph(12, 12, ImplicitGridGraph.Connectivity.EIGHT);
+        for (INode node : eight.getAllNodes()) {
+            List<String> names = new ArrayList<>();
+            for (INode next : node.getNeighbors()) {
+                names.add(next.getName());
+            }
+            List<String> sorted = new ArrayList<>(names);
+            sorted.sort(null);
+            assertEquals(sorted, names);
+        }
+
+        // nodes of another graph are not nodes of the grid, whatever their names
+        try {
+            eight.getId(GridGraph.makeGridGraph(3, 3).getOrCreateNode("r1c1"));
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTraversalControl() {
+        IGraph g = GridGraph.makeGridGraph(10, 10);
+        List<String> seen = new ArrayList<>();
+        g.breadthFirstTraversal("r0c0", node -> {
+            seen.add(node.getName());
+            return node.getName().equals("r1c1") ? TraversalControl.STOP : TraversalControl.CONTINUE;
+        });
+        assertEquals("[r0c0, r0c1, r1c0, r0c2, r1c1]", seen.toString());
+
+        // never leaving column 0 means only the first column is reachable
+        List<String> column = new ArrayList<>();
+        g.depthFirstTraversal("r0c0", node -> {
+            column.add(node.getName());
+            return node.getName().startsWith("r0") || node.getName().endsWith("c0")
+                    ? TraversalControl.CONTINUE : TraversalControl.SKIP_NEIGHBORS;
+        });
+        assertTrue(column.contains("r9c0"));
+        assertTrue(column.contains("r1c5"));
+        assertFalse(column.contains("r2c5"));
+    }
+
+    @Test
+    public void testIteratorsWithoutSnapshot() {
+        // right after a change there is no snapshot, so the iterators sort the
+        // live edges of each node they expand, in the order of a frozen copy
+        Random random = new Random(11);
+        for (Graph.NodeStorage storage : Graph.NodeStorage.values()) {
+            Graph g = new Graph(storage);
+            for (int e = 0; e < 600; e++) {
+                g.getOrCreateNode("n" + random.nextInt(200))
+                        .addUndirectedEdgeToNode(g.getOrCreateNode("n" + random.nextInt(200)), 1);
+            }
+            String start = g.nodeById(0).getName();
+            CompactGraph frozen = CompactGraph.freeze(g);
+            assertEquals(frozen.breadthFirstStream(start).map(INode::getName).collect(Collectors.toList()),
+                    g.breadthFirstStream(start).map(INode::getName).collect(Collectors.toList()));
+            assertEquals(frozen.depthFirstStream(start).map(INode::getName).collect(Collectors.toList()),
+                    g.depthFirstStream(start).map(INode::getName).collect(Collectors.toList()));
+
+            g.getOrCreateNode(start).addUndirectedEdgeToNode(g.getOrCreateNode("new"), 1);
+            frozen = CompactGraph.freeze(g);
+            List<String> firstTen = new ArrayList<>();
+            g.depthFirstTraversal(start, node -> {
+                firstTen.add(node.getName());
+                return firstTen.size() < 10 ? TraversalControl.CONTINUE : TraversalControl.STOP;
+            });
+            assertEquals(frozen.depthFirstStream(start).limit(10).map(INode::getName).collect(Collectors.toList()),
+                    firstTen);
+        }
+    }
+
+    @Test
+    public void testRepeatedSearchSeesNewEdges() {
+        IGraph g = new Graph();
+        INode a = g.getOrCreateNode("A");
+        INode c = g.getOrCreateNode("C");
+        INode d = g.getOrCreateNode("D");
+        a.addUndirectedEdgeToNode(d, 1);
+        a.addUndirectedEdgeToNode(c, 1);
+
+        OrderedNodeVisitor v = new OrderedNodeVisitor();
+        g.breadthFirstSearch("A", v);
+        assertEquals("[A, C, D]", v.getOrder().toString());
+
+        // a new node and edge must show up, in order, in the next search
+        INode b = g.getOrCreateNode("B");
+        a.addUndirectedEdgeToNode(b, 1);
+        a.removeUndirectedEdgeToNode(c);
+        v = new OrderedNodeVisitor();
+        g.breadthFirstSearch("A", v);
+        assertEquals("[A, B, D]", v.getOrder().toString());
+        v = new OrderedNodeVisitor();
+        g.depthFirstSearch("A", v);
+        assertEquals("[A, B, D]", v.getOrder().toString());
+    }
+
+    @Test
+    public void testParallelBFSGrid() {
+        IGraph g = GridGraph.makeGridGraph(20, 30);
+        BreadthFirstLevels levels = g.parallelBreadthFirstSearch("r0c0");
+        assertEquals(20 + 30 - 1, levels.getLevelCount());
+        assertEquals(20 * 30, levels.getReachedCount());
+        assertEquals(1, levels.getLevel(0).size());
+        assertEquals("r0c0", levels.getLevel(0).get(0).getName());
+        for (INode node : g.getAllNodes()) {
+            String name = node.getName();
+            int c = name.indexOf('c');
+            int hops = Integer.parseInt(name.substring(1, c)) + Integer.parseInt(name.substring(c + 1));
+            assertEquals(hops, levels.getHops(node));
+        }
+        Set<String> two = new HashSet<>();
+        for (INode node : levels.getLevel(2)) {
+            two.add(node.getName());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("r0c2", "r1c1", "r2c0")), two);
+    }
+
+    @Test
+    public void testParallelBFSMatchesDijkstra() {
+        // big enough that the middle levels are split across workers
+        int n = 50000;
+        Random random = new Random(220);
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        for (int i = 0; i < n; i++) {
+            builder.addNode("n" + i);
+        }
+        for (int i = 0; i < n * 4; i++) {
+            builder.addDirectedEdge("n" + random.nextInt(n), "n" + random.nextInt(n), 1);
+        }
+        CompactGraph g = builder.build();
+        BreadthFirstLevels levels = new ParallelBFS(g, new ForkJoinPool(4)).search("n0");
+        Map<INode, Integer> dist = g.dijkstra("n0");
+        assertEquals(dist.size(), levels.getReachedCount());
+        for (INode node : g.getAllNodes()) {
+            Integer d = dist.get(node);
+            assertEquals(d == null ? -1 : d, levels.getHops(node));
+        }
+        for (int depth = 0; depth < levels.getLevelCount(); depth++) {
+            for (INode node : levels.getLevel(depth)) {
+                assertEquals(depth, levels.getHops(node));
+            }
+        }
+    }
+
+    @Test
+    public void testDirectionOptimizingBFS() {
+        int n = 20000;
+        Random random = new Random(220);
+        for (boolean directed : new boolean[] {false, true}) {
+            CompactGraph.Builder builder = new CompactGraph.Builder();
+            for (int i = 0; i < n; i++) {
+                builder.addNode("n" + i);
+            }
+            for (int i = 0; i < n * 8; i++) {
+                String a = "n" + random.nextInt(n);
+                String b = "n" + random.nextInt(n);
+                if (directed) {
+                    builder.addDirectedEdge(a, b, 1);
+                } else {
+                    builder.addUndirectedEdge(a, b, 1);
+                }
+            }
+            CompactGraph g = builder.build();
+            DirectionOptimizingBFS search = new DirectionOptimizingBFS(g);
+            BreadthFirstLevels levels = search.search("n0");
+            BreadthFirstLevels expected = g.parallelBreadthFirstSearch("n0");
+            assertTrue(search.getBottomUpLevelCount() > 0);
+            assertEquals(expected.getLevelCount(), levels.getLevelCount());
+            assertEquals(expected.getReachedCount(), levels.getReachedCount());
+            assertNull(levels.getParent(g.getOrCreateNode("n0")));
+            for (INode node : g.getAllNodes()) {
+                assertEquals(expected.getHops(node), levels.getHops(node));
+                INode parent = levels.getParent(node);
+                if (parent != null) {
+                    assertTrue(parent.hasEdge(node));
+                    assertEquals(levels.getHops(node) - 1, levels.getHops(parent));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDepthFirstTree() {
+        IGraph g = new Graph();
+        INode a = g.getOrCreateNode("A");
+        INode b = g.getOrCreateNode("B");
+        INode c = g.getOrCreateNode("C");
+        INode d = g.getOrCreateNode("D");
+        INode e = g.getOrCreateNode("E");
+        a.addDirectedEdgeToNode(c, 1);
+        a.addDirectedEdgeToNode(b, 1);
+        b.addDirectedEdgeToNode(d, 1);
+        c.addDirectedEdgeToNode(d, 1);
+
+        DepthFirstTree tree = g.depthFirstTree("A");
+        assertEquals(4, tree.getReachedCount());
+        assertEquals(Arrays.asList(a, b, d, c), tree.getPreorder());
+        assertEquals(0, tree.getDiscoveryTime(a));
+        assertEquals(1, tree.getDiscoveryTime(b));
+        assertEquals(2, tree.getDiscoveryTime(d));
+        assertEquals(3, tree.getFinishTime(d));
+        assertEquals(7, tree.getFinishTime(a));
+        assertEquals(b, tree.getParent(d));
+        assertNull(tree.getParent(a));
+        assertTrue(tree.isAncestor(a, d));
+        assertFalse(tree.isAncestor(c, d));
+        assertFalse(tree.isReached(e));
+        assertEquals(-1, tree.getFinishTime(e));
+        assertEquals(a, tree.getPostorder().get(3));
+
+        DepthFirstTree forest = new DepthFirstSearch(g).searchAll();
+        assertEquals(5, forest.getReachedCount());
+        assertNull(forest.getParent(e));
+
+        // the tree must list nodes in the same order as the visitor
+        IGraph grid = GridGraph.makeGridGraph(6, 7);
+        OrderedNodeVisitor v = new OrderedNodeVisitor();
+        grid.depthFirstSearch("r2c3", v);
+        List<String> preorder = new ArrayList<>();
+        for (INode node : grid.depthFirstTree("r2c3").getPreorder()) {
+            preorder.add(node.getName());
+        }
+        assertEquals(v.getOrder(), preorder);
+    }
+
+    @Test
+    public void testDepthFirstTreeDeepPath() {
+        // a single row is a path of a million nodes, far deeper than the call stack allows
+        int n = 1000000;
+        ImplicitGridGraph path = GridGraph.makeImplicitGridGraph(1, n, ImplicitGridGraph.Connectivity.FOUR);
+        DepthFirstTree tree = path.depthFirstTree("r0c0");
+        assertEquals(n, tree.getReachedCount());
+        assertEquals(n - 1, tree.getDiscoveryTime(n - 1));
+        assertEquals(n, tree.getFinishTime(n - 1));
+        assertEquals(2 * n - 1, tree.getFinishTime(0));
+        assertEquals(n - 2, tree.getParent(n - 1));
+    }
+
     static class OrderedNodeVisitor implements NodeVisitor{
         private List<String> nodes = new LinkedList<>();
         public List<String> getOrder() {
@@ -140,4 +450,96 @@ graph dfs1 {
         }
     }
 
+
+    @Test
+    public void testMazes() throws Exception
+    {
+        ImplicitGridGraph grid = GridGraph.makeImplicitGridGraph(23, 31, ImplicitGridGraph.Connectivity.FOUR);
+        Random random = new Random(220);
+        for (Maze maze : new Maze[] { MazeGenerator.depthFirst(grid, random),
+                MazeGenerator.prim(grid, random), MazeGenerator.kruskal(grid, random) }) {
+            // a spanning tree: n-1 passages, all between neighbors, reaching every cell
+            assertEquals(23 * 31 - 1, maze.getPassageCount());
+            IGraph g = maze.toGraph();
+            int[] count = new int[1];
+            g.breadthFirstSearch("r0c0", node -> count[0]++);
+            assertEquals(23 * 31, count[0]);
+            for (INode node : g.getAllNodes()) {
+                for (INode next : node.getNeighbors()) {
+                    assertTrue(grid.getOrCreateNode(node.getName()).hasEdge(grid.getOrCreateNode(next.getName())));
+                    assertTrue(maze.isOpen(g.getId(node), g.getId(next)));
+                }
+            }
+            StringBuilder dot = new StringBuilder();
+            maze.writeDot(dot, "maze");
+            assertTrue(dot.toString().startsWith("graph maze {\n"));
+            assertEquals(GraphFactories.readFromDotFile(new ByteArrayInputStream(dot.toString().getBytes())).getAllNodes().size(),
+                    23 * 31);
+        }
+    }
+
+    @Test
+    public void testDisjointSet()
+    {
+        DisjointSet sets = new DisjointSet(10);
+        assertEquals(10, sets.getSetCount());
+        assertTrue(sets.union(1, 2));
+        assertTrue(sets.union(3, 4));
+        assertTrue(sets.union(2, 4));
+        assertFalse(sets.union(1, 3));
+        assertTrue(sets.sameSet(1, 4));
+        assertFalse(sets.sameSet(0, 1));
+        assertEquals(7, sets.getSetCount());
+    }
+
+    @Test
+    public void testConnectedComponents()
+    {
+        IGraph g = new Graph();
+        INode a = g.getOrCreateNode("A");
+        INode b = g.getOrCreateNode("B");
+        INode c = g.getOrCreateNode("C");
+        a.addUndirectedEdgeToNode(b, 1);
+        ConnectedComponents components = g.connectedComponents();
+        assertEquals(2, components.getComponentCount());
+        assertTrue(components.sameComponent(a, b));
+        assertFalse(components.sameComponent(a, c));
+        assertEquals(2, components.getComponentSize(b));
+
+        // new nodes and edges are added to the same labels
+        INode d = g.getOrCreateNode("D");
+        assertEquals(3, components.getComponentCount());
+        c.addDirectedEdgeToNode(d, 1);
+        b.addUndirectedEdgeToNode(c, 1);
+        assertEquals(1, components.getComponentCount());
+        assertEquals(4, components.getComponentSize(a));
+        assertEquals(components.getComponent(a), components.getComponent(d));
+
+        // removing an edge splits the component again
+        c.removeUndirectedEdgeToNode(b);
+        assertEquals(2, components.getComponentCount());
+        assertTrue(components.sameComponent(c, d));
+        assertFalse(components.sameComponent(b, d));
+
+        ConnectedComponents compact = CompactGraph.freeze(g).connectedComponents();
+        assertEquals(2, compact.getComponentCount());
+        assertEquals(1, GridGraph.makeImplicitGridGraph(3, 4, ImplicitGridGraph.Connectivity.FOUR)
+                .connectedComponents().getComponentCount());
+    }
+
+    @Test
+    public void testDisjointSetGrows()
+    {
+        DisjointSet sets = new DisjointSet(0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, sets.add());
+        }
+        for (int i = 1; i < 50; i++) {
+            sets.union(0, i);
+        }
+        assertEquals(51, sets.getSetCount());
+        assertEquals(50, sets.getSetSize(7));
+        assertEquals(1, sets.getSetSize(70));
+        assertEquals(100, sets.size());
+    }
 }